@@ -3,10 +3,16 @@ package game;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Scanner;
 
 /**
- * This class represents an area/room in the game. Each area/room is represented by a 2d array of tiles.
+ * This class represents an area/room in the game. Each area/room is a grid of tiles. The tiles and the fixed objects on them
+ * never change once loaded, and are kept in the area's layout (see AreaLayout), which can be shared between areas. The
+ * occupants that can change (doors, containers, movable and inventory objects, players) are kept by the area in a sparse
+ * side table. Tiles can be read and changed directly through the x/y methods without allocating. getTile(..) hands out
+ * Tile objects that are views onto the grid, for code that prefers to work with tiles.
  * @author Pritesh R. Patel
  *
  */
@@ -17,8 +23,16 @@ public class Area implements Serializable {
 	public int height;
 
 	private String areaName;
-	private Tile[][] area;
+	private AreaLayout layout; //Tiles and fixed objects.
+	private OccupantTable occupants = new OccupantTable(); //Occupants that can change, by tile index.
+	private List<Player> players = new ArrayList<Player>(); //Players and NPCs standing in this area, kept in step with the occupants.
 	private Player owner;
+	private transient GameListener listener; //Told whenever a tile in this area changes. Only used on the server.
+	private transient long[] versions; //Clock value of the last change to each tile. Created on the first change.
+	private transient int[] previousChanged; //Changed tiles are linked in the order they changed, so that the tiles that
+	private transient int[] nextChanged; //changed since a given clock value can be found without scanning the whole grid.
+	private transient int lastChanged; //Index of the tile that changed most recently, or -1 if none.
+	private transient Tile[] tiles; //Views handed out by getTile(..). Created when first asked for.
 
 	public Area(String areaName, String areaFile) {
 
@@ -38,7 +52,7 @@ public class Area implements Serializable {
 			this.width = scan.nextInt();
 			this.height = scan.nextInt();
 
-			this.area = new Tile[height][width];
+			this.layout = new AreaLayout(this.width, this.height);
 
 			int xPos = 0;
 			int yPos = 0;
@@ -48,7 +62,7 @@ public class Area implements Serializable {
 
 				String tileString = scan.next();
 
-				this.area[yPos][xPos] = createTile(tileString, new Position(xPos, yPos)); //Create appropriate tile and add it to the area 2d array.
+				this.createTile(tileString, xPos, yPos); //Create appropriate tile in the grid.
 				xPos++;
 				if (xPos >= this.width) {
 					xPos = 0;
@@ -76,13 +90,13 @@ public class Area implements Serializable {
 					Position pos = new Position(gameObjScanner.nextInt(), gameObjScanner.nextInt());
 					GameObject gameObject = new FixedGO(id, token, pos);
 
-					this.area[pos.getPosY()][pos.getPosX()].setOccupant(gameObject);
+					this.setOccupant(pos.getPosX(), pos.getPosY(), gameObject);
 
 					//Set up the rest of the marker tiles that make up this game object.
 					while (gameObjScanner.hasNextInt()) {
 						Position markerPos = new Position(gameObjScanner.nextInt(), gameObjScanner.nextInt());
 						GameObject markerObj = new MarkerGO(gameObject, markerPos); //Link marker to original game object.
-						this.area[markerPos.getPosY()][markerPos.getPosX()].setOccupant(markerObj);
+						this.setOccupant(markerPos.getPosX(), markerPos.getPosY(), markerObj);
 					}
 
 					//Set the description of the game object.
@@ -103,25 +117,53 @@ public class Area implements Serializable {
 	}
 
 	/**
-	 * Creates and returns the appropriate type of tile given a token(tileString).
+	 * Creates an empty area of the given size. Tiles are then added using setTile(..). Used when rebuilding an area that has
+	 * not been loaded from an area file.
+	 * @param areaName name of the area.
+	 * @param width width of the area in tiles.
+	 * @param height height of the area in tiles.
+	 */
+	public Area(String areaName, int width, int height) {
+		this.areaName = areaName;
+		this.width = width;
+		this.height = height;
+		this.layout = new AreaLayout(width, height);
+	}
+
+	/**
+	 * Creates an area laid over the given layout, with no occupants other than the fixed objects of the layout. The layout is
+	 * shared, so it can not be changed through this area.
+	 * @param areaName name of the area.
+	 * @param layout the tiles and fixed objects of the area.
+	 */
+	public Area(String areaName, AreaLayout layout) {
+		this.areaName = areaName;
+		this.width = layout.getWidth();
+		this.height = layout.getHeight();
+		this.layout = layout.share();
+	}
+
+	/**
+	 * Creates the appropriate type of tile given a token(tileString).
 	 * @param tileString A token(string) that corresponds to a tile type.
-	 * @param pos Position of this tile.
-	 * @return Tile Tile that is created according to the given token(tileString).
+	 * @param x x position of this tile.
+	 * @param y y position of this tile.
 	 */
-	private Tile createTile(String tileString, Position pos) {
+	private void createTile(String tileString, int x, int y) {
 
 		if (tileString.equals("n")) {
-			return null;
+			return;
 
 		} else if (tileString.equals("c0") || tileString.equals("g0") || //FIXME: ADD More token types here to add different types of floor tiles.
 				   tileString.equals("h0") || tileString.equals("R0") ||
 			 	   tileString.equals("L0"))
 		{ 
 
-			return new FloorTile(pos, tileString);
+			this.setTile(x, y, true, tileString);
+			return;
 		}
 
-		return new WallTile(pos, tileString);
+		this.setTile(x, y, false, tileString);
 	}
 
 
@@ -139,25 +181,273 @@ public class Area implements Serializable {
 	 * @return Tile at the given positio. If the position given is out of bounds, return null.
 	 */
 	public Tile getTile(Position position) {
-		int posX = position.getPosX();
-		int posY = position.getPosY();
+		return this.getTile(position.getPosX(), position.getPosY());
+	}
 
-		//If the position is not within the bounds of the array, return null
-		if (posY < 0 || posY >= height || posX < 0 || posX >= width) {
+	/**
+	 * Returns the tile at the given position. The tile is a view onto this area, and is only created the first time it is
+	 * asked for.
+	 * @return Tile at the given position, or null if there is no tile there or the position is out of bounds.
+	 */
+	public Tile getTile(int x, int y) {
+		if (!this.hasTile(x, y)) {
 			return null;
 		}
 
-		return this.area[position.getPosY()][position.getPosX()];
+		if (this.tiles == null) {
+			this.tiles = new Tile[this.width * this.height];
+		}
+
+		int index = this.indexOf(x, y);
+		Tile tile = this.tiles[index];
+		if (tile == null) {
+			tile = this.isFloor(x, y) ? new FloorTile(this, Position.of(x, y)) : new WallTile(this, Position.of(x, y));
+			this.tiles[index] = tile;
+		}
+
+		return tile;
 	}
 
 	/**
-	 * 
-	 * @return The 2D array that represents the area.
+	 * Places a tile into the area, replacing any tile already at the position.
+	 * @param x x position of the tile.
+	 * @param y y position of the tile.
+	 * @param floor true for a floor tile, false for a wall tile.
+	 * @param token the tile "type".
+	 */
+	public void setTile(int x, int y, boolean floor, String token) {
+		this.layout.setTile(x, y, floor, token);
+
+		//Type of the tile may have changed.
+		if (this.tiles != null) {
+			this.tiles[this.indexOf(x, y)] = null;
+		}
+	}
+
+	/**
+	 * @return true if the position is within the bounds of this area.
+	 */
+	public boolean contains(int x, int y) {
+		return x >= 0 && x < this.width && y >= 0 && y < this.height;
+	}
+
+	/**
+	 * @return true if there is a tile at the given position.
+	 */
+	public boolean hasTile(int x, int y) {
+		return this.layout.hasTile(x, y);
+	}
+
+	/**
+	 * @return true if there is a floor tile at the given position.
+	 */
+	public boolean isFloor(int x, int y) {
+		return this.layout.isFloor(x, y);
+	}
+
+	/**
+	 * @return true if there is a wall tile at the given position.
+	 */
+	public boolean isWall(int x, int y) {
+		return this.hasTile(x, y) && !this.isFloor(x, y);
+	}
+
+	/**
+	 * @return the token of the tile at the given position, or null if there is no tile there.
+	 */
+	public String getToken(int x, int y) {
+		return this.layout.getToken(x, y);
+	}
+
+	/**
+	 * @return the occupant of the tile at the given position, or null if the tile is not occupied or does not exist.
 	 */
-	public Tile[][] getArea() {
-		return this.area;
+	public GameObject getOccupant(int x, int y) {
+		if (!this.contains(x, y)) {
+			return null;
+		}
+		GameObject occupant = this.occupants.get(this.indexOf(x, y));
+		return occupant != null ? occupant : this.layout.getFixedObject(x, y);
 	}
 
+	/**
+	 * Sets the occupant of the tile at the given position. Throws an error if the tile is already occupied. Fixed objects
+	 * and their markers are placed into the layout while it is being loaded, which is not a change to the area.
+	 * @param occupant to set onto the tile.
+	 */
+	public void setOccupant(int x, int y, GameObject occupant) {
+		if (!this.hasTile(x, y)) {
+			throw new Error("There is no tile at X: " + x + " Y: " + y + " in " + this.areaName);
+		}
+		if (this.getOccupant(x, y) != null) {
+			throw new Error("Tile is already occupied!");
+		}
+
+		if (AreaLayout.isFixed(occupant) && !this.layout.isShared()) {
+			this.layout.setFixedObject(x, y, occupant);
+			return;
+		}
+
+		this.occupants.put(this.indexOf(x, y), occupant);
+		if (occupant instanceof Player) {
+			this.players.add((Player) occupant);
+		}
+		this.markChanged(x, y);
+	}
+
+	/**
+	 * Removes the occupant of the tile at the given position.
+	 */
+	public void removeOccupant(int x, int y) {
+		if (!this.contains(x, y)) {
+			return;
+		}
+
+		GameObject occupant = this.occupants.get(this.indexOf(x, y));
+		if (occupant == null && this.layout.getFixedObject(x, y) != null) {
+			throw new Error("Fixed objects can not be removed from an area.");
+		}
+		if (occupant instanceof Player) {
+			this.removeFromPlayers((Player) occupant);
+		}
+
+		this.occupants.remove(this.indexOf(x, y));
+		this.markChanged(x, y);
+	}
+
+	/**
+	 * Removes the given player from the players standing in this area. Compares by identity, since the client holds a
+	 * different copy of a player after each bundle.
+	 */
+	private void removeFromPlayers(Player player) {
+		for (int i = 0; i < this.players.size(); i++) {
+			if (this.players.get(i) == player) {
+				this.players.remove(i);
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Returns the players and NPCs standing in this area. The list is kept up to date as occupants are set and removed, so
+	 * it must not be changed by the caller, and must be copied if occupants are moved while iterating over it.
+	 * @return the players and NPCs in this area.
+	 */
+	public List<Player> getPlayers() {
+		return this.players;
+	}
+
+	/**
+	 * @return true if a human player is standing in this area.
+	 */
+	public boolean hasHumanPlayer() {
+		for (int i = 0; i < this.players.size(); i++) {
+			if (!(this.players.get(i) instanceof NonHumanPlayer)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Marks the tile at the given position as changed. This must be called whenever the occupant of the tile changes state
+	 * (e.g. a door opening or a player turning) so that the change is sent to the clients.
+	 */
+	public void markChanged(int x, int y) {
+		if (this.versions == null) {
+			this.versions = new long[this.width * this.height];
+			this.previousChanged = new int[this.width * this.height];
+			this.nextChanged = new int[this.width * this.height];
+			this.lastChanged = -1;
+		}
+
+		int index = this.indexOf(x, y);
+
+		//Unlink the tile if it has changed before, then link it as the most recent change.
+		if (this.versions[index] != 0) {
+			int previous = this.previousChanged[index];
+			int next = this.nextChanged[index];
+			if (previous >= 0) {
+				this.nextChanged[previous] = next;
+			}
+			if (next >= 0) {
+				this.previousChanged[next] = previous;
+			} else {
+				this.lastChanged = previous;
+			}
+		}
+
+		this.previousChanged[index] = this.lastChanged;
+		this.nextChanged[index] = -1;
+		if (this.lastChanged >= 0) {
+			this.nextChanged[this.lastChanged] = index;
+		}
+		this.lastChanged = index;
+
+		this.versions[index] = Tile.nextVersion();
+
+		if (this.listener != null) {
+			this.listener.areaChanged(this);
+		}
+	}
+
+	/**
+	 * @return the clock value of the last change made to the tile at the given position.
+	 */
+	public long getVersion(int x, int y) {
+		if (this.versions == null) {
+			return 0;
+		}
+		return this.versions[this.indexOf(x, y)];
+	}
+
+	/**
+	 * Returns the positions of the tiles that changed after the given clock value, most recent first. Only the changed tiles
+	 * are visited, so the cost does not depend on the size of the area.
+	 * @param version clock value to get the changes since.
+	 * @return positions of the tiles that changed.
+	 */
+	public List<Position> getChangedSince(long version) {
+		List<Position> changed = new ArrayList<Position>();
+		if (this.versions == null) {
+			return changed;
+		}
+
+		for (int index = this.lastChanged; index >= 0 && this.versions[index] > version; index = this.previousChanged[index]) {
+			changed.add(Position.of(index % this.width, index / this.width));
+		}
+		return changed;
+	}
+
+	/**
+	 * @return the positions of the occupants kept by this area (everything but the fixed objects of the layout), in tile order.
+	 */
+	public List<Position> getOccupantPositions() {
+		List<Position> positions = new ArrayList<Position>();
+		for (int index : this.occupants.indexes()) {
+			positions.add(Position.of(index % this.width, index / this.width));
+		}
+		return positions;
+	}
+
+	/**
+	 * @return the tiles and fixed objects of this area.
+	 */
+	public AreaLayout getLayout() {
+		return this.layout;
+	}
+
+	/**
+	 * Sets the listener that is told whenever a tile in this area changes.
+	 * @param listener the listener, or null for none.
+	 */
+	public void setListener(GameListener listener) {
+		this.listener = listener;
+	}
+
+	private int indexOf(int x, int y) {
+		return y * this.width + x;
+	}
 
 	/**
 	 * Sets the given player as the owner of the spawn room. Throws error if you try to set an owner for a non-spawn room.
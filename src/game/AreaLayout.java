@@ -0,0 +1,211 @@
+package game;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The static layer of an area: the tiles and the fixed objects (and their markers) standing on them. None of these change
+ * once an area has been loaded. The layout is filled in while its area is loaded and is immutable once it has been shared
+ * (see share()), after which any number of areas can be laid over the same layout. Everything in an area that can change
+ * (doors, containers, movable and inventory objects, players) is kept by the area itself.
+ */
+public class AreaLayout implements Serializable {
+
+	private static final long serialVersionUID = -2287331092646151395L;
+	private final int width;
+	private final int height;
+	private final short[] cells; //0 if there is no tile, otherwise the token id shifted left by one. Lowest bit is set for floor tiles.
+	private final List<String> tokens = new ArrayList<String>(); //Tokens used by the tiles. Token id is the index + 1.
+	private final OccupantTable fixedObjects = new OccupantTable(); //Fixed objects and their markers by tile index.
+	private boolean shared; //Once shared the layout can no longer be changed.
+	private transient volatile long contentHash; //Worked out the first time it is asked for. 0 until then.
+
+	AreaLayout(int width, int height) {
+		this.width = width;
+		this.height = height;
+		this.cells = new short[width * height];
+	}
+
+	/**
+	 * Marks this layout as shared. It can not be changed from then on, so it is safe to hand to other areas.
+	 * @return this layout.
+	 */
+	public AreaLayout share() {
+		this.shared = true;
+		return this;
+	}
+
+	/**
+	 * @return true if this layout has been shared and can no longer be changed.
+	 */
+	public boolean isShared() {
+		return this.shared;
+	}
+
+	/**
+	 * Returns a hash of the content of this layout: its size, its tiles and its fixed objects. Layouts with the same content
+	 * have the same hash, whichever area they belong to, so the hash can be used to cache layouts (e.g. on the client). The
+	 * layout is shared, as its content must not change once it has been hashed.
+	 * @return the first 64 bits of the SHA-256 digest of the content. Never 0.
+	 */
+	public long getContentHash() {
+		if (this.contentHash != 0) {
+			return this.contentHash;
+		}
+		this.share();
+
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream out = new DataOutputStream(bytes);
+			out.writeInt(this.width);
+			out.writeInt(this.height);
+			for (int y = 0; y < this.height; y++) {
+				for (int x = 0; x < this.width; x++) {
+					out.writeBoolean(this.isFloor(x, y));
+					this.writeHashed(out, this.getToken(x, y));
+				}
+			}
+
+			for (Position position : this.getFixedObjectPositions()) {
+				GameObject fixed = this.getFixedObject(position.getPosX(), position.getPosY());
+				out.writeInt(position.getPosX());
+				out.writeInt(position.getPosY());
+				if (fixed instanceof MarkerGO) {
+					fixed = ((MarkerGO) fixed).getBaseGO(); //Markers are hashed as the position of their base object.
+					out.writeBoolean(true);
+					out.writeInt(fixed.getPosition().getPosX());
+					out.writeInt(fixed.getPosition().getPosY());
+				} else {
+					out.writeBoolean(false);
+					this.writeHashed(out, fixed.getId());
+					this.writeHashed(out, fixed.getToken());
+					this.writeHashed(out, fixed.getDescription());
+				}
+			}
+			out.flush();
+
+			long hash = ByteBuffer.wrap(MessageDigest.getInstance("SHA-256").digest(bytes.toByteArray())).getLong();
+			this.contentHash = hash != 0 ? hash : 1;
+			return this.contentHash;
+
+		} catch (IOException | NoSuchAlgorithmException e) {
+			throw new Error("Could not hash area layout.", e); //In memory, and every JVM has SHA-256.
+		}
+	}
+
+	private void writeHashed(DataOutputStream out, String string) throws IOException {
+		out.writeBoolean(string != null);
+		if (string != null) {
+			out.writeUTF(string);
+		}
+	}
+
+	/**
+	 * @return true if the given occupant belongs in the layout rather than in an area: a fixed object, or a marker of one.
+	 */
+	public static boolean isFixed(GameObject occupant) {
+		return occupant instanceof FixedGO
+				|| (occupant instanceof MarkerGO && ((MarkerGO) occupant).getBaseGO() instanceof FixedGO);
+	}
+
+	/**
+	 * @return true if the position is within the bounds of this layout.
+	 */
+	public boolean contains(int x, int y) {
+		return x >= 0 && x < this.width && y >= 0 && y < this.height;
+	}
+
+	/**
+	 * @return true if there is a tile at the given position.
+	 */
+	public boolean hasTile(int x, int y) {
+		return this.contains(x, y) && this.cells[this.indexOf(x, y)] != 0;
+	}
+
+	/**
+	 * @return true if there is a floor tile at the given position.
+	 */
+	public boolean isFloor(int x, int y) {
+		return this.contains(x, y) && (this.cells[this.indexOf(x, y)] & 1) == 1;
+	}
+
+	/**
+	 * @return the token of the tile at the given position, or null if there is no tile there.
+	 */
+	public String getToken(int x, int y) {
+		if (!this.hasTile(x, y)) {
+			return null;
+		}
+		return this.tokens.get((this.cells[this.indexOf(x, y)] >> 1) - 1);
+	}
+
+	/**
+	 * @return the fixed object (or marker) at the given position, or null if there is none.
+	 */
+	public GameObject getFixedObject(int x, int y) {
+		if (!this.contains(x, y)) {
+			return null;
+		}
+		return this.fixedObjects.get(this.indexOf(x, y));
+	}
+
+	/**
+	 * @return the positions of the fixed objects and markers, in tile order.
+	 */
+	public List<Position> getFixedObjectPositions() {
+		List<Position> positions = new ArrayList<Position>();
+		for (int index : this.fixedObjects.indexes()) {
+			positions.add(Position.of(index % this.width, index / this.width));
+		}
+		return positions;
+	}
+
+	/**
+	 * Places a tile into the layout, replacing any tile already at the position.
+	 */
+	void setTile(int x, int y, boolean floor, String token) {
+		this.checkNotShared();
+
+		int tokenId = this.tokens.indexOf(token) + 1;
+		if (tokenId == 0) {
+			this.tokens.add(token);
+			tokenId = this.tokens.size();
+		}
+		this.cells[this.indexOf(x, y)] = (short) (tokenId << 1 | (floor ? 1 : 0));
+	}
+
+	/**
+	 * Places a fixed object (or marker) onto the tile at the given position.
+	 */
+	void setFixedObject(int x, int y, GameObject fixedObject) {
+		this.checkNotShared();
+		this.fixedObjects.put(this.indexOf(x, y), fixedObject);
+	}
+
+	private void checkNotShared() {
+		if (this.shared) {
+			throw new Error("A shared area layout can not be changed.");
+		}
+	}
+
+	private int indexOf(int x, int y) {
+		return y * this.width + x;
+	}
+
+	/** GETTERS **/
+
+	public int getWidth() {
+		return this.width;
+	}
+
+	public int getHeight() {
+		return this.height;
+	}
+}
@@ -5,7 +5,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 /**
- * A bundle holds the different bits of information that needs to be passed to the respective client.
+ * A bundle holds the different bits of information that needs to be passed to the respective client. Areas are changed in
+ * parallel on the server, and any area can add to a bundle (e.g. the chat log), so the methods that add to a bundle are
+ * synchronized.
  * @author Pritesh R. Patel
  *
  */
@@ -18,6 +20,17 @@ public class Bundle implements Serializable {
 	private List<String> chatLogChanges = new ArrayList<String>();
 	private List<GameObject> areaObjects = new ArrayList<GameObject>(); //Objects in the players current area.
 
+	//Area state. Either a full copy of the area or the tiles that changed since the base version.
+	private Area area;
+	private List<TileChange> tileChanges = new ArrayList<TileChange>();
+	private long baseVersion; //Version of the area the client must hold for the tile changes to apply.
+	private long version; //Version of the area once this bundle is applied.
+
+	//Server side record of the area state the client holds. Never transmitted.
+	private transient String sentAreaName;
+	private transient long sentVersion;
+	private transient GameListener listener; //Told whenever something is added to this bundle.
+
 	public Bundle(String playerName) {
 		this.playerName = playerName;
 	}
@@ -25,12 +38,48 @@ public class Bundle implements Serializable {
 	/**
 	 * Clear relevant fields of this bundle. THis should be called once the bundle has been sent to the respective client.
 	 */
-	public void clearBundle() {
+	public synchronized void clearBundle() {
+		//The client now holds the area state of this bundle.
+		if (this.area != null) {
+			this.sentAreaName = this.area.getAreaName();
+		}
+		this.sentVersion = this.version;
+
 		this.areaObjects.clear();
+		this.area = null;
+		this.tileChanges = new ArrayList<TileChange>();
 		this.setMessage(null);
 		this.chatLogChanges = new ArrayList<String>();
 	}
 
+	/**
+	 * Forget the area state the client holds so that the next bundle transmitted contains a full copy of the area.
+	 * Used when the client's copy of the area is out of sync.
+	 */
+	public synchronized void resetSentState() {
+		this.sentAreaName = null;
+		this.sentVersion = 0;
+		this.markChanged();
+	}
+
+	/**
+	 * Marks this bundle as changed so that it is sent to the client. Called whenever something is added to the bundle, and
+	 * should be called directly when the player changes in a way the bundle does not record (e.g. items added to the inventory).
+	 */
+	public void markChanged() {
+		if (this.listener != null) {
+			this.listener.bundleChanged(this);
+		}
+	}
+
+	/**
+	 * Sets the listener that is told whenever this bundle changes.
+	 * @param listener the listener, or null for none.
+	 */
+	public void setListener(GameListener listener) {
+		this.listener = listener;
+	}
+
 	/** GETTERS AND SETTERS **/
 	public String getPlayerName() {
 		return playerName;
@@ -40,8 +89,9 @@ public class Bundle implements Serializable {
 		return this.chatLogChanges;
 	}
 
-	public void addToChatLog(String logItem) {
+	public synchronized void addToChatLog(String logItem) {
 		this.chatLogChanges.add(logItem);
+		this.markChanged();
 	}
 
 	public void setChatLog(List<String> log) {
@@ -52,16 +102,20 @@ public class Bundle implements Serializable {
 		return playerObj;
 	}
 
-	public void setPlayerObj(Player playerObj) {
+	public synchronized void setPlayerObj(Player playerObj) {
 		this.playerObj = playerObj;
+		this.markChanged();
 	}
 
 	public String getMessage() {
 		return message;
 	}
 
-	public void setMessage(String message) {
+	public synchronized void setMessage(String message) {
 		this.message = message;
+		if (message != null) {
+			this.markChanged();
+		}
 	}
 
 	public void addMapObject(GameObject obj) {
@@ -72,4 +126,44 @@ public class Bundle implements Serializable {
 		return this.areaObjects;
 	}
 
+	/**
+	 * @return a full copy of the player's area, or null if this bundle only holds the changes to the area.
+	 */
+	public Area getArea() {
+		return area;
+	}
+
+	public void setArea(Area area) {
+		this.area = area;
+	}
+
+	public List<TileChange> getTileChanges() {
+		return tileChanges;
+	}
+
+	public void addTileChange(TileChange change) {
+		this.tileChanges.add(change);
+	}
+
+	public long getBaseVersion() {
+		return baseVersion;
+	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	public void setVersions(long baseVersion, long version) {
+		this.baseVersion = baseVersion;
+		this.version = version;
+	}
+
+	public String getSentAreaName() {
+		return sentAreaName;
+	}
+
+	public long getSentVersion() {
+		return sentVersion;
+	}
+
 }
@@ -0,0 +1,53 @@
+package game;
+
+/**
+ * The directions a player can face and move in, along with the change in x and y of a single step in that direction.
+ */
+public enum Direction {
+	NORTH(0, -1),
+	SOUTH(0, 1),
+	EAST(1, 0),
+	WEST(-1, 0);
+
+	private final int dx;
+	private final int dy;
+
+	private Direction(int dx, int dy) {
+		this.dx = dx;
+		this.dy = dy;
+	}
+
+	/**
+	 * @return the change in x of a single step in this direction.
+	 */
+	public int getDx() {
+		return dx;
+	}
+
+	/**
+	 * @return the change in y of a single step in this direction.
+	 */
+	public int getDy() {
+		return dy;
+	}
+
+	/**
+	 * Returns the direction with the given name, e.g. "NORTH".
+	 * @param name name of the direction.
+	 * @return the direction, or null if there is no direction with the given name.
+	 */
+	public static Direction fromName(String name) {
+		switch (name) {
+		case "NORTH":
+			return NORTH;
+		case "SOUTH":
+			return SOUTH;
+		case "EAST":
+			return EAST;
+		case "WEST":
+			return WEST;
+		default:
+			return null;
+		}
+	}
+}
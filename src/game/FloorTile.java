@@ -7,9 +7,7 @@ package game;
  */
 public class FloorTile extends Tile {
 
-	private static final long serialVersionUID = -323586348528127271L;
-
-	public FloorTile(Position pos, String type) {
-		super(pos, type);
+	public FloorTile(Area area, Position pos) {
+		super(area, pos);
 	}
 }
@@ -0,0 +1,21 @@
+package game;
+
+/**
+ * A game listener is told whenever the state of the game changes, so that it only has to act on the parts of the game that
+ * have changed. The server uses this to only transmit bundles to the players whose view of the game has changed.
+ * Listener methods are called on the thread that made the change, in the middle of the change, so they must be quick.
+ */
+public interface GameListener {
+
+	/**
+	 * Called when a tile in the given area has changed. E.g. a player or NPC moved, or a door was opened.
+	 * @param area the area that changed.
+	 */
+	public void areaChanged(Area area);
+
+	/**
+	 * Called when something has been added to the given bundle. E.g. a message, chat log item or inventory change.
+	 * @param bundle the bundle that changed.
+	 */
+	public void bundleChanged(Bundle bundle);
+}
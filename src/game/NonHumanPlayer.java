@@ -1,5 +1,6 @@
 package game;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -9,7 +10,7 @@ import java.util.List;
  */
 public class NonHumanPlayer extends Player {
 
-	private List<String> directions; //Holds the list of directions the player will move.
+	private Direction[] directions; //Holds the list of directions the player will move.
 	private int current = 0; //Used to iterate the directions list.
 
 	public NonHumanPlayer(String playerName, String token, Area currentArea, Position currentPosition,
@@ -19,18 +20,22 @@ public class NonHumanPlayer extends Player {
 
 		this.setToken(token);
 		this.setDirection(directions.get(0)); //Set the default direction as the first direction in the list.
-		this.directions = directions;
+
+		this.directions = new Direction[directions.size()];
+		for (int i = 0; i < this.directions.length; i++) {
+			this.directions[i] = Direction.fromName(directions.get(i));
+		}
 	}
 
-	public String getPotentialDirection() {
+	public Direction getPotentialDirection() {
 
 		int next = current + 1;
 
 		//Wrap around to the start of the directions list if we hit the end.
-		if (next >= directions.size()) {
+		if (next >= directions.length) {
 			next = 0;
 		}
-		return this.directions.get(next);
+		return this.directions[next];
 	}
 
 	/**
@@ -39,13 +44,42 @@ public class NonHumanPlayer extends Player {
 	public void directionMoved() {
 		this.current++; //Increment current.
 		//Reset current to zero once it hits the end of the directions list.
-		if (this.current >= directions.size()) {
+		if (this.current >= directions.length) {
 			this.current = 0;
 		}
 	}
 
-	public String getCurrentDirection() {
-		return this.directions.get(current);
+	public Direction getCurrentDirection() {
+		return this.directions[current];
+	}
+
+	/**
+	 * @return the names of the directions the NPC moves in, in order.
+	 */
+	public List<String> getDirections() {
+		List<String> names = new ArrayList<String>();
+		for (Direction direction : this.directions) {
+			names.add(direction.name());
+		}
+		return names;
+	}
+
+	/**
+	 * @return index of the current direction in the directions list.
+	 */
+	public int getCurrentStep() {
+		return this.current;
+	}
+
+	/**
+	 * Sets the index of the current direction in the directions list. Used when restoring a saved NPC.
+	 * @param current index of the current direction.
+	 */
+	public void setCurrentStep(int current) {
+		if (current < 0 || current >= this.directions.length) {
+			throw new Error("Invalid step for NPC " + this.getPlayerName() + ": " + current);
+		}
+		this.current = current;
 	}
 
 }
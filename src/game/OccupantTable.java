@@ -0,0 +1,136 @@
+package game;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * A sparse table of the occupants of an area, keyed by tile index. Most tiles have no occupant, so occupants are kept in a
+ * small open addressing hash table rather than on every tile. Lookups do not allocate.
+ */
+public class OccupantTable implements Serializable {
+
+	private static final long serialVersionUID = 6010425211405371957L;
+	private static final int EMPTY = -1; //Key of an empty slot.
+
+	private int[] keys;
+	private GameObject[] values;
+	private int size;
+
+	public OccupantTable() {
+		this.keys = new int[16];
+		this.values = new GameObject[16];
+		Arrays.fill(this.keys, EMPTY);
+	}
+
+	/**
+	 * @param index the tile index.
+	 * @return the occupant of the tile, or null if it has none.
+	 */
+	public GameObject get(int index) {
+		int slot = this.find(index);
+		return slot < 0 ? null : this.values[slot];
+	}
+
+	/**
+	 * Sets the occupant of the tile, replacing any occupant it already has.
+	 * @param index the tile index.
+	 * @param occupant the occupant. Must not be null.
+	 */
+	public void put(int index, GameObject occupant) {
+		//Keep the table at most half full.
+		if ((this.size + 1) * 2 > this.keys.length) {
+			this.resize(this.keys.length * 2);
+		}
+
+		int slot = this.slotOf(index);
+		while (this.keys[slot] != EMPTY && this.keys[slot] != index) {
+			slot = (slot + 1) & (this.keys.length - 1);
+		}
+
+		if (this.keys[slot] == EMPTY) {
+			this.keys[slot] = index;
+			this.size++;
+		}
+		this.values[slot] = occupant;
+	}
+
+	/**
+	 * Removes the occupant of the tile, if it has one.
+	 * @param index the tile index.
+	 */
+	public void remove(int index) {
+		int slot = this.find(index);
+		if (slot < 0) {
+			return;
+		}
+
+		this.keys[slot] = EMPTY;
+		this.values[slot] = null;
+		this.size--;
+
+		//Move the entries after the removed one back so that lookups do not stop at the gap.
+		int next = (slot + 1) & (this.keys.length - 1);
+		while (this.keys[next] != EMPTY) {
+			int key = this.keys[next];
+			GameObject value = this.values[next];
+			this.keys[next] = EMPTY;
+			this.values[next] = null;
+			this.size--;
+			this.put(key, value);
+			next = (next + 1) & (this.keys.length - 1);
+		}
+	}
+
+	/**
+	 * @return the number of occupied tiles.
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * @return the indexes of the occupied tiles, in ascending order.
+	 */
+	public int[] indexes() {
+		int[] indexes = new int[this.size];
+		int count = 0;
+		for (int i = 0; i < this.keys.length; i++) {
+			if (this.keys[i] != EMPTY) {
+				indexes[count++] = this.keys[i];
+			}
+		}
+		Arrays.sort(indexes);
+		return indexes;
+	}
+
+	private int find(int index) {
+		int slot = this.slotOf(index);
+		while (this.keys[slot] != EMPTY) {
+			if (this.keys[slot] == index) {
+				return slot;
+			}
+			slot = (slot + 1) & (this.keys.length - 1);
+		}
+		return -1;
+	}
+
+	private int slotOf(int index) {
+		return (index * 0x9E3779B9 >>> 16) & (this.keys.length - 1);
+	}
+
+	private void resize(int capacity) {
+		int[] oldKeys = this.keys;
+		GameObject[] oldValues = this.values;
+
+		this.keys = new int[capacity];
+		this.values = new GameObject[capacity];
+		Arrays.fill(this.keys, EMPTY);
+		this.size = 0;
+
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != EMPTY) {
+				this.put(oldKeys[i], oldValues[i]);
+			}
+		}
+	}
+}
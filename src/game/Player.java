@@ -12,12 +12,12 @@ public class Player implements GameObject {
 
 	private static final long serialVersionUID = -347596131285383989L;
 	private final String playerName;
-	private Area currentArea;
+	private transient Area currentArea; //Not transmitted with the player. Clients hold their own copy of the area.
 	private final String spawnName;
 	private Position currentPosition;
 	private List<InventoryGO> inventory = new ArrayList<InventoryGO>();
 
-	private String direction = "NORTH";
+	private Direction direction = Direction.NORTH;
 	private String token;
 	private String description;
 
@@ -53,10 +53,24 @@ public class Player implements GameObject {
 	}
 
 	public String getDirection() {
+		return direction.name();
+	}
+
+	/**
+	 * @return the direction the player is facing.
+	 */
+	public Direction getFacing() {
 		return direction;
 	}
 
 	public void setDirection(String direction) {
+		this.setDirection(Direction.fromName(direction));
+	}
+
+	public void setDirection(Direction direction) {
+		if (direction == null) {
+			throw new Error("Not a valid direction!");
+		}
 		this.direction = direction;
 	}
 
@@ -10,6 +10,9 @@ import java.io.Serializable;
 public class Position implements Serializable {
 
 	private static final long serialVersionUID = -2558803055346062860L;
+	private static final int CACHE_SIZE = 64; //Positions with both coordinates below this are cached.
+	private static final Position[] cache = new Position[CACHE_SIZE * CACHE_SIZE];
+
 	private final int posX;
 	private final int posY;
 
@@ -18,6 +21,25 @@ public class Position implements Serializable {
 		this.posY = posY;
 	}
 
+	/**
+	 * Returns the position with the given coordinates. Positions are immutable, so positions within the bounds of the cache
+	 * are shared rather than created on every call.
+	 * @return a position with the given coordinates.
+	 */
+	public static Position of(int posX, int posY) {
+		if (posX < 0 || posY < 0 || posX >= CACHE_SIZE || posY >= CACHE_SIZE) {
+			return new Position(posX, posY);
+		}
+
+		int index = posY * CACHE_SIZE + posX;
+		Position position = cache[index];
+		if (position == null) {
+			position = new Position(posX, posY);
+			cache[index] = position;
+		}
+		return position;
+	}
+
 	/* GETTERS AND SETTERS */
 	public int getPosX() {
 		return posX;
@@ -2,28 +2,51 @@ package game;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Scanner;
-
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Function;
+
+import parser.Journal;
 import parser.Parsernew;
+import parser.Snapshot;
+import parser.WorldPack;
 
 /**
  * This class contains all of the logic Spooky School game. This class controls game state and provides various helper methods
- * for the server.
+ * for the server. The game is sharded by area: each area is its own lock, and changes that span two areas (e.g. moving
+ * through a door) lock both areas in name order. Player and NPC changes in different areas can therefore be made in parallel.
+ * Methods that change the whole game (adding and removing players, saving) must not run while areas are being ticked.
  * @author Pritesh R. Patel
  *
  */
 public class SpookySchool {
 
 	private final Position defaultSpawnPosition = new Position(5, 8); //Default position that a player spawns in, in a spawn room.
-	private final int maxPlayers = 4;
-	private List<Player> players = new ArrayList<Player>(); //List of players in the game.
+	private final int maxPlayers;
+	private List<Player> players = new CopyOnWriteArrayList<Player>(); //List of players in the game.
+	private Map<String, Player> playerIndex = new ConcurrentHashMap<String, Player>(); //Players in the game by name.
 	private String[] defaultPlayerTokens = { "0p20", "1p20", "2p20", "3p20" };
-	private List<String> usedTokens = new ArrayList<String>();
+	private Set<String> usedTokens = ConcurrentHashMap.newKeySet();
+
+	public static final Path WORLD_PACK_FILE = Paths.get("src/areas/world.pack"); //Compiled from the files below by WorldPack.
+	public static final int DEFAULT_RESIDENT_TILE_BUDGET = 1024; //Tiles of unused areas that are kept loaded.
 
 	//Should make xml implementation easier?!
 	private String areasFileLoc = "src/areas/areas.txt";
@@ -35,34 +58,178 @@ public class SpookySchool {
 	private String fillContainersFileLoc = "src/areas/game_objects/fill_containers.txt";
 
 	//Default Load files - these never change.
-	private Map<String, Area> areas = new HashMap<String, Area>();
+	private Map<String, Area> areas = new HashMap<String, Area>(); //Loaded areas. Every area, unless loaded from the world pack.
+	private WorldPack worldPack; //Areas that are not loaded are loaded from here, if set.
+	private List<String> areaNames; //Every area in the world pack, in the order they were compiled.
+	private int residentTileBudget = DEFAULT_RESIDENT_TILE_BUDGET;
+	private Map<String, Long> areaLastUsed = new HashMap<String, Long>(); //Last tick each loaded area was in use.
+	private long tickCount; //Ticks ended so far.
 	private List<NonHumanPlayer> nonHumanPlayers = new ArrayList<NonHumanPlayer>();
 
 	//Mainly for XML
 	private Parsernew parser;
+	private Path snapshotFile = Paths.get("save.snapshot"); //Where saveGame(..) writes the game.
+	private ExecutorService saveExecutor; //Writes snapshots to disk off the game thread.
+	private Journal journal; //Every state changing command is appended here, if set.
 	private List<MovableGO> movableObjects = new ArrayList<MovableGO>();
 	private List<DoorGO> doorObjects = new ArrayList<DoorGO>();
 	private Map<String, InventoryGO> inventoryObjects = new HashMap<String, InventoryGO>();
 	private Map<String, FixedContainerGO> fixedContainerObjects = new HashMap<String, FixedContainerGO>();
+	private Map<String, GameObject> gameObjects = new HashMap<String, GameObject>(); //Doors, movables, NPCs and fixed containers by id. First loaded wins.
 
 	//For networking
-	private Map<String, Bundle> playerBundles = new HashMap<String, Bundle>();
+	private Map<String, Bundle> playerBundles = new ConcurrentHashMap<String, Bundle>();
+	private GameListener listener; //Told about every change made to the game.
+
+	private final int npcMoveDelay = 300; //How often (in miliseconds) to move an npc.
+	private long nextNPCMove; //Time (in miliseconds) of the next npc move.
+	private boolean moveNPCs; //True if NPCs move during the current tick.
 
 	public SpookySchool() {
-		this.loadAreas(); //Load maps
-		this.setDoors(); //Sets up doors on the areas.
-		this.loadRemainingGameObjects(); //Load the remaining game objects.
-		this.fillContainers(); //Fill the containers in the rooms.
+		this(4);
+	}
 
-		this.parser = new Parsernew();
+	/**
+	 * Creates a new game.
+	 * @param maxPlayers maximum number of players that can be in the game at once. Players are also limited by the number of
+	 * spawn rooms in the game.
+	 */
+	public SpookySchool(int maxPlayers) {
+		this(maxPlayers, true);
+	}
+
+	/**
+	 * Creates a new game.
+	 * @param maxPlayers maximum number of players that can be in the game at once.
+	 * @param useWorldPack if true, the world is loaded from the precompiled world pack when it is up to date with the text
+	 * files. If the pack is missing or out of date, the world is loaded from the text files instead (see WorldPack.main to
+	 * compile it). Otherwise the world is always loaded from the text files (e.g. to compile the world pack).
+	 */
+	public SpookySchool(int maxPlayers, boolean useWorldPack) {
+		this.maxPlayers = maxPlayers;
+
+		if (!useWorldPack || !this.loadWorldPack()) {
+			this.loadAreas(); //Load maps
+			this.setDoors(); //Sets up doors on the areas.
+			this.loadRemainingGameObjects(); //Load the remaining game objects.
+			this.fillContainers(); //Fill the containers in the rooms.
+
+			if (useWorldPack) {
+				System.out.println("World pack " + WORLD_PACK_FILE + " is missing or out of date, loaded the text files instead."
+						+ " Run parser.WorldPack to compile it.");
+			}
+		}
 
-		//Create a new clock thread and start it. Used for NPCs.
-		Thread clockThread = new ClockThread(this);
-		clockThread.start();
+		this.parser = new Parsernew();
 
 		System.out.println("Game Loaded.");
 	}
 
+	/**
+	 * Creates a new game loaded from the given world pack, without checking that it is up to date with the text files (e.g. a
+	 * pack compiled by a test).
+	 * @param maxPlayers maximum number of players that can be in the game at once.
+	 * @param worldPackFile the world pack to load the world from.
+	 * @throws IOException if the pack cannot be read.
+	 */
+	public SpookySchool(int maxPlayers, Path worldPackFile) throws IOException {
+		this.maxPlayers = maxPlayers;
+		this.openWorldPack(worldPackFile);
+		this.parser = new Parsernew();
+	}
+
+	/**
+	 * Creates a game from state that has already been loaded (e.g. from a snapshot) rather than from the area files. The
+	 * players in the given state are put back into the game, each with a new bundle.
+	 * @param maxPlayers maximum number of players that can be in the game at once.
+	 */
+	public SpookySchool(int maxPlayers, Map<String, Area> areas, List<Player> players, List<NonHumanPlayer> nonHumanPlayers,
+			List<DoorGO> doorObjects, List<MovableGO> movableObjects, Map<String, InventoryGO> inventoryObjects,
+			Map<String, FixedContainerGO> fixedContainerObjects) {
+		this.maxPlayers = maxPlayers;
+		this.setWorld(areas, nonHumanPlayers, doorObjects, movableObjects, inventoryObjects, fixedContainerObjects);
+
+		for (Player player : players) {
+			this.players.add(player);
+			this.playerIndex.put(player.getPlayerName(), player);
+			this.usedTokens.add(player.getToken());
+
+			Bundle bundle = new Bundle(player.getPlayerName());
+			bundle.setPlayerObj(player);
+			this.playerBundles.put(player.getPlayerName(), bundle);
+		}
+
+		this.parser = new Parsernew();
+	}
+
+	/**
+	 * Load the world from the precompiled world pack, if it is up to date with the text files it was compiled from. Only the
+	 * areas the NPCs are in are loaded straight away. The other areas are loaded when they are first needed, and unloaded
+	 * again once they have gone unused (see endTick()).
+	 * @return true if the world was loaded from the pack.
+	 */
+	private boolean loadWorldPack() {
+		try {
+			Path sources = WORLD_PACK_FILE.getParent();
+			if (!WorldPack.isUpToDate(WORLD_PACK_FILE, sources, sources.resolve("game_objects"))) {
+				return false;
+			}
+
+			this.openWorldPack(WORLD_PACK_FILE);
+			return true;
+
+		} catch (IOException e) {
+			e.printStackTrace(); //Fall back to the text files.
+			return false;
+		}
+	}
+
+	/**
+	 * Set up the world from the given world pack. Only the areas the NPCs are in are loaded straight away.
+	 * @param file the world pack.
+	 * @throws IOException if the pack cannot be read.
+	 */
+	private void openWorldPack(Path file) throws IOException {
+		WorldPack pack = WorldPack.open(file);
+		this.areas = new ConcurrentHashMap<String, Area>(); //Areas are loaded while areas are being ticked in parallel.
+		this.worldPack = pack;
+		this.areaNames = pack.getAreaNames();
+		this.setWorld(new HashMap<String, Area>(), pack.getNonHumanPlayers(), pack.getDoorObjects(),
+				pack.getMovableObjects(), pack.getInventoryObjects(), pack.getFixedContainerObjects());
+
+		for (String areaName : pack.getNpcAreaNames()) {
+			this.getArea(areaName);
+		}
+	}
+
+	/**
+	 * Sets the world of the game to the given areas and game objects, which have already been placed in the areas.
+	 */
+	private void setWorld(Map<String, Area> areas, List<NonHumanPlayer> nonHumanPlayers, List<DoorGO> doorObjects,
+			List<MovableGO> movableObjects, Map<String, InventoryGO> inventoryObjects,
+			Map<String, FixedContainerGO> fixedContainerObjects) {
+		this.areas.putAll(areas);
+		this.nonHumanPlayers.addAll(nonHumanPlayers);
+		this.doorObjects.addAll(doorObjects);
+		this.movableObjects.addAll(movableObjects);
+		this.inventoryObjects.putAll(inventoryObjects);
+		this.fixedContainerObjects.putAll(fixedContainerObjects);
+
+		//Index the game objects in the same order they are loaded from the files.
+		for (DoorGO door : this.doorObjects) {
+			this.gameObjects.putIfAbsent(door.getId(), door);
+		}
+		for (MovableGO movableGO : this.movableObjects) {
+			this.gameObjects.putIfAbsent(movableGO.getId(), movableGO);
+		}
+		for (NonHumanPlayer npc : this.nonHumanPlayers) {
+			this.gameObjects.putIfAbsent(npc.getId(), npc);
+		}
+		for (FixedContainerGO container : this.fixedContainerObjects.values()) {
+			this.gameObjects.putIfAbsent(container.getId(), container);
+		}
+	}
+
 	/**
 	 * Load all of the "areas" of the game into the list of areas.
 	 */
@@ -123,6 +290,7 @@ public class SpookySchool {
 
 				//Add door to doors list
 				this.doorObjects.add(door);
+				this.gameObjects.putIfAbsent(doorID, door);
 
 			}
 		} catch (FileNotFoundException e) {
@@ -157,6 +325,7 @@ public class SpookySchool {
 				tile.setOccupant(movableGO);
 
 				this.movableObjects.add(movableGO);
+				this.gameObjects.putIfAbsent(id, movableGO);
 			}
 
 			//Scan the non human player objects.
@@ -185,6 +354,7 @@ public class SpookySchool {
 				area.getTile(startingPos).setOccupant(npc);
 
 				this.nonHumanPlayers.add(npc);
+				this.gameObjects.putIfAbsent(id, npc);
 			}
 
 			//Scan all of the inventory objects on the floors.
@@ -267,6 +437,7 @@ public class SpookySchool {
 				}
 
 				this.fixedContainerObjects.put(id, container);
+				this.gameObjects.putIfAbsent(id, container);
 			}
 
 			scan.close();
@@ -331,9 +502,9 @@ public class SpookySchool {
 	* @param name of the player being added to the game.
 	* @return true if player successfully added, otherwise false.
 	*/
-	public synchronized boolean addPlayer(String name) {
+	public boolean addPlayer(String name) {
 
-		if (this.players.size() < this.maxPlayers && this.getPlayer(name) == null) {
+		if (this.players.size() < this.maxPlayers && this.getPlayer(name) == null && this.hasEmptySpawnRoom()) {
 			Area spawnRoom = this.findEmptySpawnRoom();
 			Player newPlayer = new Player(name, spawnRoom.getAreaName(), spawnRoom, this.defaultSpawnPosition);
 			spawnRoom.setOwner(newPlayer); //Set player as the owner of the spawn room.
@@ -345,22 +516,28 @@ public class SpookySchool {
 
 			spawnTile.setOccupant(newPlayer);
 
-			outer: for (String token : this.defaultPlayerTokens) {
+			//Use the first unused token. If there are more players than tokens, tokens are reused.
+			String playerToken = this.defaultPlayerTokens[this.players.size() % this.defaultPlayerTokens.length];
+			for (String token : this.defaultPlayerTokens) {
 				if (!this.usedTokens.contains(token)) {
-					newPlayer.setToken(token);
-					this.usedTokens.add(token);
-					break outer;
+					playerToken = token;
+					break;
 				}
 			}
+			newPlayer.setToken(playerToken);
+			this.usedTokens.add(playerToken);
 
 			this.players.add(newPlayer); //Add the player to the list of players in the game.
+			this.playerIndex.put(name, newPlayer);
 			this.addChatLogItemToAllBundles(name + " entered the game.");
 
 			//Set up the bundle for the new player.
 			Bundle bundle = new Bundle(name);
+			bundle.setListener(this.listener);
 			bundle.setPlayerObj(newPlayer);
 
 			this.playerBundles.put(name, bundle);
+			this.record(Journal.Op.JOIN, name);
 
 			return true;
 		}
@@ -372,37 +549,61 @@ public class SpookySchool {
 	 * Remove player from the game
 	 * @param name of the player to remove from the game.
 	 */
-	public synchronized void removePlayer(String name) {
+	public void removePlayer(String name) {
+
+		Player player = this.getPlayer(name);
 
 		//Player doesnt exist in game, do nothing.
-		if (this.getPlayer(name) == null) {
+		if (player == null) {
 			return;
 		}
 
+		this.record(Journal.Op.LEAVE, name);
+
 		//Remove player as their spawn area's owner
-		if (this.getPlayer(name).getCurrentArea().getAreaName().contains("Spawn")) {
-			this.getPlayer(name).getCurrentArea().setOwner(null); //Set the players spawn room owner as null
+		if (player.getCurrentArea().getAreaName().contains("Spawn")) {
+			player.getCurrentArea().setOwner(null); //Set the players spawn room owner as null
 		}
 
-		this.getPlayer(name).getCurrentArea().getTile(this.getPlayer(name).getCurrentPosition()).removeOccupant(); //Remove player from the tile
+		player.getCurrentArea().getTile(player.getCurrentPosition()).removeOccupant(); //Remove player from the tile
 
-		this.usedTokens.remove(this.getPlayer(name).getToken());
-		this.players.remove(this.getPlayer(name)); //Remove the player from this game by removing them from players list.
+		this.usedTokens.remove(player.getToken());
+		this.players.remove(player); //Remove the player from this game by removing them from players list.
+		this.playerIndex.remove(name);
 		this.playerBundles.remove(name); //Remove this player's bundle.
 
 		//Add player disconnection information to the chatlog
 		this.addChatLogItemToAllBundles(name + " has left the game.");
 	}
 
+	/**
+	 * @return true if there is a spawn area that is currently not owned by a player.
+	 */
+	public boolean hasEmptySpawnRoom() {
+		for (String areaName : this.getAreaNames()) {
+			if (areaName.contains("Spawn")) {
+				Area area = this.areas.get(areaName);
+				if (area == null || !area.hasOwner()) { //Owned areas are never unloaded.
+					return true;
+				}
+			}
+		}
+
+		return false;
+	}
+
 	/**
 	 * Finds and returns a spawn area that is currently not owned by a player.
 	 * @return a spawn area that is currently not owned by a player.
 	 */
 	public Area findEmptySpawnRoom() {
 		//Finds an unoccupied/un-owned spawn area and returns it.
-		for (Entry<String, Area> entry : this.areas.entrySet()) {
-			if (entry.getKey().contains("Spawn") && (!entry.getValue().hasOwner())) {
-				return entry.getValue();
+		for (String areaName : this.getAreaNames()) {
+			if (areaName.contains("Spawn")) {
+				Area area = this.areas.get(areaName);
+				if (area == null || !area.hasOwner()) {
+					return this.getArea(areaName);
+				}
 			}
 		}
 
@@ -414,11 +615,48 @@ public class SpookySchool {
 	 * adds changes to game bundles if and when required. The action is "done" on the tile that the player is facing.
 	 * @param playerName name of the player that pressed the action button.
 	 */
-	public synchronized void processAction(String playerName) {
+	public void processAction(String playerName) {
 
 		Player player = this.getPlayer(playerName);
+		Area area = player.getCurrentArea();
+		DoorGO door;
+
+		synchronized (area) {
+			Tile potentialTile = this.getPotentialTile(area, player, player.getFacing(), 1);
+
+			if (potentialTile == null || !(potentialTile.getOccupant() instanceof DoorGO)) {
+				this.record(Journal.Op.ACTION, playerName);
+				this.doAction(player);
+				return;
+			}
 
-		Tile potentialTile = this.getPotentialTile(player.getCurrentArea(), player, player.getDirection(), 1);
+			door = (DoorGO) potentialTile.getOccupant();
+		}
+
+		//Acting on a door changes both of the areas it joins, so lock both. The area lock was released first so that the
+		//locks are always taken in the same order.
+		Area[] locks = this.lockOrder(area, this.getArea(door.getOtherSide(area.getAreaName())));
+		synchronized (locks[0]) {
+			synchronized (locks[1]) {
+				this.record(Journal.Op.ACTION, playerName);
+				if (player.getCurrentArea() != area) {
+					return; //Moved by someone else while no lock was held.
+				}
+				this.doAction(player);
+			}
+		}
+	}
+
+	/**
+	 * Process the action of the given player on the object in front of them. The caller must hold the locks of the areas
+	 * the action changes.
+	 * @param player the player doing the action.
+	 */
+	private void doAction(Player player) {
+
+		String playerName = player.getPlayerName();
+
+		Tile potentialTile = this.getPotentialTile(player.getCurrentArea(), player, player.getFacing(), 1);
 
 		//Not a valid potential tile so return.
 		if (potentialTile == null) {
@@ -438,7 +676,7 @@ public class SpookySchool {
 			InventoryGO item = (InventoryGO) gameObj;
 
 			//Remove the item from the area.
-			Area area = this.areas.get(item.getAreaName());
+			Area area = this.getArea(item.getAreaName());
 			area.getTile(item.getPosition()).removeOccupant();
 
 			item.setAreaName(null);
@@ -464,6 +702,7 @@ public class SpookySchool {
 				for (InventoryGO item : player.getInventory()) {
 					if (fixedContainer.getKeyID().equals(item.getId())) {
 						fixedContainer.setLocked(false); //Unlock the door.
+						this.markContainerChanged(fixedContainer);
 						this.getBundle(playerName, false).setMessage(
 								"You unlocked the " + fixedContainer.getName() + " using the key in your inventory");
 						return;
@@ -481,17 +720,20 @@ public class SpookySchool {
 			if (fixedContainer.isOpen()) {
 				if (fixedContainer.isEmpty()) {
 					fixedContainer.setOpen(false);
+					this.markContainerChanged(fixedContainer);
 				} else {
 					//Add all items from the container to the player's inventory.
 					for (InventoryGO item : fixedContainer.getAllItems()) {
 						player.addToInventory(item);
 					}
 					fixedContainer.clearContainer(); //Clear the container now that the player has its contents.
+					this.markContainerChanged(fixedContainer);
 					this.getBundle(playerName, false)
 							.setMessage("Items found in the container have been added to your inventory.");
 				}
 			} else {
 				fixedContainer.setOpen(true);
+				this.markContainerChanged(fixedContainer);
 			}
 
 			return; //finished interacting with the container.
@@ -504,10 +746,10 @@ public class SpookySchool {
 			if (objDescription.contains("Spawn_")) {
 				objDescription = objDescription.replaceAll("\\s", "");
 
-				if (this.areas.get(objDescription).getOwner() == null) {
+				if (this.getArea(objDescription).getOwner() == null) {
 					objDescription = "No Occupant";
 				} else {
-					objDescription = this.areas.get(objDescription).getOwner().getId() + " 's Room";
+					objDescription = this.getArea(objDescription).getOwner().getId() + " 's Room";
 				}
 			}
 
@@ -530,6 +772,7 @@ public class SpookySchool {
 				for (InventoryGO item : player.getInventory()) {
 					if (door.getKeyID().equals(item.getId())) {
 						door.setLocked(false); //Unlock the door.
+						this.markDoorChanged(door);
 						this.getBundle(playerName, false)
 								.setMessage("You unlocked the door using the key in your inventory");
 						return;
@@ -549,6 +792,7 @@ public class SpookySchool {
 			//Open or close the door depending on current door state
 			if (door.isOpen()) {
 				door.setOpen(false);
+				this.markDoorChanged(door);
 			} else {
 
 				/*
@@ -565,6 +809,7 @@ public class SpookySchool {
 
 				//Open the door if player does not have the key.
 				door.setOpen(true);
+				this.markDoorChanged(door);
 			}
 
 			return; //finished
@@ -577,72 +822,75 @@ public class SpookySchool {
 	 * @param itemID the id of the item the player wishes to drop.
 	 */
 	public void processDrop(String playerName, String itemID) {
+		synchronized (this.getPlayer(playerName).getCurrentArea()) {
+			this.record(Journal.Op.DROP, playerName, itemID);
+			Player player = this.getPlayer(playerName);
 
-		Player player = this.getPlayer(playerName);
-
-		for (InventoryGO item : player.getInventory()) {
-			if (item.getId().equals(itemID)) {
-
-				Area area = player.getCurrentArea();
-				String direction = player.getDirection();
-
-				Tile potentialTile = this.getPotentialTile(area, player, direction, 1); //Get the tile in fron of the player
-
-				if (potentialTile != null && potentialTile instanceof FloorTile && !potentialTile.isOccupied()) {
-					item.setAreaName(area.getAreaName());
-					item.setCurrentPosition(potentialTile.getPosition());
-					potentialTile.setOccupant(item);
-					player.getInventory().remove(item);
-					this.getBundle(playerName, false).setMessage("You dropped the item.");
-					return;
-
-				} else if (potentialTile != null && potentialTile instanceof FloorTile
-						&& (potentialTile.getOccupant() instanceof FixedContainerGO
-								|| potentialTile.getOccupant() instanceof MarkerGO)) {
+			for (InventoryGO item : player.getInventory()) {
+				if (item.getId().equals(itemID)) {
 
-					//If potential tile is a marker object of
-					if (potentialTile.getOccupant() instanceof MarkerGO
-							&& !(((MarkerGO) potentialTile.getOccupant()).getBaseGO() instanceof FixedContainerGO)) {
-						this.getBundle(playerName, false).setMessage("You cannot drop the item here.");
-						return;
-					}
+					Area area = player.getCurrentArea();
+					Direction direction = player.getFacing();
 
-					//Get the FixedContainerGO.
-					FixedContainerGO obj = null;
-					if (potentialTile.getOccupant() instanceof MarkerGO) {
-						obj = (FixedContainerGO) ((MarkerGO) potentialTile.getOccupant()).getBaseGO();
-					} else {
-						obj = (FixedContainerGO) potentialTile.getOccupant();
-					}
+					Tile potentialTile = this.getPotentialTile(area, player, direction, 1); //Get the tile in fron of the player
 
-					if (!obj.isOpen()) {
-						this.getBundle(playerName, false)
-								.setMessage("The " + obj.getName() + " must be open to place items inside.");
+					if (potentialTile != null && potentialTile instanceof FloorTile && !potentialTile.isOccupied()) {
+						item.setAreaName(area.getAreaName());
+						item.setCurrentPosition(potentialTile.getPosition());
+						potentialTile.setOccupant(item);
+						player.getInventory().remove(item);
+						this.getBundle(playerName, false).setMessage("You dropped the item.");
 						return;
-					} else if (obj.isLocked()) {
-						this.getBundle(playerName, false)
-								.setMessage("The " + obj.getName() + " is locked. Cannot place anything inside.");
-						return;
-					}
 
-					//Place the item into the container.
-					if (obj.addToContainer(item)) {
-						//obj.addToContainer(item);
-						player.removeFromInventory(item);
-						this.getBundle(playerName, false)
-								.setMessage("You placed the " + item.getName() + " into the " + obj.getName());
-					} else {
-						this.getBundle(playerName, false)
-								.setMessage("There is not enough space in the " + obj.getName());
+					} else if (potentialTile != null && potentialTile instanceof FloorTile
+							&& (potentialTile.getOccupant() instanceof FixedContainerGO
+									|| potentialTile.getOccupant() instanceof MarkerGO)) {
+
+						//If potential tile is a marker object of
+						if (potentialTile.getOccupant() instanceof MarkerGO
+								&& !(((MarkerGO) potentialTile.getOccupant()).getBaseGO() instanceof FixedContainerGO)) {
+							this.getBundle(playerName, false).setMessage("You cannot drop the item here.");
+							return;
+						}
+
+						//Get the FixedContainerGO.
+						FixedContainerGO obj = null;
+						if (potentialTile.getOccupant() instanceof MarkerGO) {
+							obj = (FixedContainerGO) ((MarkerGO) potentialTile.getOccupant()).getBaseGO();
+						} else {
+							obj = (FixedContainerGO) potentialTile.getOccupant();
+						}
+
+						if (!obj.isOpen()) {
+							this.getBundle(playerName, false)
+									.setMessage("The " + obj.getName() + " must be open to place items inside.");
+							return;
+						} else if (obj.isLocked()) {
+							this.getBundle(playerName, false)
+									.setMessage("The " + obj.getName() + " is locked. Cannot place anything inside.");
+							return;
+						}
+
+						//Place the item into the container.
+						if (obj.addToContainer(item)) {
+							//obj.addToContainer(item);
+							player.removeFromInventory(item);
+							this.markContainerChanged(obj);
+							this.getBundle(playerName, false)
+									.setMessage("You placed the " + item.getName() + " into the " + obj.getName());
+						} else {
+							this.getBundle(playerName, false)
+									.setMessage("There is not enough space in the " + obj.getName());
+						}
+
+						return; //Finished.
 					}
-
-					return; //Finished.
 				}
 			}
-		}
 
-		this.getBundle(playerName, false).setMessage("The item you tried to drop is no longer in your inventory.");
+			this.getBundle(playerName, false).setMessage("The item you tried to drop is no longer in your inventory.");
 
+		}
 	}
 
 	/**
@@ -651,28 +899,31 @@ public class SpookySchool {
 	 * @param itemID the id of the item that is to be added to the container.
 	 */
 	public void addToContainer(String playerName, String containerID, String itemID) {
+		synchronized (this.getPlayer(playerName).getCurrentArea()) {
+			this.record(Journal.Op.PACK, playerName, containerID, itemID);
 
-		//You cannot put an item inside itself.
-		if (containerID.equals(itemID)) {
-			return;
-		}
+			//You cannot put an item inside itself.
+			if (containerID.equals(itemID)) {
+				return;
+			}
 
-		if (!(this.inventoryObjects.get(containerID) instanceof ContainerGO)) {
-			this.getBundle(playerName, false).setMessage(this.inventoryObjects.get(containerID).getName()
-					+ " is not a container. You cannot place items in it.");
-			return;
-		}
+			if (!(this.inventoryObjects.get(containerID) instanceof ContainerGO)) {
+				this.getBundle(playerName, false).setMessage(this.inventoryObjects.get(containerID).getName()
+						+ " is not a container. You cannot place items in it.");
+				return;
+			}
 
-		ContainerGO container = (ContainerGO) this.inventoryObjects.get(containerID);
+			ContainerGO container = (ContainerGO) this.inventoryObjects.get(containerID);
 
-		if (container.addToContainer(this.getInventoryObjects().get(itemID))) {
-			//Add the item to the container and remove from the player's inventory.
-			this.getPlayer(playerName).removeFromInventory(this.getInventoryObjects().get(itemID));
-			this.getBundle(playerName, false).setMessage("You packed the "
-					+ this.getInventoryObjects().get(itemID).getName() + " to the " + container.getName() + ".");
-		} else {
-			this.getBundle(playerName, false)
-					.setMessage("There is not enough space in the " + container.getName() + ".");
+			if (container.addToContainer(this.getInventoryObjects().get(itemID))) {
+				//Add the item to the container and remove from the player's inventory.
+				this.getPlayer(playerName).removeFromInventory(this.getInventoryObjects().get(itemID));
+				this.getBundle(playerName, false).setMessage("You packed the "
+						+ this.getInventoryObjects().get(itemID).getName() + " to the " + container.getName() + ".");
+			} else {
+				this.getBundle(playerName, false)
+						.setMessage("There is not enough space in the " + container.getName() + ".");
+			}
 		}
 	}
 
@@ -682,24 +933,28 @@ public class SpookySchool {
 	 * @param itemID the id of the container inventory object that is to be unpacked.
 	 */
 	public void unpackContainer(String playerName, String itemID) {
+		synchronized (this.getPlayer(playerName).getCurrentArea()) {
+			this.record(Journal.Op.UNPACK, playerName, itemID);
 
-		if (!(this.inventoryObjects.get(itemID) instanceof ContainerGO)) {
-			throw new Error("Can only unpack containers.");
-		}
+			if (!(this.inventoryObjects.get(itemID) instanceof ContainerGO)) {
+				throw new Error("Can only unpack containers.");
+			}
 
-		Player player = this.getPlayer(playerName);
-		ContainerGO container = (ContainerGO) this.getInventoryObjects().get(itemID);
+			Player player = this.getPlayer(playerName);
+			ContainerGO container = (ContainerGO) this.getInventoryObjects().get(itemID);
 
-		if (container.isEmpty()) {
-			this.getBundle(playerName, false).setMessage("The " + container.getName() + " is empty.");
-		}
+			if (container.isEmpty()) {
+				this.getBundle(playerName, false).setMessage("The " + container.getName() + " is empty.");
+			}
 
-		//Add all items in the container to the players's inventory.
-		for (InventoryGO item : container.getAllItems()) {
-			player.addToInventory(item);
-		}
+			//Add all items in the container to the players's inventory.
+			for (InventoryGO item : container.getAllItems()) {
+				player.addToInventory(item);
+			}
 
-		container.clearContainer(); //Clear the container now that the items are in the player's inventory.
+			container.clearContainer(); //Clear the container now that the items are in the player's inventory.
+			this.getBundle(playerName, false).markChanged(); //Inventory has changed.
+		}
 	}
 
 	/**
@@ -709,23 +964,25 @@ public class SpookySchool {
 	 * @param itemID id of the item the player wishes to pass.
 	 */
 	public void passItem(String playerName, String itemID) {
-
-		Player player = this.getPlayer(playerName);
-		InventoryGO item = this.inventoryObjects.get(itemID);
-
-		Tile tile = this.getPotentialTile(player.getCurrentArea(), player, player.getDirection(), 1); //The tile in front of the player.
-
-		//Pass the item if there is a player in front.
-		if (tile.getOccupant() instanceof Player) {
-			Player receiver = (Player) tile.getOccupant();
-			receiver.addToInventory(item);
-			player.removeFromInventory(item);
-			this.getBundle(playerName, false)
-					.setMessage("You passed the " + item.getName() + " to " + receiver.getPlayerName());
-			this.getBundle(receiver.getPlayerName(), false)
-					.setMessage("You received a " + item.getName() + " from " + player.getPlayerName());
-		} else {
-			this.getBundle(playerName, false).setMessage("The player must be in front of you to pass an item");
+		synchronized (this.getPlayer(playerName).getCurrentArea()) {
+			this.record(Journal.Op.PASS, playerName, itemID);
+			Player player = this.getPlayer(playerName);
+			InventoryGO item = this.inventoryObjects.get(itemID);
+
+			Tile tile = this.getPotentialTile(player.getCurrentArea(), player, player.getFacing(), 1); //The tile in front of the player.
+
+			//Pass the item if there is a player in front.
+			if (tile.getOccupant() instanceof Player) {
+				Player receiver = (Player) tile.getOccupant();
+				receiver.addToInventory(item);
+				player.removeFromInventory(item);
+				this.getBundle(playerName, false)
+						.setMessage("You passed the " + item.getName() + " to " + receiver.getPlayerName());
+				this.getBundle(receiver.getPlayerName(), false)
+						.setMessage("You received a " + item.getName() + " from " + player.getPlayerName());
+			} else {
+				this.getBundle(playerName, false).setMessage("The player must be in front of you to pass an item");
+			}
 		}
 	}
 
@@ -735,16 +992,65 @@ public class SpookySchool {
 	 * @param direction the direction the player needs to move into.
 	 * @return true if player moves to a new tile or changes direction.. Otherwise false.
 	 */
-	public synchronized boolean movePlayer(Player player, String direction) {
+	public boolean movePlayer(Player player, String direction) {
+		return this.movePlayer(player, Direction.fromName(direction));
+	}
+
+	/**
+	 * Moves player in a given direction if possible.
+	 * @param player the player to move.
+	 * @param direction the direction the player needs to move into.
+	 * @return true if player moves to a new tile or changes direction.. Otherwise false.
+	 */
+	public boolean movePlayer(Player player, Direction direction) {
+
+		Area area = player.getCurrentArea();
+		DoorGO door;
+
+		synchronized (area) {
+			//Moving through a door only happens when the player is already facing the door.
+			Tile potentialTile = null;
+			if (player.getFacing() == direction) {
+				potentialTile = this.getPotentialTile(area, player, direction, 1);
+			}
+
+			if (!(potentialTile instanceof WallTile && potentialTile.getOccupant() instanceof DoorGO)) {
+				this.recordMove(player, direction);
+				return this.moveWithinArea(player, direction);
+			}
+
+			door = (DoorGO) potentialTile.getOccupant();
+		}
+
+		//Moving through the door is a handoff between two areas, so lock both. The area lock was released first so that the
+		//locks are always taken in the same order.
+		Area[] locks = this.lockOrder(area, this.getArea(door.getOtherSide(area.getAreaName())));
+		synchronized (locks[0]) {
+			synchronized (locks[1]) {
+				this.recordMove(player, direction);
+				if (player.getCurrentArea() != area) {
+					return false; //Moved by someone else while no lock was held.
+				}
+				return processDoorMovement(this.getPotentialTile(area, player, player.getFacing(), 1), player);
+			}
+		}
+	}
+
+	/**
+	 * Moves player in a given direction within their current area. The caller must hold the lock of the area.
+	 * @return true if player moves to a new tile or changes direction. Otherwise false.
+	 */
+	private boolean moveWithinArea(Player player, Direction direction) {
 
 		//If player is facing a different direction than the direction given, make the player face the given direction.
-		if (!player.getDirection().equals(direction)) {
+		if (player.getFacing() != direction) {
 			player.setDirection(direction);
+			player.getCurrentArea().getTile(player.getCurrentPosition()).markChanged();
 			return true;
 		}
 
 		//Not a direction change... so player is moving in the direction he is facing.
-		Tile potentialTile = this.getPotentialTile(player.getCurrentArea(), player, player.getDirection(), 1); //Tile where the player can potentially move.
+		Tile potentialTile = this.getPotentialTile(player.getCurrentArea(), player, player.getFacing(), 1); //Tile where the player can potentially move.
 
 		//Invalid move.
 		if (potentialTile == null) {
@@ -763,13 +1069,13 @@ public class SpookySchool {
 
 			MovableGO movableGO = (MovableGO) potentialTile.getOccupant();
 
-			Tile potentialMovableTile = this.getPotentialTile(player.getCurrentArea(), movableGO, player.getDirection(),
+			Tile potentialMovableTile = this.getPotentialTile(player.getCurrentArea(), movableGO, player.getFacing(),
 					1);
 
 			//If movable go can be pushed, then move the player and the movable object.
 			if (potentialMovableTile instanceof FloorTile && (!((FloorTile) potentialMovableTile).isOccupied())) {
 				((FloorTile) player.getCurrentArea().getTile(player.getCurrentPosition())).removeOccupant(); //Remove player from old tile
-				this.areas.get(movableGO.getAreaName()).getTile(movableGO.getPosition()).removeOccupant(); //Remove movable tile from the old tile.
+				this.getArea(movableGO.getAreaName()).getTile(movableGO.getPosition()).removeOccupant(); //Remove movable tile from the old tile.
 				this.moveGOToTile(player, potentialTile); //Move the player to the new tile.
 				this.moveGOToTile(movableGO, potentialMovableTile); //Move the player to the new tile.
 				return true;
@@ -778,7 +1084,7 @@ public class SpookySchool {
 			return false; //Movable tile cannot be pushed.
 		}
 
-		return processDoorMovement(potentialTile, player); //Return true if there is a door movement, else false.
+		return false; //Invalid move.
 	}
 
 	/**
@@ -799,14 +1105,14 @@ public class SpookySchool {
 			String currentSide = player.getCurrentArea().getAreaName();
 			String otherSide = door.getOtherSide(currentSide);
 
-			Area otherSideArea = this.areas.get(otherSide); //The area that is on the other side of the door.
+			Area otherSideArea = this.getArea(otherSide); //The area that is on the other side of the door.
 			Tile otherSideTile = otherSideArea.getTile(door.getOtherSideEntryPos(currentSide)); //The tile on the other side of the door.
 
 			//If the door is open and the position on the other side is not occupied, then move player.
 			if (door.isOpen() && !otherSideTile.isOccupied()) {
 
 				player.getCurrentArea().getTile(player.getCurrentPosition()).removeOccupant(); //Remove player from this tile.
-				player.setCurrentArea(this.areas.get(otherSide)); //Set the player's new area.
+				player.setCurrentArea(this.getArea(otherSide)); //Set the player's new area.
 				this.getBundle(playerName, false).setPlayerObj(player); //Add the player object to the bundle.
 				this.moveGOToTile(player, otherSideTile); //Add player to the new tile.
 
@@ -842,30 +1148,10 @@ public class SpookySchool {
 	 * @param distance which tile to get in front of the player.
 	 * @return the tile object that is in "distance" tiles in front of the player in the direction they are facing.
 	 */
-	public Tile getPotentialTile(Area area, GameObject gameObj, String direction, int distance) {
-
-		int posX = -1;
-		int posY = -1;
-
-		if (direction.equals("NORTH")) {
-			posX = gameObj.getPosition().getPosX();
-			posY = gameObj.getPosition().getPosY() - distance;
-
-		} else if (direction.equals("SOUTH")) {
-
-			posX = gameObj.getPosition().getPosX();
-			posY = gameObj.getPosition().getPosY() + distance;
-
-		} else if (direction.equals("EAST")) {
-			posX = gameObj.getPosition().getPosX() + distance;
-			posY = gameObj.getPosition().getPosY();
-
-		} else if (direction.equals("WEST")) {
-			posX = gameObj.getPosition().getPosX() - distance;
-			posY = gameObj.getPosition().getPosY();
-		}
-
-		return area.getTile(new Position(posX, posY));
+	public Tile getPotentialTile(Area area, GameObject gameObj, Direction direction, int distance) {
+		Position position = gameObj.getPosition();
+		return area.getTile(position.getPosX() + direction.getDx() * distance,
+				position.getPosY() + direction.getDy() * distance);
 	}
 
 	/**
@@ -874,13 +1160,28 @@ public class SpookySchool {
 	 * @return the Player object of the given name if one exists, otherwise return null.
 	 */
 	public Player getPlayer(String playerName) {
-		for (int i = 0; i < this.players.size(); i++) {
-			if (this.players.get(i).getPlayerName().equals(playerName)) {
-				return this.players.get(i);
-			}
+		if (playerName == null) {
+			return null;
 		}
+		return this.playerIndex.get(playerName);
+	}
 
-		return null; //Player with given name not found.
+	/**
+	 * Returns the game object with the given id. Inventory objects are looked up in the inventory objects, which may change
+	 * as the game is played. Doors, movable objects, NPCs and fixed containers are indexed when the game is loaded.
+	 * @param id id of the game object.
+	 * @return the game object with the given id, or null if there is none.
+	 */
+	public GameObject getGameObject(String id) {
+		if (id == null) {
+			return null;
+		}
+
+		GameObject gameObj = this.inventoryObjects.get(id);
+		if (gameObj == null) {
+			gameObj = this.gameObjects.get(id);
+		}
+		return gameObj;
 	}
 
 	/**
@@ -894,89 +1195,521 @@ public class SpookySchool {
 		//If the bundle is about to get transmitted, then add all of the game objects in the players current area to the bundle.
 		if (transmitting && bundle != null) {
 			Area area = this.getPlayer(playerName).getCurrentArea();
-			for (int y = 0; y < area.height; y++) {
-				for (int x = 0; x < area.width; x++) {
-					Tile tile = area.getTile(new Position(x, y));
-					if (tile instanceof FloorTile && tile.getOccupant() instanceof Player) {
-						bundle.addMapObject(tile.getOccupant());
+			long version = Tile.currentVersion();
+
+			//Send the whole area if the client does not hold a copy of it yet, otherwise only send the tiles that changed.
+			boolean fullArea = !area.getAreaName().equals(bundle.getSentAreaName());
+			if (fullArea) {
+				bundle.setArea(area);
+				bundle.setVersions(0, version);
+			} else {
+				bundle.setVersions(bundle.getSentVersion(), version);
+			}
+
+			//Add the tiles that changed since the client's copy.
+			if (!fullArea) {
+				for (Position position : area.getChangedSince(bundle.getSentVersion())) {
+					if (area.hasTile(position.getPosX(), position.getPosY())) {
+						bundle.addTileChange(new TileChange(position,
+								area.getOccupant(position.getPosX(), position.getPosY())));
 					}
 				}
 			}
+
+			//Add the players and NPCs in the area.
+			for (Player p : area.getPlayers()) {
+				bundle.addMapObject(p);
+			}
 		}
 
 		return bundle;
 	}
 
+	/**
+	 * @return the journal of the game, or null if the game is not journaled.
+	 */
+	public Journal getJournal() {
+		return this.journal;
+	}
+
+	/**
+	 * Sets the journal that every state changing command is appended to. Set by Journal.open(..).
+	 * @param journal the journal, or null for none.
+	 */
+	public void setJournal(Journal journal) {
+		this.journal = journal;
+	}
+
+	/**
+	 * Sets the listener that is told about every change made to the game. The listener is told when a tile of an area
+	 * changes and when something is added to a player's bundle.
+	 * @param listener the listener, or null for none.
+	 */
+	public void setListener(GameListener listener) {
+		this.listener = listener;
+
+		for (Area area : this.areas.values()) {
+			area.setListener(listener);
+		}
+
+		for (Bundle bundle : this.playerBundles.values()) {
+			bundle.setListener(listener);
+		}
+	}
+
+	/**
+	 * Forces the next bundle transmitted to the given player to hold a full copy of their area.
+	 * @param playerName name of the player whose copy of the area is out of sync.
+	 */
+	public void resyncPlayer(String playerName) {
+		Bundle bundle = this.playerBundles.get(playerName);
+		if (bundle != null) {
+			bundle.resetSentState();
+		}
+	}
+
+	/**
+	 * Marks the tiles of both sides of the door as changed.
+	 * @param door the door that has changed state.
+	 */
+	private void markDoorChanged(DoorGO door) {
+		//A side that is not loaded has nobody in it, and shows the door as it is when it is loaded.
+		Area sideA = this.areas.get(door.getSideA());
+		if (sideA != null) {
+			sideA.getTile(door.getSideAPos()).markChanged();
+		}
+		Area sideB = this.areas.get(door.getSideB());
+		if (sideB != null) {
+			sideB.getTile(door.getSideBPos()).markChanged();
+		}
+	}
+
+	/**
+	 * Marks the tile that the fixed container sits on as changed.
+	 * @param container the fixed container that has changed state.
+	 */
+	private void markContainerChanged(FixedContainerGO container) {
+		this.getArea(container.getArea()).getTile(container.getPosition()).markChanged();
+	}
+
 	/**
 	 *  * Returns the bundle of the given player name.
 	 * @param playerName of the player we are getting the bundle for.
 	 * @param transmitting if you are getting the bundle to transmit to client.
 	 * @return  bundle of the playerName given.
 	 */
-	public synchronized void addChatLogItemToAllBundles(String addition) {
+	public void addChatLogItemToAllBundles(String addition) {
 		for (Bundle b : this.playerBundles.values()) {
 			b.addToChatLog(addition);
 		}
 	}
 
 	/**
-	 * FIXME: for saving game to xml
+	 * Saves the game. If the game is journaled, the journal already holds every change, so it is only forced to disk.
+	 * Otherwise a binary snapshot of the whole game is saved, which can be restored with Snapshot.load(..). The game
+	 * is captured into memory straight away, which only takes a few milliseconds, and the snapshot is then written to disk on
+	 * the save thread so that the game carries on while the file is written. The player is told once the write has finished,
+	 * by a message set from the save thread; bundles are encoded and cleared under their lock, so the message is not lost.
+	 * Must not be called while areas are being ticked.
+	 * @param playerName name of the player who asked for the save.
+	 * @return the pending write of the snapshot.
 	 */
-	public synchronized void saveGame(String playerName) {
+	public Future<?> saveGame(String playerName) {
 		System.out.println("Saving game...");
+		final Bundle bundle = this.getBundle(playerName, false);
+
+		//A journaled game is saved as it goes, it only has to be forced to disk.
+		if (this.journal != null) {
+			final Journal journal = this.journal;
+			return this.getSaveExecutor().submit(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						journal.sync();
+						bundle.setMessage("Game saved successfully.");
+					} catch (IOException e) {
+						e.printStackTrace();
+						bundle.setMessage("The game could not be saved.");
+					}
+				}
+			});
+		}
+
+		final Snapshot snapshot;
+		try {
+			snapshot = Snapshot.capture(this);
+		} catch (IOException e) {
+			e.printStackTrace();
+			bundle.setMessage("The game could not be saved.");
+			return CompletableFuture.completedFuture(null);
+		}
+
+		final Path file = this.snapshotFile;
+		return this.getSaveExecutor().submit(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					snapshot.write(file);
+					bundle.setMessage("Game saved successfully.");
+				} catch (IOException e) {
+					e.printStackTrace();
+					bundle.setMessage("The game could not be saved.");
+				}
+			}
+		});
+	}
+
+	/**
+	 * @return the executor that writes snapshots to disk. Created on the first save. Saves are written one at a time, in the
+	 * order they were made.
+	 */
+	private synchronized ExecutorService getSaveExecutor() {
+		if (this.saveExecutor == null) {
+			this.saveExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "SaveWriter");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return this.saveExecutor;
+	}
+
+	/**
+	 * FIXME: for saving game to xml
+	 */
+	public void saveXML(String playerName) {
 		this.parser.save(this, playerName);
-		this.getBundle(playerName, false).setMessage("Game saved successfully.");
 	}
 
 	/**
-	 * This method is called periodically by the Clock Thread and is used to move NPC objects.
+	 * Steps the parts of the game that change on their own. NPCs are moved every npcMoveDelay miliseconds and check their path
+	 * for players every tick. The game loop calls beginTick(..) and tickArea(..) itself so that areas can be ticked in
+	 * parallel. This method ticks every area in turn.
+	 * @param now the current time in miliseconds.
 	 */
-	public synchronized void moveNPC() {
+	public void tick(long now) {
+		this.beginTick(now);
 
-		//Move all NPCs in the game towards their next direction (if possible).
-		for (NonHumanPlayer npc : this.nonHumanPlayers) {
-			if (this.movePlayer(npc, npc.getPotentialDirection())) {
-				npc.directionMoved();
+		for (Area area : this.areas.values()) {
+			this.tickArea(area);
+		}
+
+		this.endTick();
+	}
+
+	/**
+	 * Starts a new tick. Must be called before any area is ticked.
+	 * @param now the current time in miliseconds.
+	 */
+	public void beginTick(long now) {
+		this.moveNPCs = now >= this.nextNPCMove;
+		if (this.moveNPCs) {
+			this.nextNPCMove = now + this.npcMoveDelay;
+		}
+	}
+
+	/**
+	 * Ends the tick once every area has been ticked. Areas that have gone unused are unloaded, the journal entries made during
+	 * the tick are written to the journal file, and the journal is checkpointed once it has grown large.
+	 */
+	public void endTick() {
+		this.unloadUnusedAreas();
+
+		if (this.journal == null) {
+			return;
+		}
+
+		try {
+			this.journal.flush();
+			if (this.journal.needsCheckpoint()) {
+				this.journal.checkpoint(this);
 			}
+		} catch (IOException e) {
+			e.printStackTrace();
 		}
 	}
 
 	/**
-	 * Goes through each NPC in game, and checks if there is a player in front of them. If there is, it kicks them to their room.
+	 * Steps the NPCs in the given area. Different areas may be ticked in parallel.
+	 * @param area the area to tick.
 	 */
-	public synchronized void checkNPCPath() {
+	public void tickArea(Area area) {
+		if (this.moveNPCs) {
+			this.moveNPC(area);
+		}
+
+		this.checkNPCPath(area);
+	}
+
+	/**
+	 * This method is called periodically by tickArea(..) and is used to move NPC objects.
+	 * @param area the area whose NPCs are moved.
+	 */
+	public void moveNPC(Area area) {
+
+		//Move all NPCs in the area towards their next direction (if possible). Moving an NPC updates the players of the area,
+		//so go through a copy.
+		Player[] players;
+		synchronized (area) {
+			players = area.getPlayers().toArray(new Player[0]);
+		}
+
+		for (Player player : players) {
+			if (player instanceof NonHumanPlayer) {
+				NonHumanPlayer npc = (NonHumanPlayer) player;
+				if (this.movePlayer(npc, npc.getPotentialDirection())) {
+					npc.directionMoved();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Goes through each NPC in the given area, and checks if there is a player in front of them. If there is, it kicks them to
+	 * their room.
+	 * @param area the area whose NPCs check their path.
+	 */
+	public void checkNPCPath(Area area) {
 
 		int tilesToCheck = 3; //Number of tiles the npc needs to check in front of them for a player.
 
-		outer: for (NonHumanPlayer npc : this.nonHumanPlayers) {
-			//Check one tile at a tile, "tilesToCheck" number of times.
-			//If a player is found, teleport them back to their spawn room!
-			for (int i = 1; i <= tilesToCheck; i++) {
-				Tile tile = this.getPotentialTile(npc.getCurrentArea(), npc, npc.getCurrentDirection(), i);
+		List<Player> caught = null;
 
-				//If player caught, teleport them back to their spawn room.
-				if (tile.getOccupant() instanceof Player) {
-					Player player = (Player) tile.getOccupant();
-					player.getCurrentArea().getTile(player.getCurrentPosition()).removeOccupant(); //Remove player from this tile.
-					player.setCurrentArea(this.areas.get(player.getSpawnName())); //Set player's area back to the spawn room.
-					this.moveGOToTile(player, player.getCurrentArea().getTile(this.defaultSpawnPosition)); //Move player back to original spawn position.
+		synchronized (area) {
+			//Nobody to catch.
+			if (!area.hasHumanPlayer()) {
+				return;
+			}
 
-					//Add message to the bundle about what just happened to the player
-					this.getBundle(player.getId(), false)
-							.setMessage("You were caught by a teacher and sent back to your spawn room!");
+			for (Player npc : area.getPlayers()) {
+				if (!(npc instanceof NonHumanPlayer)) {
+					continue;
+				}
 
-					continue outer; //Exit to the outer loop.
+				//Check one tile at a tile, "tilesToCheck" number of times.
+				for (int i = 1; i <= tilesToCheck; i++) {
+					Tile tile = this.getPotentialTile(area, npc, ((NonHumanPlayer) npc).getCurrentDirection(), i);
+
+					if (tile != null && tile.getOccupant() instanceof Player) {
+						if (caught == null) {
+							caught = new ArrayList<Player>();
+						}
+						caught.add((Player) tile.getOccupant());
+						break;
+					}
+				}
+			}
+		}
+
+		//If players were caught, teleport them back to their spawn room.
+		if (caught != null) {
+			for (Player player : caught) {
+				this.sendToSpawnRoom(player, area);
+			}
+		}
+	}
+
+	/**
+	 * Unloads the areas that have gone unused the longest until the loaded areas hold no more than residentTileBudget tiles.
+	 * An area is in use while there are players or NPCs in it or it is an owned spawn room; such areas are never unloaded.
+	 * Everything else in an area is kept by its game object, so an unloaded area is loaded from the world pack in the state it
+	 * was left in. Must not be called while areas are being ticked.
+	 */
+	private void unloadUnusedAreas() {
+		if (this.worldPack == null) {
+			return;
+		}
+
+		this.tickCount++;
+		int residentTiles = 0;
+		List<Area> unused = new ArrayList<Area>();
+		for (Area area : this.areas.values()) {
+			residentTiles += area.width * area.height;
+
+			//Areas loaded during this tick count as used.
+			if (!area.getPlayers().isEmpty() || area.hasOwner() || !this.areaLastUsed.containsKey(area.getAreaName())) {
+				this.areaLastUsed.put(area.getAreaName(), this.tickCount);
+			} else {
+				unused.add(area);
+			}
+		}
+
+		if (residentTiles <= this.residentTileBudget) {
+			return;
+		}
+
+		//Least recently used first.
+		Collections.sort(unused, new Comparator<Area>() {
+			@Override
+			public int compare(Area a, Area b) {
+				return Long.compare(areaLastUsed.get(a.getAreaName()), areaLastUsed.get(b.getAreaName()));
+			}
+		});
+
+		for (Area area : unused) {
+			if (residentTiles <= this.residentTileBudget) {
+				break;
+			}
+			this.areas.remove(area.getAreaName());
+			this.areaLastUsed.remove(area.getAreaName());
+			residentTiles -= area.width * area.height;
+		}
+	}
+
+	/**
+	 * Teleports the given player from the given area back to their spawn room. This is a handoff between two areas, so the
+	 * locks of both are taken. Called when an NPC catches a player, and when the journal is replayed.
+	 * @param player the player that was caught.
+	 * @param area the area the player was caught in.
+	 */
+	public void sendToSpawnRoom(Player player, Area area) {
+		Area spawnRoom = this.getArea(player.getSpawnName());
+		Area[] locks = this.lockOrder(area, spawnRoom);
+
+		synchronized (locks[0]) {
+			synchronized (locks[1]) {
+				//Player has already left the area.
+				if (player.getCurrentArea() != area) {
+					return;
 				}
+
+				this.record(Journal.Op.CAUGHT, player.getPlayerName(), area.getAreaName());
+
+				player.getCurrentArea().getTile(player.getCurrentPosition()).removeOccupant(); //Remove player from this tile.
+				player.setCurrentArea(spawnRoom); //Set player's area back to the spawn room.
+				this.moveGOToTile(player, spawnRoom.getTile(this.defaultSpawnPosition)); //Move player back to original spawn position.
+
+				//Add message to the bundle about what just happened to the player
+				this.getBundle(player.getId(), false)
+						.setMessage("You were caught by a teacher and sent back to your spawn room!");
 			}
 		}
 	}
 
+	/**
+	 * Append an entry to the journal, if the game is journaled. Called while the locks of the areas the command changes are
+	 * held, so that commands on the same area are journaled in the order they are run.
+	 */
+	private void record(Journal.Op op, String... args) {
+		if (this.journal != null) {
+			this.journal.append(op, args);
+		}
+	}
+
+	/**
+	 * Journal an attempt to move the given player. NPC moves are journaled separately, as they also step the NPC's path.
+	 */
+	private void recordMove(Player player, Direction direction) {
+		if (this.journal != null) {
+			this.journal.append(player instanceof NonHumanPlayer ? Journal.Op.NPC_MOVE : Journal.Op.MOVE,
+					player.getPlayerName(), direction.name());
+		}
+	}
+
+	/**
+	 * Returns the two areas in the order their locks must be taken. Every change that spans two areas takes the locks in this
+	 * order so that two changes can never wait on each other.
+	 * @return the two areas, ordered by name.
+	 */
+	private Area[] lockOrder(Area a, Area b) {
+		if (a.getAreaName().compareTo(b.getAreaName()) <= 0) {
+			return new Area[] { a, b };
+		}
+		return new Area[] { b, a };
+	}
+
 	/** GETTERS AND SETTERS FOR XML **/
 
+	public int getMaxPlayers() {
+		return this.maxPlayers;
+	}
+
+	/**
+	 * Returns the area with the given name, loading it from the world pack if it is not loaded. Areas may be loaded while
+	 * areas are being ticked.
+	 * @param areaName name of the area.
+	 * @return the area, or null if there is no area with the given name.
+	 */
+	public Area getArea(String areaName) {
+		Area area = this.areas.get(areaName);
+		if (area != null || this.worldPack == null || areaName == null) {
+			return area;
+		}
+
+		return this.areas.computeIfAbsent(areaName, new Function<String, Area>() {
+			@Override
+			public Area apply(String name) {
+				try {
+					Area loaded = worldPack.loadArea(name);
+					if (loaded != null) {
+						loaded.setListener(listener);
+					}
+					return loaded;
+				} catch (IOException e) {
+					throw new Error("Could not load area " + name + " from the world pack.", e);
+				}
+			}
+		});
+	}
+
+	/**
+	 * @return every area in the game. Areas that are not loaded are loaded first, and may be unloaded again at the end of the
+	 * next tick.
+	 */
 	public Map<String, Area> getAreas() {
+		if (this.worldPack != null) {
+			for (String areaName : this.areaNames) {
+				this.getArea(areaName);
+			}
+		}
 		return this.areas;
 	}
 
+	/**
+	 * @return the names of every area in the game, loaded or not. Spawn rooms are handed out in this order.
+	 */
+	public Collection<String> getAreaNames() {
+		return this.worldPack != null ? this.areaNames : this.areas.keySet();
+	}
+
+	/**
+	 * Returns the area with the given name without loading it. An area that is not loaded is read from the world pack into a
+	 * new area that is not kept by the game, so reading every area (e.g. for a snapshot) leaves the loaded areas as they were.
+	 * Areas with NPCs in them are always loaded, so no NPC is moved into the new area. Must not be called while areas are
+	 * being ticked.
+	 * @param areaName name of the area.
+	 * @return the area, or null if there is no area with the given name.
+	 * @throws IOException if the area cannot be read from the world pack.
+	 */
+	public Area getAreaWithoutLoading(String areaName) throws IOException {
+		Area area = this.areas.get(areaName);
+		if (area != null || this.worldPack == null || areaName == null) {
+			return area;
+		}
+
+		return this.worldPack.loadArea(areaName);
+	}
+
+	/**
+	 * @param areaName name of the area.
+	 * @return true if the area is loaded. Areas are always loaded unless the world is loaded from the world pack.
+	 */
+	public boolean isAreaLoaded(String areaName) {
+		return this.areas.containsKey(areaName);
+	}
+
+	/**
+	 * Sets the number of tiles of areas that are kept loaded. Areas in use are kept loaded regardless. Only used when the
+	 * world is loaded from the world pack.
+	 * @param residentTileBudget the number of tiles.
+	 */
+	public void setResidentTileBudget(int residentTileBudget) {
+		this.residentTileBudget = residentTileBudget;
+	}
+
 	public List<Player> getPlayers() {
 		return this.players;
 	}
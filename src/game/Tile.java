@@ -1,22 +1,23 @@
 package game;
 
-import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Represents a basic tile and has the methods that all tiles should have.
+ * Represents a basic tile and has the methods that all tiles should have. Tiles do not hold any state of their own, they are
+ * views onto a tile in the packed grid of an area.
  * @author Pritesh R. Patel
  *
  */
-public abstract class Tile implements Serializable {
+public abstract class Tile {
 
-	private static final long serialVersionUID = 2738627054424521284L;
+	private static final AtomicLong versionClock = new AtomicLong(); //Shared clock used to version changes to tiles.
+
+	private final Area area;
 	private final Position position;
-	private GameObject occupant;
-	private String token;
 
-	public Tile(Position pos, String token) {
+	public Tile(Area area, Position pos) {
+		this.area = area;
 		this.position = pos;
-		this.token = token;
 	}
 
 	/**
@@ -24,17 +25,43 @@ public abstract class Tile implements Serializable {
 	 * @param occupant to set onto this tile.
 	 */
 	public void setOccupant(GameObject occupant) {
-		if (this.isOccupied()) {
-			throw new Error("Tile is already occupied!");
-		}
-		this.occupant = occupant;
+		this.area.setOccupant(this.position.getPosX(), this.position.getPosY(), occupant);
 	}
 
 	/**
 	 * Removes the current occupant of this tile by setting it to null.
 	 */
 	public void removeOccupant() {
-		this.occupant = null;
+		this.area.removeOccupant(this.position.getPosX(), this.position.getPosY());
+	}
+
+	/**
+	 * Marks this tile as changed. This must be called whenever the occupant of this tile changes state (e.g. a door opening
+	 * or a player turning) so that the change is sent to the clients.
+	 */
+	public void markChanged() {
+		this.area.markChanged(this.position.getPosX(), this.position.getPosY());
+	}
+
+	/**
+	 * @return the clock value of the last change made to this tile.
+	 */
+	public long getVersion() {
+		return this.area.getVersion(this.position.getPosX(), this.position.getPosY());
+	}
+
+	/**
+	 * @return the current value of the clock that is used to version tile changes.
+	 */
+	public static long currentVersion() {
+		return versionClock.get();
+	}
+
+	/**
+	 * @return the next value of the clock that is used to version tile changes.
+	 */
+	static long nextVersion() {
+		return versionClock.incrementAndGet();
 	}
 
 	/**
@@ -42,7 +69,7 @@ public abstract class Tile implements Serializable {
 	 * @return the occupant that is currently on the tile or null if there the tile is not occupied.
 	 */
 	public GameObject getOccupant() {
-		return this.occupant;
+		return this.area.getOccupant(this.position.getPosX(), this.position.getPosY());
 	}
 
 
@@ -60,7 +87,7 @@ public abstract class Tile implements Serializable {
 	 * @return true if the tile is occupied and false otherwise.
 	 */
 	public boolean isOccupied() {
-		return this.occupant != null;
+		return this.getOccupant() != null;
 	}
 
 	/**
@@ -68,6 +95,6 @@ public abstract class Tile implements Serializable {
 	 * @return the tile "type". Useful for displaying a particular tile.
 	 */
 	public String getToken() {
-		return this.token;
+		return this.area.getToken(this.position.getPosX(), this.position.getPosY());
 	}
 }
@@ -0,0 +1,31 @@
+package game;
+
+import java.io.Serializable;
+
+/**
+ * Holds the new occupant of a tile that has changed since the last bundle was sent to a client.
+ */
+public class TileChange implements Serializable {
+
+	private static final long serialVersionUID = -6090284573452307615L;
+	private final Position position;
+	private final GameObject occupant;
+
+	public TileChange(Position position, GameObject occupant) {
+		this.position = position;
+		this.occupant = occupant;
+	}
+
+	/** GETTERS **/
+
+	public Position getPosition() {
+		return position;
+	}
+
+	/**
+	 * @return the new occupant of the tile, or null if the tile is now empty.
+	 */
+	public GameObject getOccupant() {
+		return occupant;
+	}
+}
@@ -7,10 +7,8 @@ package game;
  */
 public class WallTile extends Tile {
 
-	private static final long serialVersionUID = -4822362089112656990L;
-
-	public WallTile(Position pos, String type) {
-		super(pos, type);
+	public WallTile(Area area, Position pos) {
+		super(area, pos);
 	}
 
 }
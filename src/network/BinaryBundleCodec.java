@@ -0,0 +1,631 @@
+package network;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import game.Area;
+import game.AreaLayout;
+import game.Bundle;
+import game.ContainerGO;
+import game.DoorGO;
+import game.FixedContainerGO;
+import game.FixedGO;
+import game.FloorTile;
+import game.GameObject;
+import game.InventoryGO;
+import game.MarkerGO;
+import game.MovableGO;
+import game.NonHumanPlayer;
+import game.Player;
+import game.Position;
+import game.Tile;
+import game.TileChange;
+import game.WallTile;
+
+/**
+ * Hand written binary encoding of bundles. Numbers are written as varints and names, tokens, ids and descriptions are interned:
+ * the first time a string is sent it is written in full and assigned an id, after that only the id is written. The string table
+ * lives for the whole connection, so each end of the connection must use its own codec instance.
+ *
+ * Schema of a bundle (in order):
+ *   present(byte) playerName(str) message(text) player(obj) chatLog(count, text...) areaObjects(count, obj...)
+ *   baseVersion(varlong) version(varlong) hasArea(byte) [area] tileChanges(count, (pos, obj)...)
+ * Area: name(str) owner(obj) layoutHash(long) cached(byte) [layout] occupants(count, (pos, obj)...)
+ * Layout: width(varint) height(varint) then every tile as kind(byte) [token(str)] then fixedObjects(count, (pos, obj)...)
+ *
+ * Area layouts (tiles and fixed objects, which never change) are cached by content hash for the whole connection, like the
+ * strings. A layout is only written the first time it is sent; after that the area is sent as its hash and its occupants,
+ * so entering a room that has been visited before (or one laid out the same as it) sends no tiles at all.
+ */
+public class BinaryBundleCodec implements BundleCodec {
+
+	public static final String NAME = "binary";
+
+	//Object tags.
+	private static final int NULL = 0;
+	private static final int PLAYER = 1;
+	private static final int NPC = 2;
+	private static final int DOOR = 3;
+	private static final int FIXED = 4;
+	private static final int MARKER = 5;
+	private static final int MOVABLE = 6;
+	private static final int INVENTORY = 7;
+	private static final int CONTAINER = 8;
+	private static final int FIXED_CONTAINER = 9;
+	private static final int BACK_REFERENCE = 10; //Object already written earlier in the same bundle.
+
+	//Tile kinds.
+	private static final int NO_TILE = 0;
+	private static final int FLOOR_TILE = 1;
+	private static final int WALL_TILE = 2;
+
+	//Interned strings. Id 0 is reserved for null.
+	private final Map<String, Integer> sentStrings = new HashMap<String, Integer>();
+	private final List<String> receivedStrings = new ArrayList<String>();
+
+	//Area layouts by content hash.
+	private final Set<Long> sentLayouts = new HashSet<Long>();
+	private final Map<Long, AreaLayout> receivedLayouts = new HashMap<Long, AreaLayout>();
+
+	//Objects written in the bundle currently being encoded/decoded. Keeps shared objects shared.
+	private final Map<GameObject, Integer> writtenObjects = new IdentityHashMap<GameObject, Integer>();
+	private final List<GameObject> readObjects = new ArrayList<GameObject>();
+
+	@Override
+	public byte[] encode(Bundle bundle) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		this.writtenObjects.clear();
+
+		if (bundle == null) {
+			out.writeByte(0);
+			return bytes.toByteArray();
+		}
+
+		out.writeByte(1);
+		this.writeString(out, bundle.getPlayerName());
+		this.writeText(out, bundle.getMessage());
+		this.writeObject(out, bundle.getPlayerObj());
+
+		writeVarInt(out, bundle.getLog().size());
+		for (String line : bundle.getLog()) {
+			this.writeText(out, line);
+		}
+
+		writeVarInt(out, bundle.getAreaObjects().size());
+		for (GameObject obj : bundle.getAreaObjects()) {
+			this.writeObject(out, obj);
+		}
+
+		writeVarLong(out, bundle.getBaseVersion());
+		writeVarLong(out, bundle.getVersion());
+
+		if (bundle.getArea() == null) {
+			out.writeByte(0);
+		} else {
+			out.writeByte(1);
+			this.writeArea(out, bundle.getArea());
+		}
+
+		writeVarInt(out, bundle.getTileChanges().size());
+		for (TileChange change : bundle.getTileChanges()) {
+			writePosition(out, change.getPosition());
+			this.writeObject(out, change.getOccupant());
+		}
+
+		this.writtenObjects.clear();
+		out.flush();
+		return bytes.toByteArray();
+	}
+
+	@Override
+	public Bundle decode(byte[] payload) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+		this.readObjects.clear();
+
+		if (in.readByte() == 0) {
+			return null;
+		}
+
+		Bundle bundle = new Bundle(this.readString(in));
+		bundle.setMessage(this.readText(in));
+		bundle.setPlayerObj((Player) this.readObject(in));
+
+		int chatLines = readVarInt(in);
+		for (int i = 0; i < chatLines; i++) {
+			bundle.addToChatLog(this.readText(in));
+		}
+
+		int areaObjects = readVarInt(in);
+		for (int i = 0; i < areaObjects; i++) {
+			bundle.addMapObject(this.readObject(in));
+		}
+
+		long baseVersion = readVarLong(in);
+		long version = readVarLong(in);
+		bundle.setVersions(baseVersion, version);
+
+		if (in.readByte() != 0) {
+			bundle.setArea(this.readArea(in));
+		}
+
+		int tileChanges = readVarInt(in);
+		for (int i = 0; i < tileChanges; i++) {
+			Position position = readPosition(in);
+			bundle.addTileChange(new TileChange(position, this.readObject(in)));
+		}
+
+		this.readObjects.clear();
+		return bundle;
+	}
+
+	@Override
+	public String getName() {
+		return NAME;
+	}
+
+	/** AREAS **/
+
+	private void writeArea(DataOutputStream out, Area area) throws IOException {
+		this.writeString(out, area.getAreaName());
+		this.writeObject(out, area.hasOwner() ? area.getOwner() : null);
+
+		AreaLayout layout = area.getLayout();
+		long hash = layout.getContentHash();
+		out.writeLong(hash);
+		if (this.sentLayouts.contains(hash)) {
+			out.writeByte(1);
+		} else {
+			out.writeByte(0);
+			this.writeLayout(out, layout);
+			this.sentLayouts.add(hash);
+		}
+
+		List<Position> occupants = area.getOccupantPositions();
+		writeVarInt(out, occupants.size());
+		for (Position position : occupants) {
+			writePosition(out, position);
+			this.writeObject(out, area.getOccupant(position.getPosX(), position.getPosY()));
+		}
+	}
+
+	private void writeLayout(DataOutputStream out, AreaLayout layout) throws IOException {
+		writeVarInt(out, layout.getWidth());
+		writeVarInt(out, layout.getHeight());
+		for (int y = 0; y < layout.getHeight(); y++) {
+			for (int x = 0; x < layout.getWidth(); x++) {
+				if (!layout.hasTile(x, y)) {
+					out.writeByte(NO_TILE);
+					continue;
+				}
+
+				out.writeByte(layout.isFloor(x, y) ? FLOOR_TILE : WALL_TILE);
+				this.writeString(out, layout.getToken(x, y));
+			}
+		}
+
+		List<Position> fixedObjects = layout.getFixedObjectPositions();
+		writeVarInt(out, fixedObjects.size());
+		for (Position position : fixedObjects) {
+			writePosition(out, position);
+			this.writeObject(out, layout.getFixedObject(position.getPosX(), position.getPosY()));
+		}
+	}
+
+	private Area readArea(DataInputStream in) throws IOException {
+		String name = this.readString(in);
+		Player owner = (Player) this.readObject(in);
+
+		long hash = in.readLong();
+		Area area;
+		if (in.readByte() != 0) {
+			AreaLayout layout = this.receivedLayouts.get(hash);
+			if (layout == null) {
+				throw new IOException("Area layout cache out of sync: " + Long.toHexString(hash));
+			}
+			area = new Area(name, layout);
+		} else {
+			area = this.readLayout(in, name);
+			this.receivedLayouts.put(hash, area.getLayout().share());
+		}
+
+		if (owner != null) {
+			area.setOwner(owner);
+		}
+
+		for (int count = readVarInt(in); count > 0; count--) {
+			Position position = readPosition(in);
+			area.setOccupant(position.getPosX(), position.getPosY(), this.readObject(in));
+		}
+
+		return area;
+	}
+
+	/**
+	 * Read a layout into a new area with the given name.
+	 */
+	private Area readLayout(DataInputStream in, String name) throws IOException {
+		Area area = new Area(name, readVarInt(in), readVarInt(in));
+
+		for (int y = 0; y < area.height; y++) {
+			for (int x = 0; x < area.width; x++) {
+				int kind = in.readByte();
+				if (kind != NO_TILE) {
+					area.setTile(x, y, kind == FLOOR_TILE, this.readString(in));
+				}
+			}
+		}
+
+		for (int count = readVarInt(in); count > 0; count--) {
+			Position position = readPosition(in);
+			area.setOccupant(position.getPosX(), position.getPosY(), this.readObject(in));
+		}
+
+		return area;
+	}
+
+	/** GAME OBJECTS **/
+
+	private void writeObject(DataOutputStream out, GameObject obj) throws IOException {
+		if (obj == null) {
+			out.writeByte(NULL);
+			return;
+		}
+
+		//Objects that are referenced more than once in the same bundle are only written once.
+		Integer reference = this.writtenObjects.get(obj);
+		if (reference != null) {
+			out.writeByte(BACK_REFERENCE);
+			writeVarInt(out, reference);
+			return;
+		}
+
+		//Marker base objects are written before the marker is registered, same order as when reading.
+		if (obj instanceof MarkerGO) {
+			out.writeByte(MARKER);
+			this.writeObject(out, ((MarkerGO) obj).getBaseGO());
+			writePosition(out, obj.getPosition());
+			this.writtenObjects.put(obj, this.writtenObjects.size());
+			return;
+		}
+
+		this.writtenObjects.put(obj, this.writtenObjects.size());
+
+		if (obj instanceof Player) {
+			Player player = (Player) obj;
+			out.writeByte(player instanceof NonHumanPlayer ? NPC : PLAYER);
+			this.writeString(out, player.getPlayerName());
+			this.writeString(out, player.getSpawnName());
+			writePosition(out, player.getCurrentPosition());
+			this.writeString(out, player.getDirection());
+			this.writeString(out, player.getToken());
+			this.writeString(out, player.getDescription());
+
+			writeVarInt(out, player.getInventory().size());
+			for (InventoryGO item : player.getInventory()) {
+				this.writeObject(out, item);
+			}
+
+		} else if (obj instanceof DoorGO) {
+			DoorGO door = (DoorGO) obj;
+			out.writeByte(DOOR);
+			this.writeString(out, door.getId());
+			out.writeBoolean(door.isOpen());
+			out.writeBoolean(door.isLocked());
+			this.writeString(out, door.getKeyID());
+			this.writeString(out, door.getSideA());
+			this.writeString(out, door.getTokenA());
+			writePosition(out, door.getSideAPos());
+			writePosition(out, door.getSideAEntryPos());
+			this.writeString(out, door.getSideB());
+			this.writeString(out, door.getTokenB());
+			writePosition(out, door.getSideBPos());
+			writePosition(out, door.getSideBEntryPos());
+			this.writeString(out, door.getDescription());
+
+		} else if (obj instanceof FixedGO) {
+			out.writeByte(FIXED);
+			this.writeString(out, obj.getId());
+			this.writeString(out, obj.getToken());
+			writePosition(out, obj.getPosition());
+			this.writeString(out, obj.getDescription());
+
+		} else if (obj instanceof MovableGO) {
+			out.writeByte(MOVABLE);
+			this.writeString(out, obj.getId());
+			this.writeString(out, obj.getToken());
+			this.writeString(out, ((MovableGO) obj).getAreaName());
+			writePosition(out, obj.getPosition());
+			this.writeString(out, obj.getDescription());
+
+		} else if (obj instanceof InventoryGO) {
+			InventoryGO item = (InventoryGO) obj;
+			out.writeByte(item instanceof ContainerGO ? CONTAINER : INVENTORY);
+			this.writeString(out, item.getName());
+			this.writeString(out, item.getId());
+			this.writeString(out, item.getToken());
+			writeVarInt(out, item.getSize());
+			this.writeString(out, item.getAreaName());
+			writePosition(out, item.getPosition());
+			this.writeString(out, item.getDescription());
+
+			if (item instanceof ContainerGO) {
+				this.writeItems(out, ((ContainerGO) item).getAllItems());
+			}
+
+		} else if (obj instanceof FixedContainerGO) {
+			FixedContainerGO container = (FixedContainerGO) obj;
+			out.writeByte(FIXED_CONTAINER);
+			this.writeString(out, container.getName());
+			this.writeString(out, container.getArea());
+			this.writeString(out, container.getId());
+			this.writeString(out, container.getToken());
+			out.writeBoolean(container.isOpen());
+			out.writeBoolean(container.isLocked());
+			this.writeString(out, container.getKeyID());
+			writeVarInt(out, container.getSize());
+			writePosition(out, container.getPosition());
+			this.writeString(out, container.getDescription());
+			this.writeItems(out, container.getAllItems());
+
+		} else {
+			throw new IOException("Cannot encode game object of type " + obj.getClass().getName());
+		}
+	}
+
+	private void writeItems(DataOutputStream out, List<InventoryGO> items) throws IOException {
+		writeVarInt(out, items.size());
+		for (InventoryGO item : items) {
+			this.writeObject(out, item);
+		}
+	}
+
+	private GameObject readObject(DataInputStream in) throws IOException {
+		int tag = in.readByte();
+
+		switch (tag) {
+		case NULL:
+			return null;
+
+		case BACK_REFERENCE:
+			return this.readObjects.get(readVarInt(in));
+
+		case MARKER: {
+			GameObject base = this.readObject(in);
+			MarkerGO marker = new MarkerGO(base, readPosition(in));
+			this.readObjects.add(marker);
+			return marker;
+		}
+
+		case PLAYER:
+		case NPC: {
+			int index = this.reserve();
+			String name = this.readString(in);
+			String spawnName = this.readString(in);
+			Position position = readPosition(in);
+			String direction = this.readString(in);
+			String token = this.readString(in);
+
+			Player player;
+			if (tag == NPC) {
+				player = new NonHumanPlayer(name, token, null, position, Collections.singletonList(direction));
+			} else {
+				player = new Player(name, spawnName, null, position);
+				player.setToken(token);
+				player.setDirection(direction);
+			}
+			player.setDescription(this.readString(in));
+			this.readObjects.set(index, player);
+
+			int items = readVarInt(in);
+			for (int i = 0; i < items; i++) {
+				player.addToInventory((InventoryGO) this.readObject(in));
+			}
+			return player;
+		}
+
+		case DOOR: {
+			int index = this.reserve();
+			DoorGO door = new DoorGO(this.readString(in), in.readBoolean(), in.readBoolean(), this.readString(in),
+					this.readString(in), this.readString(in), readPosition(in), readPosition(in), this.readString(in),
+					this.readString(in), readPosition(in), readPosition(in));
+			door.setDescription(this.readString(in));
+			this.readObjects.set(index, door);
+			return door;
+		}
+
+		case FIXED: {
+			int index = this.reserve();
+			FixedGO fixed = new FixedGO(this.readString(in), this.readString(in), readPosition(in));
+			fixed.setDescription(this.readString(in));
+			this.readObjects.set(index, fixed);
+			return fixed;
+		}
+
+		case MOVABLE: {
+			int index = this.reserve();
+			MovableGO movable = new MovableGO(this.readString(in), this.readString(in), this.readString(in),
+					readPosition(in));
+			movable.setDescription(this.readString(in));
+			this.readObjects.set(index, movable);
+			return movable;
+		}
+
+		case INVENTORY:
+		case CONTAINER: {
+			int index = this.reserve();
+			String name = this.readString(in);
+			String id = this.readString(in);
+			String token = this.readString(in);
+			int size = readVarInt(in);
+			String areaName = this.readString(in);
+			Position position = readPosition(in);
+			String description = this.readString(in);
+
+			if (tag == INVENTORY) {
+				InventoryGO item = new InventoryGO(name, id, token, size, areaName, position, description);
+				this.readObjects.set(index, item);
+				return item;
+			}
+
+			ContainerGO container = new ContainerGO(name, id, token, size, areaName, position, description);
+			this.readObjects.set(index, container);
+			int items = readVarInt(in);
+			for (int i = 0; i < items; i++) {
+				container.addToContainer((InventoryGO) this.readObject(in));
+			}
+			return container;
+		}
+
+		case FIXED_CONTAINER: {
+			int index = this.reserve();
+			FixedContainerGO container = new FixedContainerGO(this.readString(in), this.readString(in),
+					this.readString(in), this.readString(in), in.readBoolean(), in.readBoolean(), this.readString(in),
+					readVarInt(in), readPosition(in));
+			container.setDescription(this.readString(in));
+			this.readObjects.set(index, container);
+			int items = readVarInt(in);
+			for (int i = 0; i < items; i++) {
+				container.addToContainer((InventoryGO) this.readObject(in));
+			}
+			return container;
+		}
+
+		default:
+			throw new IOException("Unknown game object tag: " + tag);
+		}
+	}
+
+	/**
+	 * Reserve a slot for an object that is being read so that back references are numbered in the same order they were written.
+	 * @return index of the reserved slot.
+	 */
+	private int reserve() {
+		this.readObjects.add(null);
+		return this.readObjects.size() - 1;
+	}
+
+	/** STRINGS **/
+
+	/**
+	 * Write an interned string. Written as 0 for null, as the id of the string if it has been sent before, or as the next id
+	 * followed by the string itself.
+	 */
+	private void writeString(DataOutputStream out, String string) throws IOException {
+		if (string == null) {
+			writeVarInt(out, 0);
+			return;
+		}
+
+		Integer id = this.sentStrings.get(string);
+		if (id != null) {
+			writeVarInt(out, id);
+			return;
+		}
+
+		id = this.sentStrings.size() + 1;
+		this.sentStrings.put(string, id);
+		writeVarInt(out, id);
+		out.writeUTF(string);
+	}
+
+	private String readString(DataInputStream in) throws IOException {
+		int id = readVarInt(in);
+
+		if (id == 0) {
+			return null;
+		} else if (id <= this.receivedStrings.size()) {
+			return this.receivedStrings.get(id - 1);
+		} else if (id == this.receivedStrings.size() + 1) {
+			String string = in.readUTF();
+			this.receivedStrings.add(string);
+			return string;
+		}
+
+		throw new IOException("String table out of sync: " + id);
+	}
+
+	/**
+	 * Write a string that is unlikely to be repeated (chat lines and messages) without interning it.
+	 */
+	private void writeText(DataOutputStream out, String text) throws IOException {
+		out.writeBoolean(text != null);
+		if (text != null) {
+			out.writeUTF(text);
+		}
+	}
+
+	private String readText(DataInputStream in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+
+	/** NUMBERS **/
+
+	private static void writePosition(DataOutputStream out, Position position) throws IOException {
+		if (position == null) {
+			writeVarInt(out, 0);
+			return;
+		}
+		writeVarInt(out, position.getPosX() + 1);
+		writeVarInt(out, position.getPosY());
+	}
+
+	private static Position readPosition(DataInputStream in) throws IOException {
+		int x = readVarInt(in);
+		if (x == 0) {
+			return null;
+		}
+		return Position.of(x - 1, readVarInt(in));
+	}
+
+	private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			out.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+
+	private static int readVarInt(DataInputStream in) throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			int b = in.readUnsignedByte();
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IOException("Malformed varint");
+	}
+
+	private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+		while ((value & ~0x7FL) != 0) {
+			out.writeByte((int) (value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte((int) value);
+	}
+
+	private static long readVarLong(DataInputStream in) throws IOException {
+		long value = 0;
+		for (int shift = 0; shift < 70; shift += 7) {
+			int b = in.readUnsignedByte();
+			value |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IOException("Malformed varlong");
+	}
+}
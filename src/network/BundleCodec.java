@@ -0,0 +1,48 @@
+package network;
+
+import java.io.IOException;
+
+import game.Bundle;
+
+/**
+ * Converts bundles to and from the bytes that are sent between the server and the client. Each connection uses its own codec
+ * instance on both ends, so a codec is allowed to keep state between bundles (e.g. tables of strings already sent).
+ */
+public interface BundleCodec {
+
+	/**
+	 * Encode the bundle into the payload of a single frame.
+	 * @param bundle the bundle to encode. May be null.
+	 * @return the encoded bundle.
+	 */
+	public byte[] encode(Bundle bundle) throws IOException;
+
+	/**
+	 * Decode a bundle from the payload of a single frame.
+	 * @param payload bytes produced by encode(..) on the other end of the connection.
+	 * @return the decoded bundle. May be null.
+	 */
+	public Bundle decode(byte[] payload) throws IOException;
+
+	/**
+	 * @return the name of this codec. This is the name the client uses to ask the server for this codec.
+	 */
+	public String getName();
+
+	/**
+	 * Creates a new codec given its name.
+	 * @param name name of the codec.
+	 * @return a new codec instance, or null if there is no codec with the given name.
+	 */
+	public static BundleCodec forName(String name) {
+		if (name.equals(SerializedBundleCodec.NAME)) {
+			return new SerializedBundleCodec();
+		} else if (name.equals(BinaryBundleCodec.NAME)) {
+			return new BinaryBundleCodec();
+		} else if (name.equals(StreamBundleCodec.NAME)) {
+			return new StreamBundleCodec();
+		}
+
+		return null;
+	}
+}
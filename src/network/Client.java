@@ -1,11 +1,16 @@
 package network;
 
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
 import java.net.Socket;
 
+import javax.swing.SwingUtilities;
+
+import game.Area;
 import game.Bundle;
+import game.TileChange;
 import ui.GameFrame;
 import ui.JoinServerPanel;
 
@@ -21,10 +26,18 @@ public class Client extends Thread {
 	private Socket socket;
 	private String playerName;
 	private DataOutputStream output;
-	private ObjectInputStream objInput;
-	private GameFrame gameFrame; //Used to call a processBundle method on the frame.
+	private DataInputStream input;
+	private final String codecName = BinaryBundleCodec.NAME; //Encoding of the bundles received from the server.
+	private volatile BundleCodec codec;
+	private volatile GameFrame gameFrame; //Used to call a processBundle method on the frame. Created on the event dispatch thread.
 	private JoinServerPanel joinServerPanel;
 
+	//Client's copy of the player's current area. Bundles only hold the changes made to the area. Only used on the event
+	//dispatch thread.
+	private Area area;
+	private long areaVersion;
+	private boolean resyncPending; //True once the whole area has been asked for, until it arrives.
+
 	public Client(String playerName, Socket socket, JoinServerPanel joinServerPanel) {
 		this.playerName = playerName;
 		this.socket = socket;
@@ -36,14 +49,14 @@ public class Client extends Thread {
 
 		try {
 			this.output = new DataOutputStream(socket.getOutputStream());
-			this.sendCommand("newPlayer " + this.playerName); //Send command to add player to game on server.
+			this.input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			this.joinGame(this.playerName); //Send command to add player to game on server.
 
 			boolean exit = false;
 			while (!exit) {
 
 				//Receive and read the bundle.
-				objInput = new ObjectInputStream(socket.getInputStream());
-				Bundle bundle = (Bundle) objInput.readObject();
+				final Bundle bundle = this.codec.decode(Frames.readFrame(this.input));
 
 				//Bundle can only be null if a player doesn't exist in the game on the server.
 				//Try to send playerName to get added into the game on the server. Bundle received will be null until player is added.
@@ -53,21 +66,19 @@ public class Client extends Thread {
 					continue; //Skip this iteration. player does not exist yet so cannot continue down...
 				}
 
-				this.joinServerPanel.hideJoinWindow(); //Connection with server and game properly established so hide join window.
-
-				//Create a game frame if haven't already.
-				if (this.gameFrame == null) {
-					System.out.println("Creating game frame.");
-					this.gameFrame = new GameFrame("Spooky School - " + this.playerName, this, playerName); //Valid player has been added to game on server end so show game frame.
-				}
-
-				this.gameFrame.processBundle(bundle); //Send bundle to gameFrame to process and display appropriately.
-
+				//The game window paints the client's copy of the area on the event dispatch thread, so the bundle is applied
+				//to the copy there too.
+				SwingUtilities.invokeLater(new Runnable() {
+					@Override
+					public void run() {
+						processBundle(bundle);
+					}
+				});
 			}
 
 			socket.close();
 
-		} catch (IOException | ClassNotFoundException e) {
+		} catch (IOException e) {
 
 			//Close the socket and close game window.
 			try {
@@ -84,15 +95,84 @@ public class Client extends Thread {
 		}
 	}
 
+	/**
+	 * Apply a bundle received from the server and show it in the game window. Runs on the event dispatch thread, which is
+	 * the only thread that touches the client's copy of the area.
+	 * @param bundle the bundle received from the server.
+	 */
+	private void processBundle(Bundle bundle) {
+
+		//Bring the copy of the area up to date. If the copy is out of sync, ask for the whole area (once) and skip
+		//bundles until it arrives.
+		if (!this.applyAreaChanges(bundle)) {
+			if (!this.resyncPending) {
+				this.resyncPending = true;
+				this.sendFrame(CommandCodec.encode(Command.Type.RESYNC));
+			}
+			return;
+		}
+
+		this.joinServerPanel.hideJoinWindow(); //Connection with server and game properly established so hide join window.
+
+		//Create a game frame if haven't already.
+		if (this.gameFrame == null) {
+			System.out.println("Creating game frame.");
+			this.gameFrame = new GameFrame("Spooky School - " + this.playerName, this, playerName); //Valid player has been added to game on server end so show game frame.
+		}
+
+		this.gameFrame.processBundle(bundle); //Send bundle to gameFrame to process and display appropriately.
+	}
+
+	/**
+	 * Apply the area state held in the bundle to the client's copy of the area and attach the area to the bundle's player.
+	 * @param bundle the bundle received from the server.
+	 * @return true if the bundle was applied, or false if the client's copy of the area is out of sync with the bundle.
+	 */
+	private boolean applyAreaChanges(Bundle bundle) {
+
+		//Bundle holds the whole area, so replace the copy.
+		if (bundle.getArea() != null) {
+			this.area = bundle.getArea();
+			this.resyncPending = false;
+		} else {
+			//Changes only apply to the version of the area they were made against.
+			if (this.area == null || bundle.getBaseVersion() != this.areaVersion) {
+				return false;
+			}
+
+			for (TileChange change : bundle.getTileChanges()) {
+				this.area.getTile(change.getPosition()).removeOccupant();
+				if (change.getOccupant() != null) {
+					this.area.getTile(change.getPosition()).setOccupant(change.getOccupant());
+				}
+			}
+		}
+
+		this.areaVersion = bundle.getVersion();
+		bundle.getPlayerObj().setCurrentArea(this.area);
+		return true;
+	}
+
 	/**
 	 * Send a command to the Server which will then process it.
-	 * @param command that the sever needs to process.
+	 * @param command that the sever needs to process, in its text form e.g. "DROP item1".
 	 *
 	 */
 	public void sendCommand(String command) {
+		byte[] frame = CommandCodec.encode(command);
+		if (frame != null) {
+			this.sendFrame(frame);
+		}
+	}
+
+	/**
+	 * Send an encoded command to the server.
+	 * @param frame the encoded command.
+	 */
+	private synchronized void sendFrame(byte[] frame) {
 		try {
-			//Pass command to the player thread.
-			this.output.write(command.getBytes());
+			//Pass command to the server.
+			this.output.write(frame);
 			this.output.flush();
 
 		} catch (IOException e) {
@@ -101,6 +181,16 @@ public class Client extends Thread {
 		}
 	}
 
+	/**
+	 * Ask the server to add a player with the given name to the game. The server starts a new bundle codec for every join attempt,
+	 * so the client does the same.
+	 * @param name the name of the player.
+	 */
+	public void joinGame(String name) {
+		this.codec = BundleCodec.forName(this.codecName);
+		this.sendFrame(CommandCodec.encode(Command.Type.JOIN, name, this.codecName));
+	}
+
 	/**
 	 * Set the player name. Should be used when server already has player name.
 	 * @param name the name to set this player to.
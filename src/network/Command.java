@@ -0,0 +1,105 @@
+package network;
+
+/**
+ * A command sent from the client to the server. Commands are filled in by the CommandCodec as they are decoded. Each
+ * connection keeps a pool of commands: a command is queued for the game loop once decoded, and handed back to the pool once
+ * the game loop has run it, so no command objects are created while a game is running.
+ */
+public class Command {
+
+	/**
+	 * The types of commands along with their opcode on the wire and the number of arguments they carry. Global commands
+	 * change or read the whole game rather than the player's area.
+	 */
+	public enum Type {
+		JOIN(1, 2, true), //Player name, bundle codec name.
+		NORTH(2, 0),
+		SOUTH(3, 0),
+		EAST(4, 0),
+		WEST(5, 0),
+		ACTION(6, 0),
+		DROP(7, 1), //Item id.
+		PACK(8, 2), //Container id, item id.
+		UNPACK(9, 1), //Container id.
+		PASS(10, 1), //Item id.
+		CHAT(12, 1), //Message.
+		SAVE(13, 0, true),
+		RESYNC(14, 0);
+
+		private static final Type[] byOpcode = new Type[16];
+
+		static {
+			for (Type type : values()) {
+				byOpcode[type.opcode] = type;
+			}
+		}
+
+		private final int opcode;
+		private final int argCount;
+		private final boolean global;
+
+		private Type(int opcode, int argCount) {
+			this(opcode, argCount, false);
+		}
+
+		private Type(int opcode, int argCount, boolean global) {
+			this.opcode = opcode;
+			this.argCount = argCount;
+			this.global = global;
+		}
+
+		public int getOpcode() {
+			return opcode;
+		}
+
+		public int getArgCount() {
+			return argCount;
+		}
+
+		/**
+		 * @return true if this command must not run while the areas of the game are being ticked in parallel.
+		 */
+		public boolean isGlobal() {
+			return global;
+		}
+
+		/**
+		 * @param opcode the opcode read from the wire.
+		 * @return the type of command with the given opcode, or null if there is none.
+		 */
+		public static Type fromOpcode(int opcode) {
+			if (opcode < 0 || opcode >= byOpcode.length) {
+				return null;
+			}
+			return byOpcode[opcode];
+		}
+	}
+
+	private Type type;
+	private String arg0;
+	private String arg1;
+
+	/**
+	 * Fill in this command. Arguments that the type does not use should be null.
+	 */
+	public void set(Type type, String arg0, String arg1) {
+		this.type = type;
+		this.arg0 = arg0;
+		this.arg1 = arg1;
+	}
+
+	/** GETTERS **/
+
+	public Type getType() {
+		return type;
+	}
+
+	public String getArg0() {
+		return arg0;
+	}
+
+	public String getArg1() {
+		return arg1;
+	}
+
+}
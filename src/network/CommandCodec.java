@@ -0,0 +1,219 @@
+package network;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Scanner;
+
+/**
+ * Encodes and decodes the commands sent from the client to the server. Every command is a frame made up of a 2 byte length
+ * followed by the body: a 1 byte opcode and then each argument as a 2 byte length followed by UTF-8 bytes.
+ *
+ * Decoding works directly on the connection's read buffer. Commands without arguments (movement, ACTION, SAVE) are decoded
+ * without creating any objects, and the arguments of other commands come from an ArgumentCache, so that the item ids and
+ * names a client sends again and again are only turned into strings once.
+ */
+public class CommandCodec {
+
+	public static final int MAX_COMMAND_SIZE = 4094; //Largest body allowed, so that a whole frame fits in a 4096 byte buffer.
+
+	/**
+	 * Encode a command.
+	 * @param type type of command.
+	 * @param args the arguments of the command. Must match the number of arguments the type takes.
+	 * @return the encoded frame.
+	 */
+	public static byte[] encode(Command.Type type, String... args) {
+		if (args.length != type.getArgCount()) {
+			throw new IllegalArgumentException(type + " takes " + type.getArgCount() + " arguments");
+		}
+
+		try {
+			ByteArrayOutputStream body = new ByteArrayOutputStream();
+			DataOutputStream out = new DataOutputStream(body);
+			out.writeByte(type.getOpcode());
+			for (String arg : args) {
+				byte[] bytes = arg.getBytes(StandardCharsets.UTF_8);
+				out.writeShort(bytes.length);
+				out.write(bytes);
+			}
+
+			if (body.size() > MAX_COMMAND_SIZE) {
+				throw new IllegalArgumentException("Command is too long");
+			}
+
+			ByteArrayOutputStream frame = new ByteArrayOutputStream();
+			new DataOutputStream(frame).writeShort(body.size());
+			body.writeTo(frame);
+			return frame.toByteArray();
+
+		} catch (IOException e) {
+			throw new Error(e); //Cannot happen when writing to memory.
+		}
+	}
+
+	/**
+	 * Encode a command given in its text form, e.g. "DROP item1" or "CHAT hello". The text of a chat command is everything after
+	 * the word CHAT.
+	 * @param command the command text.
+	 * @return the encoded frame, or null if the text is not a valid command.
+	 */
+	public static byte[] encode(String command) {
+		Scanner scan = new Scanner(command);
+		if (!scan.hasNext()) {
+			return null;
+		}
+
+		String name = scan.next();
+		Command.Type type;
+		try {
+			type = Command.Type.valueOf(name);
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+
+		if (type == Command.Type.CHAT) {
+			return encode(type, command.substring(command.indexOf(name) + name.length()));
+		}
+
+		String[] args = new String[type.getArgCount()];
+		for (int i = 0; i < args.length; i++) {
+			if (!scan.hasNext()) {
+				return null;
+			}
+			args[i] = scan.next();
+		}
+
+		return encode(type, args);
+	}
+
+	/**
+	 * Decode the next command in the buffer, if the whole command has arrived. The buffer must be ready for reading (flipped).
+	 * If a command is decoded the buffer's position is moved past it, otherwise the buffer is left untouched.
+	 * @param buffer buffer holding the bytes received from the client.
+	 * @param command the command object to fill in.
+	 * @return true if a command was decoded, false if more bytes are needed.
+	 * @throws IOException if the bytes in the buffer are not a valid command.
+	 */
+	public static boolean decode(ByteBuffer buffer, Command command) throws IOException {
+		return decode(buffer, command, null);
+	}
+
+	/**
+	 * Decode the next command in the buffer, if the whole command has arrived, taking its arguments from the given cache.
+	 * @param buffer buffer holding the bytes received from the client.
+	 * @param command the command object to fill in.
+	 * @param cache cache of the arguments decoded before, or null to create a new string for every argument.
+	 * @return true if a command was decoded, false if more bytes are needed.
+	 * @throws IOException if the bytes in the buffer are not a valid command.
+	 */
+	public static boolean decode(ByteBuffer buffer, Command command, ArgumentCache cache) throws IOException {
+		if (buffer.remaining() < 2) {
+			return false;
+		}
+
+		int start = buffer.position();
+		int length = buffer.getShort(start) & 0xFFFF;
+
+		if (length == 0 || length > MAX_COMMAND_SIZE) {
+			throw new IOException("Invalid command length: " + length);
+		}
+
+		//Whole command has not arrived yet.
+		if (buffer.remaining() < 2 + length) {
+			return false;
+		}
+
+		int end = start + 2 + length;
+		Command.Type type = Command.Type.fromOpcode(buffer.get(start + 2) & 0xFF);
+		if (type == null) {
+			throw new IOException("Unknown opcode: " + (buffer.get(start + 2) & 0xFF));
+		}
+
+		int pos = start + 3;
+		String arg0 = null;
+		String arg1 = null;
+		for (int i = 0; i < type.getArgCount(); i++) {
+			if (pos + 2 > end) {
+				throw new IOException("Truncated " + type + " command");
+			}
+			int argLength = buffer.getShort(pos) & 0xFFFF;
+			pos += 2;
+			if (pos + argLength > end) {
+				throw new IOException("Truncated " + type + " command");
+			}
+
+			String arg;
+			if (cache == null) {
+				arg = new String(buffer.array(), buffer.arrayOffset() + pos, argLength, StandardCharsets.UTF_8);
+			} else {
+				arg = cache.get(buffer.array(), buffer.arrayOffset() + pos, argLength);
+			}
+			pos += argLength;
+
+			if (i == 0) {
+				arg0 = arg;
+			} else {
+				arg1 = arg;
+			}
+		}
+
+		buffer.position(end);
+		command.set(type, arg0, arg1);
+		return true;
+	}
+
+	/**
+	 * Remembers the strings made from recently decoded arguments, so that an argument seen before is not turned into a new
+	 * string. Each connection has its own cache, used only by the worker thread reading from it. Long arguments (chat
+	 * messages) are rarely sent twice and are not cached.
+	 */
+	public static class ArgumentCache {
+
+		private static final int SIZE = 64; //Number of slots, must be a power of two.
+		private static final int MAX_LENGTH = 64; //Longest argument that is cached.
+
+		private final byte[][] keys = new byte[SIZE][];
+		private final String[] values = new String[SIZE];
+
+		/**
+		 * @return the string of the UTF-8 bytes in the given range.
+		 */
+		public String get(byte[] bytes, int offset, int length) {
+			if (length > MAX_LENGTH) {
+				return new String(bytes, offset, length, StandardCharsets.UTF_8);
+			}
+
+			int hash = 1;
+			for (int i = offset; i < offset + length; i++) {
+				hash = 31 * hash + bytes[i];
+			}
+			int slot = (hash ^ (hash >>> 16)) & (SIZE - 1);
+
+			if (matches(this.keys[slot], bytes, offset, length)) {
+				return this.values[slot];
+			}
+
+			//Not seen before, or pushed out by another argument.
+			byte[] key = new byte[length];
+			System.arraycopy(bytes, offset, key, 0, length);
+			this.keys[slot] = key;
+			this.values[slot] = new String(key, StandardCharsets.UTF_8);
+			return this.values[slot];
+		}
+
+		private static boolean matches(byte[] key, byte[] bytes, int offset, int length) {
+			if (key == null || key.length != length) {
+				return false;
+			}
+			for (int i = 0; i < length; i++) {
+				if (key[i] != bytes[offset + i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+}
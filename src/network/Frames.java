@@ -0,0 +1,41 @@
+package network;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Length-prefixed framing used for the bundles sent from the server to the client. Each frame is a 4 byte length followed by
+ * that many bytes of payload.
+ */
+public class Frames {
+
+	public static final int MAX_FRAME_SIZE = 16 * 1024 * 1024; //Anything larger than this is treated as a corrupt stream.
+
+	/**
+	 * Write a single frame and flush the stream.
+	 * @param output stream to write the frame to.
+	 * @param payload the payload of the frame.
+	 */
+	public static void writeFrame(DataOutputStream output, byte[] payload) throws IOException {
+		output.writeInt(payload.length);
+		output.write(payload);
+		output.flush();
+	}
+
+	/**
+	 * Read a single frame. Blocks until the whole frame has been received.
+	 * @param input stream to read the frame from.
+	 * @return the payload of the frame.
+	 */
+	public static byte[] readFrame(DataInputStream input) throws IOException {
+		int length = input.readInt();
+		if (length < 0 || length > MAX_FRAME_SIZE) {
+			throw new IOException("Invalid frame length: " + length);
+		}
+
+		byte[] payload = new byte[length];
+		input.readFully(payload);
+		return payload;
+	}
+}
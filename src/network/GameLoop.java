@@ -0,0 +1,213 @@
+package network;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import game.Area;
+import game.NonHumanPlayer;
+import game.SpookySchool;
+
+/**
+ * The game loop runs the game at a fixed tick rate. Each tick it runs the commands queued by every connection, steps the game
+ * (e.g. NPCs), and then snapshots the bundles that changed during the tick and hands them to the IO workers to be sent. The
+ * time taken by each tick is recorded.
+ *
+ * Each tick is split into phases. Players joining and leaving are handled first on the loop thread. The areas that have
+ * players or NPCs in them are then ticked in parallel, one task per area, running the commands of the players in the area.
+ * Global commands (e.g. SAVE) and the snapshot are run on the loop thread once every area has finished.
+ */
+public class GameLoop extends Thread {
+
+	private final Server server;
+	private final SpookySchool game;
+	private final ExecutorService areaExecutor; //Ticks the areas in parallel.
+	private final List<PlayerConnection> connections; //All connections to the server. Closed connections are removed here.
+	private final long tickNanos; //Length of a tick in nanoseconds.
+
+	//Tick statistics. Only written by this thread.
+	private volatile long ticks;
+	private volatile long totalTickNanos;
+	private volatile long maxTickNanos;
+
+	/**
+	 * @param server the server, told about the changes made each tick.
+	 * @param game the game to run.
+	 * @param connections the connections to the server. Must be safe to iterate while connections are being added.
+	 * @param tickRate number of ticks per second.
+	 */
+	public GameLoop(Server server, SpookySchool game, List<PlayerConnection> connections, int tickRate) {
+		super("GameLoop");
+		this.server = server;
+		this.game = game;
+		this.areaExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+			private int count = 0;
+
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "AreaWorker-" + count++);
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		this.connections = connections;
+		this.tickNanos = TimeUnit.SECONDS.toNanos(1) / tickRate;
+		this.setDaemon(true);
+	}
+
+	@Override
+	public void run() {
+		long nextTick = System.nanoTime();
+
+		while (true) {
+			long start = System.nanoTime();
+			this.tick();
+			this.recordTick(System.nanoTime() - start);
+
+			//Sleep until the next tick is due. If the loop has fallen more than a tick behind, skip the missed ticks.
+			nextTick += this.tickNanos;
+			long delay = nextTick - System.nanoTime();
+			if (delay < -this.tickNanos) {
+				nextTick = System.nanoTime();
+			} else if (delay > 0) {
+				try {
+					TimeUnit.NANOSECONDS.sleep(delay);
+				} catch (InterruptedException e) {
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Run a single tick of the game.
+	 */
+	public void tick() {
+		//Remove the players of closed connections and add the players that have asked to join.
+		for (PlayerConnection connection : this.connections) {
+			if (!connection.isOpen()) {
+				connection.leaveGame();
+				this.connections.remove(connection);
+			} else if (!connection.hasJoined()) {
+				connection.processInput(false);
+			}
+		}
+
+		this.game.beginTick(System.currentTimeMillis());
+		this.tickAreas(this.groupByArea());
+
+		//Run the commands that could not be run while the areas were ticked.
+		for (PlayerConnection connection : this.connections) {
+			connection.processInput(false);
+		}
+		this.game.endTick();
+
+		//Snapshot the bundles that changed during this tick.
+		this.server.markChangedConnections();
+		for (PlayerConnection connection : this.connections) {
+			if (connection.isDirty()) {
+				connection.transmitBundle();
+			}
+		}
+	}
+
+	/**
+	 * @return the areas that have to be ticked, each with the connections of the players that are in it.
+	 */
+	private Map<Area, List<PlayerConnection>> groupByArea() {
+		Map<Area, List<PlayerConnection>> shards = new HashMap<Area, List<PlayerConnection>>();
+
+		for (PlayerConnection connection : this.connections) {
+			if (connection.isOpen() && connection.hasJoined()) {
+				Area area = this.game.getPlayer(connection.getPlayerName()).getCurrentArea();
+				if (!shards.containsKey(area)) {
+					shards.put(area, new ArrayList<PlayerConnection>());
+				}
+				shards.get(area).add(connection);
+			}
+		}
+
+		//Areas with NPCs in them are ticked even when there are no players.
+		for (NonHumanPlayer npc : this.game.getNonHumanPlayers()) {
+			if (!shards.containsKey(npc.getCurrentArea())) {
+				shards.put(npc.getCurrentArea(), new ArrayList<PlayerConnection>());
+			}
+		}
+
+		return shards;
+	}
+
+	/**
+	 * Tick the given areas in parallel and wait for all of them to finish.
+	 * @param shards the areas to tick, each with the connections of the players in it.
+	 */
+	private void tickAreas(Map<Area, List<PlayerConnection>> shards) {
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+
+		for (final Map.Entry<Area, List<PlayerConnection>> shard : shards.entrySet()) {
+			tasks.add(new Callable<Void>() {
+				@Override
+				public Void call() {
+					for (PlayerConnection connection : shard.getValue()) {
+						connection.processInput(true);
+					}
+					game.tickArea(shard.getKey());
+					return null;
+				}
+			});
+		}
+
+		try {
+			for (Future<Void> result : this.areaExecutor.invokeAll(tasks)) {
+				result.get();
+			}
+		} catch (ExecutionException e) {
+			e.getCause().printStackTrace(); //An area failed to tick. The other areas have still been ticked.
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void recordTick(long nanos) {
+		this.ticks++;
+		this.totalTickNanos += nanos;
+		if (nanos > this.maxTickNanos) {
+			this.maxTickNanos = nanos;
+		}
+	}
+
+	/** GETTERS **/
+
+	public long getTicks() {
+		return this.ticks;
+	}
+
+	/**
+	 * @return the average time taken by a tick in nanoseconds.
+	 */
+	public long getAverageTickNanos() {
+		return this.ticks == 0 ? 0 : this.totalTickNanos / this.ticks;
+	}
+
+	/**
+	 * @return the longest time taken by a tick in nanoseconds.
+	 */
+	public long getMaxTickNanos() {
+		return this.maxTickNanos;
+	}
+
+	/**
+	 * @return the length of a tick in nanoseconds.
+	 */
+	public long getTickNanos() {
+		return this.tickNanos;
+	}
+}
@@ -0,0 +1,118 @@
+package network;
+
+import java.io.IOException;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import ui.CreateServerPanel;
+
+/**
+ * An IO worker is one of the small number of threads that run the server's connections. Each worker has its own selector and
+ * handles the reads and writes of the connections registered with it. Commands read are queued for the game loop, and the
+ * bundles the game loop produces are written once it hands them over. A worker with nothing to read or write sleeps in select.
+ */
+public class IOWorker extends Thread {
+
+	private final Selector selector;
+	private final CreateServerPanel serverPanel;
+	private final Queue<PlayerConnection> pendingRegistrations = new ConcurrentLinkedQueue<PlayerConnection>();
+	private final Queue<PlayerConnection> pendingTransmits = new ConcurrentLinkedQueue<PlayerConnection>(); //Connections with frames to write.
+
+	public IOWorker(String name, CreateServerPanel serverPanel) throws IOException {
+		super(name);
+		this.selector = Selector.open();
+		this.serverPanel = serverPanel;
+		this.setDaemon(true);
+	}
+
+	/**
+	 * Hand a newly accepted connection to this worker. Safe to call from any thread.
+	 * @param connection the connection. Its channel must be in non-blocking mode.
+	 */
+	public void register(PlayerConnection connection) {
+		this.pendingRegistrations.add(connection);
+		this.selector.wakeup();
+	}
+
+	/**
+	 * Ask this worker to write the frames queued on the given connection. Safe to call from any thread.
+	 * @param connection the connection with frames to write.
+	 */
+	public void transmitLater(PlayerConnection connection) {
+		this.pendingTransmits.add(connection);
+		this.selector.wakeup();
+	}
+
+	@Override
+	public void run() {
+		while (true) {
+			try {
+				this.selector.select();
+			} catch (IOException e) {
+				this.serverPanel.printToTextPrintArea("Error waiting on connections (" + e.getMessage() + "): closing them!");
+				this.closeAll();
+				continue;
+			}
+
+			this.registerPending();
+
+			//Handle reads and writes.
+			Iterator<SelectionKey> keys = this.selector.selectedKeys().iterator();
+			while (keys.hasNext()) {
+				SelectionKey key = keys.next();
+				keys.remove();
+
+				PlayerConnection connection = (PlayerConnection) key.attachment();
+				try {
+					if (key.isValid() && key.isReadable()) {
+						connection.read();
+					}
+					if (key.isValid() && key.isWritable()) {
+						connection.write();
+					}
+				} catch (CancelledKeyException e) {
+					connection.close(); //Closed while being handled.
+				}
+			}
+
+			//Write the bundles handed over by the game loop.
+			PlayerConnection connection;
+			while ((connection = this.pendingTransmits.poll()) != null) {
+				try {
+					connection.write();
+				} catch (CancelledKeyException e) {
+					connection.close();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Close every connection registered with this worker. Used when the selector itself has failed, as it is then not known
+	 * which of the connections are affected.
+	 */
+	private void closeAll() {
+		for (SelectionKey key : this.selector.keys()) {
+			((PlayerConnection) key.attachment()).close();
+		}
+	}
+
+	/**
+	 * Register the connections handed to this worker since the last select.
+	 */
+	private void registerPending() {
+		PlayerConnection connection;
+		while ((connection = this.pendingRegistrations.poll()) != null) {
+			try {
+				connection.setKey(connection.getChannel().register(this.selector, SelectionKey.OP_READ, connection));
+			} catch (ClosedChannelException e) {
+				connection.close();
+			}
+		}
+	}
+}
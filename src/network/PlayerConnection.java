@@ -0,0 +1,371 @@
+package network;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import game.Bundle;
+import game.SpookySchool;
+import ui.CreateServerPanel;
+
+/**
+ * A player connection holds the state of a single client connected to the server. Connections are not threads. The IOWorker
+ * that owns a connection reads commands from it when data arrives and writes the frames queued on it. Commands are not run
+ * straight away, they are queued and run by the game loop, which also snapshots the bundle at the end of each tick.
+ * read(), write() and close() are called from the worker's thread, the remaining methods from the game loop. The game loop
+ * runs the commands of players in different areas in parallel, but the commands of one connection are only ever run by one
+ * thread at a time.
+ */
+public class PlayerConnection {
+
+	private static final int READ_BUFFER_SIZE = CommandCodec.MAX_COMMAND_SIZE + 2;
+	private static final int MAX_PENDING_BYTES = 64 * 1024; //Stop producing bundles while this much is waiting to be sent.
+	private static final int MAX_QUEUED_COMMANDS = 256; //A client that sends more than this in a single tick is dropped.
+
+	private final SocketChannel channel;
+	private final SpookySchool game;
+	private final Server server;
+	private final IOWorker worker;
+	private final CreateServerPanel serverPanel;
+	private SelectionKey key;
+	private final AtomicBoolean closed = new AtomicBoolean();
+
+	//Used by the worker.
+	private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+	private final CommandCodec.ArgumentCache arguments = new CommandCodec.ArgumentCache();
+
+	//Passed between the worker and the game loop. Commands waiting for the next tick are queued in inputQueue, and handed
+	//back through freeCommands once run. Array based queues, so that passing a command creates no objects.
+	private final Queue<Command> inputQueue = new ArrayBlockingQueue<Command>(MAX_QUEUED_COMMANDS);
+	private final Queue<Command> freeCommands = new ArrayBlockingQueue<Command>(MAX_QUEUED_COMMANDS + 1);
+	private final Queue<ByteBuffer> writeQueue = new ConcurrentLinkedQueue<ByteBuffer>(); //Frames waiting to be written.
+	private final AtomicInteger pendingBytes = new AtomicInteger(); //Number of bytes in the write queue.
+
+	//Used by the game loop.
+	private String playerName;
+	private volatile boolean joined; //True once the player has been added to the game.
+	private volatile boolean dirty; //True if the bundle has changed since it was last transmitted.
+	private BundleCodec codec = new SerializedBundleCodec(); //Replaced by the codec the client asks for when it joins.
+
+	public PlayerConnection(SocketChannel channel, SpookySchool game, Server server, IOWorker worker,
+			CreateServerPanel serverPanel) {
+		this.channel = channel;
+		this.game = game;
+		this.server = server;
+		this.worker = worker;
+		this.serverPanel = serverPanel;
+		this.serverPanel.printToTextPrintArea("New player connection created");
+	}
+
+	public SocketChannel getChannel() {
+		return this.channel;
+	}
+
+	/**
+	 * @return true if this connection has not been closed.
+	 */
+	public boolean isOpen() {
+		return !this.closed.get();
+	}
+
+	/**
+	 * Set the selection key of this connection once it has been registered with a worker's selector.
+	 * @param key the selection key of this connection.
+	 */
+	public void setKey(SelectionKey key) {
+		this.key = key;
+	}
+
+	/**
+	 * Read whatever the client has sent and queue every complete command for the game loop. Bytes of a command that has only
+	 * partly arrived are kept in the read buffer until the rest arrives. Called by the worker when the channel is readable.
+	 */
+	public void read() {
+		try {
+			int count = this.channel.read(this.readBuffer);
+
+			//End of stream, client has closed the connection.
+			if (count < 0) {
+				this.close();
+				return;
+			}
+
+			this.readBuffer.flip();
+			Command command = this.takeCommand();
+			while (CommandCodec.decode(this.readBuffer, command, this.arguments)) {
+				if (!this.inputQueue.offer(command)) {
+					this.serverPanel.printToTextPrintArea("Too many commands from " + this.playerName + ": closing connection!");
+					this.close();
+					return;
+				}
+				command = this.takeCommand();
+			}
+			this.freeCommands.offer(command); //Not used, keep it for the next read.
+			this.readBuffer.compact();
+
+		} catch (IOException e) {
+			this.close();
+		}
+	}
+
+	/**
+	 * @return a command to decode into, from the pool if the game loop has handed one back.
+	 */
+	private Command takeCommand() {
+		Command command = this.freeCommands.poll();
+		if (command == null) {
+			command = new Command();
+		}
+		return command;
+	}
+
+	/**
+	 * Write as much of the write queue as the channel accepts. If the channel cannot take everything, the worker is asked to
+	 * call this method again once the channel is writable.
+	 */
+	public void write() {
+		if (this.closed.get()) {
+			return;
+		}
+
+		try {
+			ByteBuffer frame;
+			while ((frame = this.writeQueue.peek()) != null) {
+				this.pendingBytes.addAndGet(-this.channel.write(frame));
+
+				//Socket buffer is full, wait until it is writable again.
+				if (frame.hasRemaining()) {
+					this.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+					return;
+				}
+
+				this.writeQueue.poll();
+			}
+
+			this.key.interestOps(SelectionKey.OP_READ);
+
+		} catch (IOException e) {
+			this.close();
+		}
+	}
+
+	/**
+	 * Close the connection. The player is removed from the game by the game loop on its next tick.
+	 */
+	public void close() {
+		if (!this.closed.compareAndSet(false, true)) {
+			return;
+		}
+
+		if (this.key != null) {
+			this.key.cancel();
+		}
+
+		try {
+			this.channel.close();
+		} catch (IOException e) {
+			//Already closed.
+		}
+	}
+
+	/**
+	 * Run the commands that have arrived since the last tick. Called by the game loop each tick.
+	 * @param areaOnly if true, stop at the first global command, or straight away if the player has not joined yet. Used while
+	 * areas are ticked in parallel. The remaining commands are run once the areas have been ticked.
+	 */
+	public void processInput(boolean areaOnly) {
+		Command command;
+		while (this.isOpen() && (command = this.inputQueue.peek()) != null) {
+			if (areaOnly && (!this.joined || command.getType().isGlobal())) {
+				return;
+			}
+
+			this.inputQueue.poll();
+			try {
+				this.processCommand(command);
+			} catch (RuntimeException | Error e) {
+				//The game rejects commands that make no sense. Drop the client rather than stopping the game loop.
+				this.serverPanel.printToTextPrintArea("Invalid command from " + this.playerName + ": closing connection!");
+				this.close();
+			}
+			this.freeCommands.offer(command); //Hand the command back to the worker to decode into.
+		}
+	}
+
+	/**
+	 * @return true if the player of this connection is in the game.
+	 */
+	public boolean hasJoined() {
+		return this.joined;
+	}
+
+	/**
+	 * Marks the bundle of this connection as changed so that it is transmitted at the end of the tick.
+	 */
+	public void markDirty() {
+		this.dirty = true;
+	}
+
+	/**
+	 * @return true if the bundle of this connection has changed since it was last transmitted.
+	 */
+	public boolean isDirty() {
+		return this.dirty;
+	}
+
+	/**
+	 * Encode this player's bundle and hand it to the worker to be sent to the client. If the client is not keeping up and too
+	 * many bytes are already waiting to be sent, nothing is sent. The bundle keeps collecting changes and is tried again on the
+	 * next tick.
+	 */
+	public void transmitBundle() {
+		if (this.closed.get() || this.pendingBytes.get() > MAX_PENDING_BYTES) {
+			return;
+		}
+
+		this.dirty = false;
+
+		try {
+			Bundle bundle = game.getBundle(playerName, true);
+			if (bundle == null) {
+				this.queueFrame(this.codec.encode(bundle));
+				return;
+			}
+
+			//Encode and clear the bundle as one step. The save thread sets messages on the bundle too, and a message set in
+			//between would be cleared without ever being sent.
+			byte[] payload;
+			synchronized (bundle) {
+				payload = this.codec.encode(bundle);
+				bundle.clearBundle();
+			}
+			this.queueFrame(payload);
+
+		} catch (IOException e) {
+			this.serverPanel.printToTextPrintArea("Error transmitting bundle: closing connection!");
+			this.close();
+		}
+	}
+
+	/**
+	 * Queue a frame with the given payload and ask the worker to write it.
+	 * @param payload payload of the frame.
+	 */
+	private void queueFrame(byte[] payload) {
+		ByteBuffer frame = ByteBuffer.allocate(4 + payload.length);
+		frame.putInt(payload.length);
+		frame.put(payload);
+		frame.flip();
+
+		this.pendingBytes.addAndGet(frame.remaining());
+		this.writeQueue.add(frame);
+		this.worker.transmitLater(this);
+	}
+
+	/**
+	 * Remove the player of this closed connection from the game. Called by the game loop once the connection has closed.
+	 */
+	public void leaveGame() {
+		if (this.joined) {
+			game.removePlayer(playerName);
+		}
+
+		this.serverPanel.printToTextPrintArea("PLAYER " + playerName + " DISCONNECTED");
+		this.server.connectionClosed(this);
+	}
+
+	public String getPlayerName() {
+		return this.playerName;
+	}
+
+	/**
+	 * Process the command that is received from the client by calling the respective method on the game.
+	 * @param command
+	 */
+	public void processCommand(Command command) {
+
+		//Only a join command makes sense until the player is in the game.
+		if (!this.joined && command.getType() != Command.Type.JOIN) {
+			return;
+		}
+
+		switch (command.getType()) {
+
+		case JOIN:
+			if (this.joined) {
+				break; //Already in the game.
+			}
+
+			this.playerName = command.getArg0();
+
+			//Use the bundle encoding the client asked for. A fresh codec is created for every join attempt.
+			this.codec = BundleCodec.forName(command.getArg1());
+			if (this.codec == null) {
+				this.codec = new SerializedBundleCodec();
+			}
+
+			if (this.game.addPlayer(playerName)) {
+				this.serverPanel.printToTextPrintArea("New Player added to game: " + this.playerName);
+				this.joined = true;
+				this.server.connectionJoined(this);
+				this.markDirty(); //Send the first bundle.
+			} else {
+				this.serverPanel
+						.printToTextPrintArea("Player name already exists on server, waiting for new name on connection.");
+				this.playerName = "-1"; // Set to negative one so that it doesn't send another player's bundle
+				this.transmitBundle(); // Transmit a null bundle. Bundle will be null as long as no player with the name "-1" exists
+			}
+			break;
+
+		case NORTH:
+		case SOUTH:
+		case EAST:
+		case WEST:
+			this.game.movePlayer(game.getPlayer(playerName), command.getType().name());
+			break;
+
+		case ACTION:
+			this.game.processAction(playerName);
+			break;
+
+		case DROP:
+			this.game.processDrop(playerName, command.getArg0());
+			break;
+
+		case PACK:
+			this.game.addToContainer(playerName, command.getArg0(), command.getArg1());
+			break;
+
+		case UNPACK:
+			this.game.unpackContainer(playerName, command.getArg0());
+			break;
+
+		case PASS:
+			this.game.passItem(playerName, command.getArg0());
+			break;
+
+		case CHAT:
+			String message = "<" + this.playerName + "> " + command.getArg0(); //Append the player name before the message
+			this.game.addChatLogItemToAllBundles(message); //Add the message to all player's bundles so they can display in their chat window.
+			break;
+
+		case SAVE:
+			this.game.saveGame(playerName);
+			break;
+
+		case RESYNC:
+			this.game.resyncPlayer(playerName); //Client's copy of the area is out of sync, send the whole area again.
+			break;
+
+		default:
+			break; //Command not handled by the server.
+		}
+	}
+
+}
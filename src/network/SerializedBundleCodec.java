@@ -0,0 +1,43 @@
+package network;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import game.Bundle;
+
+/**
+ * Encodes bundles using Java serialization. Each bundle is written with a new object stream, so every frame carries the stream
+ * header and the class descriptors of the whole object graph.
+ */
+public class SerializedBundleCodec implements BundleCodec {
+
+	public static final String NAME = "serial";
+
+	@Override
+	public byte[] encode(Bundle bundle) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream objOut = new ObjectOutputStream(bytes);
+		objOut.writeObject(bundle);
+		objOut.close();
+		return bytes.toByteArray();
+	}
+
+	@Override
+	public Bundle decode(byte[] payload) throws IOException {
+		ObjectInputStream objIn = new ObjectInputStream(new ByteArrayInputStream(payload));
+		try {
+			return (Bundle) objIn.readObject();
+		} catch (ClassNotFoundException e) {
+			throw new IOException(e);
+		}
+	}
+
+	@Override
+	public String getName() {
+		return NAME;
+	}
+
+}
@@ -3,34 +3,82 @@ package network;
 import java.io.IOException;
 import java.net.Inet4Address;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.NetworkInterface;
-import java.net.ServerSocket;
-import java.net.Socket;
 import java.net.SocketException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Enumeration;
-
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import game.Area;
+import game.Bundle;
+import game.GameListener;
+import game.Player;
 import game.SpookySchool;
+import parser.Journal;
 import ui.CreateServerPanel;
 
 /**
- * Server actively listens for new connections until server is full. Then stops listening until a player leaves the game.
+ * Server listens for new connections and hands them to a small pool of IO workers, which run all of the connections using
+ * non-blocking channels and selectors. Connections beyond the configured limit are closed straight away. The game itself is
+ * run by the game loop. The server listens to the game so that bundles are only transmitted to the players whose area or
+ * bundle has changed.
  * @author Rongji Wang
  * @author Pritesh R. Patel
  *
  */
-public class Server extends Thread {
+public class Server extends Thread implements GameListener {
+
+	private static final Path JOURNAL_DIR = Paths.get("journal"); //Where the game is journaled.
 
 	private SpookySchool game;
-	private int nclients = 4; //Number of connected that can still connect.
+	private final int maxConnections; //Number of clients that can be connected at once.
+	private final AtomicInteger nclients = new AtomicInteger(); //Number of clients currently connected.
 	private int port;
 	private CreateServerPanel serverPanel;
+	private IOWorker[] workers;
+	private int nextWorker = 0;
+	private GameLoop gameLoop;
+	private final int tickRate; //Number of game loop ticks per second.
+	private final List<PlayerConnection> connections = new CopyOnWriteArrayList<PlayerConnection>(); //All connections.
+	private final Map<String, PlayerConnection> players = new HashMap<String, PlayerConnection>(); //Joined connections by player name. Only used by the game loop.
+
+	//Changes made during the current tick. Areas are ticked in parallel so these are concurrent.
+	private final Set<Area> changedAreas = ConcurrentHashMap.newKeySet();
+	private final Set<String> changedBundles = ConcurrentHashMap.newKeySet();
 
 	private boolean printFull = true; //To stop printing server full on the server print area multiple times
 
 	public Server(Integer port, CreateServerPanel serverPanel) {
-		this.game = new SpookySchool();
+		this(port, serverPanel, 4, 2, 50);
+	}
+
+	/**
+	 * Creates a new server.
+	 * @param port port to listen on.
+	 * @param serverPanel panel that server updates are printed to.
+	 * @param maxConnections maximum number of clients that can be connected at once. Also the player limit of the game.
+	 * @param ioThreads number of threads that run the connections.
+	 * @param tickRate number of game loop ticks per second.
+	 */
+	public Server(Integer port, CreateServerPanel serverPanel, int maxConnections, int ioThreads, int tickRate) {
+		this.game = new SpookySchool(maxConnections);
 		this.port = port.intValue();
 		this.serverPanel = serverPanel;
+		this.maxConnections = maxConnections;
+		this.workers = new IOWorker[ioThreads];
+		this.tickRate = tickRate;
+		this.game.setListener(this);
 	}
 
 	/**
@@ -41,10 +89,18 @@ public class Server extends Thread {
 		this.serverPanel.printToTextPrintArea("Server Started: Listening for new clients");
 
 		try {
+			//Start the workers that run the connections.
+			for (int i = 0; i < this.workers.length; i++) {
+				this.workers[i] = new IOWorker("IOWorker-" + i, this.serverPanel);
+				this.workers[i].start();
+			}
 
-			PlayerThread[] connections = new PlayerThread[nclients];
+			this.startJournal();
+			this.gameLoop = new GameLoop(this, this.game, this.connections, this.tickRate);
+			this.gameLoop.start();
 
-			ServerSocket serverSocket = new ServerSocket(port);
+			ServerSocketChannel serverChannel = ServerSocketChannel.open();
+			serverChannel.bind(new InetSocketAddress(port));
 			this.serverPanel
 					.updateServerStatusField("Server running on: " + InetAddress.getLocalHost().getHostAddress());
 
@@ -52,25 +108,31 @@ public class Server extends Thread {
 
 			while (true) {
 
-				Socket socket = serverSocket.accept(); // Wait for a socket/incoming connection.
+				SocketChannel channel = serverChannel.accept(); // Wait for an incoming connection.
 
-				//Listen for new clients if new players can join.
-				if (this.nclients > 0) {
-					this.serverPanel.printToTextPrintArea("ACCEPTED CONNECTION FROM: " + socket.getInetAddress());
-					this.serverPanel.printToTextPrintArea("Spots Avaliable on server: " + this.nclients);
-					PlayerThread pT = new PlayerThread(socket, game, this.serverPanel); //Create the player thread
-					this.addPlayerThread(pT, connections); //Add the player thread to the array of player threads that exists on this server.
-					pT.start(); //Start the player thread.
+				//Accept new clients if there is space on the server.
+				if (this.nclients.get() < this.maxConnections) {
+					this.nclients.incrementAndGet();
+					this.printFull = true;
+					this.serverPanel.printToTextPrintArea("ACCEPTED CONNECTION FROM: " + channel.getRemoteAddress());
+					this.serverPanel.printToTextPrintArea(
+							"Spots Avaliable on server: " + (this.maxConnections - this.nclients.get()));
+
+					channel.configureBlocking(false);
+					channel.socket().setTcpNoDelay(true);
+					IOWorker worker = this.workers[this.nextWorker];
+					PlayerConnection connection = new PlayerConnection(channel, game, this, worker, this.serverPanel);
+					this.connections.add(connection);
+					worker.register(connection); //Hand the connection to the next worker.
+					this.nextWorker = (this.nextWorker + 1) % this.workers.length;
 
 				} else {
 					if (this.printFull) {
 						this.serverPanel.printToTextPrintArea("SERVER FULL"); //Print full if you haven't already.
 						this.printFull = false;
 					}
-					socket.close();
+					channel.close();
 				}
-
-				this.removeDisconnectedPlayers(connections); //Remove all players that have been disconnected from this server.
 			}
 
 		} catch (IOException e) {
@@ -79,35 +141,94 @@ public class Server extends Thread {
 	}
 
 	/**
-	 * Remove all players that have been disconnected. This allows more players to join.
-	 * @param connections
+	 * Carry on the game journaled by the last server run, if there is one, and journal the game from now on. The players of a
+	 * recovered game are removed, as their connections were lost when the last server stopped. If the journal cannot be
+	 * used, the server runs without one.
 	 */
-	private void removeDisconnectedPlayers(PlayerThread... connections) {
-		for (int i = 0; i < connections.length; i++) {
-			PlayerThread pT = connections[i];
-			if (pT != null && !pT.isAlive()) {
-				connections[i] = null; //Clear this connection.
-				nclients++; //More space available.
-				this.serverPanel.printToTextPrintArea("Removed a client from server list.");
-				this.printFull = true;
+	private void startJournal() {
+		try {
+			if (Journal.exists(JOURNAL_DIR)) {
+				SpookySchool recovered = Journal.recover(JOURNAL_DIR);
+				for (Player player : recovered.getPlayers()) {
+					recovered.removePlayer(player.getPlayerName());
+				}
+				this.game = recovered;
+				this.game.setListener(this);
+				this.serverPanel.printToTextPrintArea("Recovered the game from the journal.");
 			}
+			Journal.open(JOURNAL_DIR, this.game);
+		} catch (IOException e) {
+			this.serverPanel.printToTextPrintArea("Could not open the journal, the game will not be saved: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Called by the game loop once a connection has closed and its player has left the game. This allows more players to join.
+	 * @param connection the connection that has closed.
+	 */
+	public void connectionClosed(PlayerConnection connection) {
+		if (connection.getPlayerName() != null) {
+			this.players.remove(connection.getPlayerName(), connection);
 		}
+		this.nclients.decrementAndGet();
+		this.serverPanel.printToTextPrintArea("Removed a client from server list.");
+	}
+
+	/**
+	 * Called by the game loop once the player of a connection has been added to the game.
+	 * @param connection the connection whose player joined.
+	 */
+	public void connectionJoined(PlayerConnection connection) {
+		this.players.put(connection.getPlayerName(), connection);
 	}
 
 	/**
-	 * Add the player thread to the array of player threads running on the server.
-	 * @param pT player thread to add to the connections array.
-	 * @param connections Array of player threads running on the server.
+	 * @return the game loop, or null if the server has not started yet.
 	 */
-	private void addPlayerThread(PlayerThread pT, PlayerThread[] connections) {
+	public GameLoop getGameLoop() {
+		return this.gameLoop;
+	}
 
-		for (int i = 0; i < connections.length; i++) {
-			if (connections[i] == null) {
-				connections[i] = pT; //Add this thread to player
-				this.nclients--;
-				return;
+	/**
+	 * Mark the connections of the players whose area or bundle changed during the tick, so that their bundles are
+	 * transmitted. Called by the game loop once the areas have been ticked.
+	 */
+	public void markChangedConnections() {
+		for (Area area : this.changedAreas) {
+			for (Player player : area.getPlayers()) {
+				this.markDirty(player.getPlayerName());
 			}
 		}
+		this.changedAreas.clear();
+
+		//Bundles can also change off the game loop (e.g. when a save finishes), so only the names handled here are removed.
+		for (Iterator<String> it = this.changedBundles.iterator(); it.hasNext();) {
+			this.markDirty(it.next());
+			it.remove();
+		}
+	}
+
+	private void markDirty(String playerName) {
+		PlayerConnection connection = this.players.get(playerName);
+		if (connection != null) {
+			connection.markDirty();
+		}
+	}
+
+	/**
+	 * Record the area that changed. Its players are sent a bundle at the end of the tick.
+	 */
+	@Override
+	public void areaChanged(Area area) {
+		this.changedAreas.add(area);
+	}
+
+	/**
+	 * Record the bundle that changed. It is sent at the end of the tick.
+	 */
+	@Override
+	public void bundleChanged(Bundle bundle) {
+		this.changedBundles.add(bundle.getPlayerName());
 	}
 
 	public void displayAddresses() throws SocketException {
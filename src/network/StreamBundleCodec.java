@@ -0,0 +1,163 @@
+package network;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import game.Bundle;
+
+/**
+ * Encodes bundles using Java serialization over a single object stream that is kept for the whole connection. The stream header
+ * is only sent once, and each class descriptor is only sent in full the first time it is used; after that it is sent as an id.
+ * The stream is reset before every bundle so that objects that have changed since the last bundle are written again rather
+ * than as references to their old state, which also stops the table of written objects from growing. Each frame holds
+ * exactly one bundle, so each end of the connection must use its own codec instance.
+ */
+public class StreamBundleCodec implements BundleCodec {
+
+	public static final String NAME = "stream";
+
+	//Encoding. The stream writes into a buffer that is emptied after every bundle.
+	private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(8 * 1024);
+	private ObjectOutputStream objOut; //Created by the first encode(..), so the first frame holds the stream header.
+
+	//Decoding. The stream reads from the payload of the frame being decoded.
+	private final PayloadInputStream payloadIn = new PayloadInputStream();
+	private ObjectInputStream objIn; //Created by the first decode(..), which reads the stream header.
+
+	@Override
+	public byte[] encode(Bundle bundle) throws IOException {
+		if (this.objOut == null) {
+			this.objOut = new DescriptorOutputStream(this.buffer);
+		} else {
+			this.objOut.reset();
+		}
+
+		this.objOut.writeObject(bundle);
+		this.objOut.flush();
+
+		byte[] payload = this.buffer.toByteArray();
+		this.buffer.reset();
+		return payload;
+	}
+
+	@Override
+	public Bundle decode(byte[] payload) throws IOException {
+		this.payloadIn.setPayload(payload);
+		if (this.objIn == null) {
+			this.objIn = new DescriptorInputStream(this.payloadIn);
+		}
+
+		try {
+			return (Bundle) this.objIn.readObject();
+		} catch (ClassNotFoundException e) {
+			throw new IOException(e);
+		}
+	}
+
+	@Override
+	public String getName() {
+		return NAME;
+	}
+
+	/**
+	 * Object stream that writes each class descriptor in full only once. Descriptors are numbered in the order they are first
+	 * written, and written as their number from then on, including after the stream has been reset.
+	 */
+	private static class DescriptorOutputStream extends ObjectOutputStream {
+
+		private final Map<ObjectStreamClass, Integer> sentDescriptors = new IdentityHashMap<ObjectStreamClass, Integer>();
+
+		public DescriptorOutputStream(OutputStream out) throws IOException {
+			super(out);
+		}
+
+		@Override
+		protected void writeClassDescriptor(ObjectStreamClass desc) throws IOException {
+			Integer id = this.sentDescriptors.get(desc);
+			if (id != null) {
+				this.writeInt(id);
+				return;
+			}
+
+			id = this.sentDescriptors.size();
+			this.sentDescriptors.put(desc, id);
+			this.writeInt(id);
+			super.writeClassDescriptor(desc);
+		}
+	}
+
+	/**
+	 * Object stream that reads the class descriptors written by DescriptorOutputStream.
+	 */
+	private static class DescriptorInputStream extends ObjectInputStream {
+
+		private final List<ObjectStreamClass> receivedDescriptors = new ArrayList<ObjectStreamClass>();
+
+		public DescriptorInputStream(InputStream in) throws IOException {
+			super(in);
+		}
+
+		@Override
+		protected ObjectStreamClass readClassDescriptor() throws IOException, ClassNotFoundException {
+			int id = this.readInt();
+			if (id < this.receivedDescriptors.size()) {
+				return this.receivedDescriptors.get(id);
+			} else if (id == this.receivedDescriptors.size()) {
+				ObjectStreamClass desc = super.readClassDescriptor();
+				this.receivedDescriptors.add(desc);
+				return desc;
+			}
+
+			throw new IOException("Class descriptor table out of sync: " + id);
+		}
+	}
+
+	/**
+	 * Input stream over the payload of the current frame. Ends at the end of the payload, so a bundle that is cut short fails
+	 * to decode rather than blocking.
+	 */
+	private static class PayloadInputStream extends InputStream {
+
+		private byte[] payload = new byte[0];
+		private int position;
+
+		public void setPayload(byte[] payload) {
+			this.payload = payload;
+			this.position = 0;
+		}
+
+		@Override
+		public int read() {
+			return this.position < this.payload.length ? this.payload[this.position++] & 0xFF : -1;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) {
+			if (len == 0) {
+				return 0;
+			}
+			if (this.position >= this.payload.length) {
+				return -1;
+			}
+
+			int count = Math.min(len, this.payload.length - this.position);
+			System.arraycopy(this.payload, this.position, b, off, count);
+			this.position += count;
+			return count;
+		}
+
+		@Override
+		public int available() {
+			return this.payload.length - this.position;
+		}
+	}
+}
@@ -0,0 +1,453 @@
+package parser;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.zip.CRC32;
+
+import game.NonHumanPlayer;
+import game.SpookySchool;
+
+/**
+ * Write-ahead journal of the changes made to a game. Rather than writing the whole game on every save, the game appends
+ * every state changing command (moves, actions, drops, packing, passing items, players joining and leaving, NPC steps and
+ * players caught by NPCs) to the journal, and the journal is checkpointed with a snapshot once it has grown large. A game
+ * is recovered by loading the latest checkpoint and replaying the journal written after it.
+ *
+ * The game appends each entry while it holds the locks of the areas the command changes, so two commands that touch the
+ * same area are journaled in the order they were run. Commands on different areas do not affect each other, so replaying
+ * the journal in order gives back the same game.
+ *
+ * The journal lives in a directory of numbered files. checkpoint-N.snapshot holds the game as it was before any entry of
+ * journal-N.log was written, and the journal files from N onwards hold the entries made since. Old files are deleted once
+ * a newer checkpoint has been written.
+ *
+ * Entry: length(int) crc(int) then the payload: op(byte) and the arguments of the op, each as length(varint) utf-8 bytes.
+ * A torn entry at the end of a file (e.g. the server died mid write) fails the length or crc check and ends that file.
+ */
+public class Journal {
+
+	/**
+	 * The kinds of entries in the journal, each with the number of arguments it carries. The arguments are those of the game
+	 * method the entry replays.
+	 */
+	public enum Op {
+		JOIN(1), //Player name.
+		LEAVE(1), //Player name.
+		MOVE(2), //Player name, direction.
+		NPC_MOVE(2), //NPC name, direction.
+		ACTION(1), //Player name.
+		DROP(2), //Player name, item id.
+		PACK(3), //Player name, container id, item id.
+		UNPACK(2), //Player name, container id.
+		PASS(2), //Player name, item id.
+		CAUGHT(2); //Player name, name of the area they were caught in.
+
+		private static final Op[] values = values();
+
+		private final int argCount;
+
+		private Op(int argCount) {
+			this.argCount = argCount;
+		}
+
+		public int getArgCount() {
+			return argCount;
+		}
+	}
+
+	private static final String CHECKPOINT_PREFIX = "checkpoint-";
+	private static final String CHECKPOINT_SUFFIX = ".snapshot";
+	private static final String SEGMENT_PREFIX = "journal-";
+	private static final String SEGMENT_SUFFIX = ".log";
+
+	private static final int HEADER_SIZE = 8; //Length and crc of an entry.
+	private static final int MAX_ENTRY_SIZE = 64 * 1024;
+	private static final long CHECKPOINT_BYTES = 1024 * 1024; //Size of a journal file that triggers a checkpoint.
+
+	private final Path dir;
+	private final ExecutorService checkpointExecutor; //Writes checkpoints off the game thread.
+	private final CRC32 crc = new CRC32();
+
+	//Journal file being appended to. Guarded by this.
+	private int segment;
+	private FileChannel channel;
+	private long segmentBytes; //Bytes appended to the current file, including pending bytes.
+	private ByteBuffer pending = ByteBuffer.allocate(16 * 1024); //Entries not yet written to the file.
+
+	private Journal(Path dir, int segment) throws IOException {
+		this.dir = dir;
+		this.checkpointExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "JournalCheckpoint");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		this.openSegment(segment);
+	}
+
+	/**
+	 * Start journaling the given game in the given directory. The game is checkpointed first, so the directory can always be
+	 * recovered from, and the older files in the directory are deleted. The game must not change while the journal is opened.
+	 * @param dir the directory of the journal. Created if it does not exist.
+	 * @param game the game to journal.
+	 * @return the journal, already set as the journal of the game.
+	 * @throws IOException if the checkpoint or the journal file cannot be written.
+	 */
+	public static Journal open(Path dir, SpookySchool game) throws IOException {
+		Files.createDirectories(dir);
+
+		//Start after every file already in the directory, so a torn journal file is never appended to.
+		int segment = 0;
+		for (Integer number : numbers(dir, CHECKPOINT_PREFIX, CHECKPOINT_SUFFIX)) {
+			segment = Math.max(segment, number + 1);
+		}
+		for (Integer number : numbers(dir, SEGMENT_PREFIX, SEGMENT_SUFFIX)) {
+			segment = Math.max(segment, number + 1);
+		}
+
+		Snapshot.save(game, checkpointFile(dir, segment));
+		deleteBefore(dir, segment);
+
+		Journal journal = new Journal(dir, segment);
+		game.setJournal(journal);
+		return journal;
+	}
+
+	/**
+	 * @param dir the directory of a journal.
+	 * @return true if the directory holds a checkpoint that a game can be recovered from.
+	 * @throws IOException if the directory cannot be read.
+	 */
+	public static boolean exists(Path dir) throws IOException {
+		return Files.isDirectory(dir) && !numbers(dir, CHECKPOINT_PREFIX, CHECKPOINT_SUFFIX).isEmpty();
+	}
+
+	/**
+	 * Recover the game journaled in the given directory: the latest checkpoint is loaded and every entry journaled after it is
+	 * replayed. The recovered game is not journaled, open(..) must be called to carry on journaling it.
+	 * @param dir the directory of the journal.
+	 * @return the game as it was when the last entry was written.
+	 * @throws IOException if there is no checkpoint, or the files cannot be read.
+	 */
+	public static SpookySchool recover(Path dir) throws IOException {
+		List<Integer> checkpoints = numbers(dir, CHECKPOINT_PREFIX, CHECKPOINT_SUFFIX);
+		if (checkpoints.isEmpty()) {
+			throw new IOException("No checkpoint to recover from in " + dir);
+		}
+
+		int checkpoint = checkpoints.get(checkpoints.size() - 1);
+		SpookySchool game = Snapshot.load(checkpointFile(dir, checkpoint));
+
+		for (Integer segment : numbers(dir, SEGMENT_PREFIX, SEGMENT_SUFFIX)) {
+			if (segment >= checkpoint) {
+				replay(game, segmentFile(dir, segment));
+			}
+		}
+
+		return game;
+	}
+
+	/** APPENDING **/
+
+	/**
+	 * Append an entry to the journal. The entry is only buffered, flush() hands it to the file.
+	 * @param op the kind of entry.
+	 * @param args the arguments of the entry, as many as the op carries.
+	 */
+	public synchronized void append(Op op, String... args) {
+		if (args.length != op.getArgCount()) {
+			throw new Error("Journal entry " + op + " takes " + op.getArgCount() + " arguments.");
+		}
+
+		this.ensure(HEADER_SIZE + 1);
+		int start = this.pending.position();
+		this.pending.position(start + HEADER_SIZE);
+		this.pending.put((byte) op.ordinal());
+
+		for (String arg : args) {
+			byte[] bytes = arg.getBytes(StandardCharsets.UTF_8);
+			this.ensure(5 + bytes.length);
+			int value = bytes.length;
+			while ((value & ~0x7F) != 0) {
+				this.pending.put((byte) ((value & 0x7F) | 0x80));
+				value >>>= 7;
+			}
+			this.pending.put((byte) value);
+			this.pending.put(bytes);
+		}
+
+		int length = this.pending.position() - start - HEADER_SIZE;
+		if (length > MAX_ENTRY_SIZE) {
+			throw new Error("Journal entry " + op + " is too large.");
+		}
+
+		this.crc.reset();
+		this.crc.update(this.pending.array(), start + HEADER_SIZE, length);
+		this.pending.putInt(start, length);
+		this.pending.putInt(start + 4, (int) this.crc.getValue());
+		this.segmentBytes += HEADER_SIZE + length;
+	}
+
+	/**
+	 * Write the buffered entries to the journal file. Once written they survive the server process dying, but not the
+	 * machine. Called by the game at the end of every tick.
+	 * @throws IOException if the entries cannot be written.
+	 */
+	public synchronized void flush() throws IOException {
+		this.pending.flip();
+		while (this.pending.hasRemaining()) {
+			this.channel.write(this.pending);
+		}
+		this.pending.clear();
+	}
+
+	/**
+	 * Write the buffered entries to the journal file and force them to disk. Once this returns every entry appended before it
+	 * was called is durable. Only the forcing is done outside the lock, so entries can be appended meanwhile.
+	 * @throws IOException if the entries cannot be written.
+	 */
+	public void sync() throws IOException {
+		FileChannel channel;
+		synchronized (this) {
+			this.flush();
+			channel = this.channel;
+		}
+
+		try {
+			channel.force(false);
+		} catch (ClosedChannelException e) {
+			//The file has been checkpointed since, which forced it.
+		}
+	}
+
+	/**
+	 * @return true if the current journal file has grown large enough to checkpoint.
+	 */
+	public synchronized boolean needsCheckpoint() {
+		return this.segmentBytes >= CHECKPOINT_BYTES;
+	}
+
+	/**
+	 * Checkpoint the given game. The game is captured straight away and entries are appended to a new journal file from now on.
+	 * The checkpoint is written on another thread, and the files it replaces are deleted once it has been written. The game must
+	 * not change while it is being captured.
+	 * @param game the journaled game.
+	 * @return the pending write of the checkpoint.
+	 * @throws IOException if the game cannot be captured or the new journal file cannot be opened.
+	 */
+	public synchronized Future<?> checkpoint(SpookySchool game) throws IOException {
+		final Snapshot snapshot = Snapshot.capture(game);
+
+		this.sync();
+		this.channel.close();
+		this.openSegment(this.segment + 1);
+
+		final int covered = this.segment;
+		return this.checkpointExecutor.submit(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					snapshot.write(checkpointFile(dir, covered));
+					deleteBefore(dir, covered);
+				} catch (IOException e) {
+					e.printStackTrace(); //The older checkpoint and its journal files are kept, so nothing is lost.
+				}
+			}
+		});
+	}
+
+	/**
+	 * Close the journal. Buffered entries are forced to disk first.
+	 * @throws IOException if the entries cannot be written.
+	 */
+	public synchronized void close() throws IOException {
+		this.sync();
+		this.channel.close();
+		this.checkpointExecutor.shutdown();
+	}
+
+	private void openSegment(int segment) throws IOException {
+		this.segment = segment;
+		this.segmentBytes = 0;
+		this.channel = FileChannel.open(segmentFile(this.dir, segment), StandardOpenOption.CREATE_NEW,
+				StandardOpenOption.WRITE);
+	}
+
+	/**
+	 * Make sure the pending buffer has room for the given number of bytes, growing it if it does not.
+	 */
+	private void ensure(int bytes) {
+		if (this.pending.remaining() < bytes) {
+			ByteBuffer larger = ByteBuffer.allocate(Math.max(this.pending.capacity() * 2, this.pending.position() + bytes));
+			this.pending.flip();
+			larger.put(this.pending);
+			this.pending = larger;
+		}
+	}
+
+	/** REPLAYING **/
+
+	/**
+	 * Replay every entry of the given journal file on the given game. Stops at the first torn entry.
+	 */
+	private static void replay(SpookySchool game, Path file) throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+		CRC32 crc = new CRC32();
+
+		while (buffer.remaining() >= HEADER_SIZE) {
+			int start = buffer.position();
+			int length = buffer.getInt();
+			int checksum = buffer.getInt();
+
+			if (length <= 0 || length > MAX_ENTRY_SIZE || length > buffer.remaining()) {
+				break; //Torn entry.
+			}
+			crc.reset();
+			crc.update(buffer.array(), start + HEADER_SIZE, length);
+			if ((int) crc.getValue() != checksum) {
+				break; //Torn entry.
+			}
+
+			int op = buffer.get();
+			if (op < 0 || op >= Op.values.length) {
+				throw new IOException("Unknown journal entry " + op + " in " + file);
+			}
+			String[] args = new String[Op.values[op].getArgCount()];
+			for (int i = 0; i < args.length; i++) {
+				args[i] = readString(buffer);
+			}
+
+			try {
+				apply(game, Op.values[op], args);
+			} catch (RuntimeException | Error e) {
+				//The command failed the same way when it was first run (and the player was dropped), so carry on.
+			}
+		}
+	}
+
+	/**
+	 * Run the game method that made the given entry.
+	 */
+	private static void apply(SpookySchool game, Op op, String[] args) {
+		switch (op) {
+		case JOIN:
+			game.addPlayer(args[0]);
+			break;
+		case LEAVE:
+			game.removePlayer(args[0]);
+			break;
+		case MOVE:
+			game.movePlayer(game.getPlayer(args[0]), args[1]);
+			break;
+		case NPC_MOVE:
+			for (NonHumanPlayer npc : game.getNonHumanPlayers()) {
+				if (npc.getPlayerName().equals(args[0])) {
+					if (game.movePlayer(npc, args[1])) {
+						npc.directionMoved();
+					}
+					break;
+				}
+			}
+			break;
+		case ACTION:
+			game.processAction(args[0]);
+			break;
+		case DROP:
+			game.processDrop(args[0], args[1]);
+			break;
+		case PACK:
+			game.addToContainer(args[0], args[1], args[2]);
+			break;
+		case UNPACK:
+			game.unpackContainer(args[0], args[1]);
+			break;
+		case PASS:
+			game.passItem(args[0], args[1]);
+			break;
+		case CAUGHT:
+			game.sendToSpawnRoom(game.getPlayer(args[0]), game.getArea(args[1]));
+			break;
+		}
+	}
+
+	private static String readString(ByteBuffer buffer) throws IOException {
+		int length = 0;
+		for (int shift = 0;; shift += 7) {
+			if (shift > 28) {
+				throw new IOException("Malformed varint");
+			}
+			byte b = buffer.get();
+			length |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				break;
+			}
+		}
+
+		String string = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+		buffer.position(buffer.position() + length);
+		return string;
+	}
+
+	/** FILES **/
+
+	private static Path checkpointFile(Path dir, int number) {
+		return dir.resolve(String.format("%s%06d%s", CHECKPOINT_PREFIX, number, CHECKPOINT_SUFFIX));
+	}
+
+	private static Path segmentFile(Path dir, int number) {
+		return dir.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+	}
+
+	/**
+	 * @return the numbers of the files in the given directory with the given prefix and suffix, in increasing order.
+	 */
+	private static List<Integer> numbers(Path dir, String prefix, String suffix) throws IOException {
+		List<Integer> numbers = new ArrayList<Integer>();
+
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, prefix + "*" + suffix)) {
+			for (Path file : files) {
+				String name = file.getFileName().toString();
+				try {
+					numbers.add(Integer.parseInt(name.substring(prefix.length(), name.length() - suffix.length())));
+				} catch (NumberFormatException e) {
+					//Not one of ours.
+				}
+			}
+		}
+
+		Collections.sort(numbers);
+		return numbers;
+	}
+
+	/**
+	 * Delete the checkpoints and journal files older than the given checkpoint.
+	 */
+	private static void deleteBefore(Path dir, int checkpoint) throws IOException {
+		for (Integer number : numbers(dir, CHECKPOINT_PREFIX, CHECKPOINT_SUFFIX)) {
+			if (number < checkpoint) {
+				Files.deleteIfExists(checkpointFile(dir, number));
+			}
+		}
+		for (Integer number : numbers(dir, SEGMENT_PREFIX, SEGMENT_SUFFIX)) {
+			if (number < checkpoint) {
+				Files.deleteIfExists(segmentFile(dir, number));
+			}
+		}
+	}
+}
@@ -0,0 +1,361 @@
+package parser;
+
+import game.Area;
+import game.ContainerGO;
+import game.DoorGO;
+import game.FixedContainerGO;
+import game.GameObject;
+import game.InventoryGO;
+import game.MovableGO;
+import game.NonHumanPlayer;
+import game.Player;
+import game.Position;
+import game.SpookySchool;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the saves written by the DOM savers used before the save format had a version:
+ *   the layout of the old Parser (saveNew.xml) -- room(height, width, areaName, area(tile*), door*, inventoryObject*,
+ *   movableGO*, fixedContainer*, nonHumanPlayer*)* then player
+ *   the layout of the old Parsernew (Save.xml) -- area(name, tile(pos, occupant?)*)* then player
+ *
+ * Neither layout holds the whole game, so the save is migrated: a new game is loaded from the area files and the state the
+ * save does hold is applied to it. Objects are matched by id where the layout has one. Save.xml has no ids, so there doors
+ * are matched by their first side, fixed containers by their position and items by their name and description. Movable
+ * objects and NPCs it cannot tell apart are left where the new game has them.
+ *
+ * These saves are small, so each is read whole into a DOM tree.
+ */
+class LegacySave {
+
+	private static final int MAX_PLAYERS = 4;
+
+	private final SpookySchool game;
+	private final List<InventoryGO> matched = new ArrayList<InventoryGO>();	//Items already matched to one in the save
+	private final Map<Position, String> playerAreas = new HashMap<Position, String>();	//Save.xml: area of each player, by position
+
+	private LegacySave() {
+		this.game = new SpookySchool(MAX_PLAYERS, false);
+	}
+
+	/**
+	 * Migrates a save in one of the old layouts.
+	 *
+	 * @param root -- the game element of the save
+	 * @return a new game with the state held by the save applied to it
+	 * @throws IOException -- if the save is in neither of the old layouts
+	 */
+	static SpookySchool load(Element root) throws IOException {
+		LegacySave save = new LegacySave();
+
+		//Players are read last, once every area has been read.
+		List<Element> players = new ArrayList<Element>();
+		for (Element child : children(root, null)) {
+			switch (child.getTagName()) {
+			case "room":
+				save.loadRoom(child);
+				break;
+			case "area":
+				save.loadArea(child);
+				break;
+			case "player":
+				players.add(child);
+				break;
+			default:
+				throw new IOException("Unexpected element: " + child.getTagName());
+			}
+		}
+
+		for (Element player : players) {
+			save.loadPlayer(player);
+		}
+		return save.game;
+	}
+
+	/** OLD PARSER (saveNew.xml) **/
+
+	/**
+	 * Applies a room of the old Parser's layout. Its tiles come from the area files, only the objects listed after them are
+	 * read.
+	 */
+	private void loadRoom(Element room) {
+		for (Element door : children(room, "door")) {
+			applyDoor(door, findDoor(door.getAttribute("id"), text(door, "sideA"), position(door, "sideAPos")));
+		}
+
+		for (Element item : children(room, "inventoryObject")) {
+			InventoryGO object = this.game.getInventoryObjects().get(item.getAttribute("id"));
+			if (object != null) {
+				moveItem(object, text(item, "areaName"), position(item, "pos"));
+			}
+		}
+
+		for (Element movable : children(room, "movableGO")) {
+			for (MovableGO object : this.game.getMovableObjects()) {
+				if (object.getId().equals(text(movable, "id"))) {
+					moveOccupant(this.game.getArea(object.getAreaName()), object, position(movable, "pos"));
+				}
+			}
+		}
+
+		for (Element container : children(room, "fixedContainer")) {
+			applyContainer(container, this.game.getFixedContainerObjects().get(container.getAttribute("id")));
+		}
+
+		for (Element npc : children(room, "nonHumanPlayer")) {
+			for (NonHumanPlayer object : this.game.getNonHumanPlayers()) {
+				if (object.getPlayerName().equals(text(npc, "name"))
+						&& object.getCurrentArea().getAreaName().equals(text(npc, "areaName"))) {
+					moveOccupant(object.getCurrentArea(), object, position(npc, "pos"));
+				}
+			}
+		}
+	}
+
+	/** OLD PARSERNEW (Save.xml) **/
+
+	/**
+	 * Applies an area of the old Parsernew's layout, whose name is its first text and whose tiles hold its objects.
+	 */
+	private void loadArea(Element area) {
+		String areaName = area.getFirstChild().getNodeValue().trim();
+		if (this.game.getArea(areaName) == null) {
+			return;
+		}
+
+		for (Element tile : children(area, "tile")) {
+			Position pos = position(tile, "pos");
+			List<Element> occupants = children(tile, "occupant");
+			if (pos == null || occupants.isEmpty()) {
+				continue;	//no tile here, or nothing on it
+			}
+
+			Element occupant = occupants.get(0);
+			switch (occupant.getAttribute("objectType")) {
+			case "class game.DoorGO":
+				applyDoor(occupant, findDoor(null, text(occupant, "sideA"), position(occupant, "sideAPos")));
+				break;
+
+			case "class game.FixedContainerGO":
+				for (FixedContainerGO container : this.game.getFixedContainerObjects().values()) {
+					if (areaName.equals(container.getArea()) && pos.equals(container.getPosition())) {
+						applyContainer(occupant, container);
+					}
+				}
+				break;
+
+			case "class game.InventoryGO":
+			case "class game.ContainerGO":
+				InventoryGO item = findItem(text(occupant, "name"), text(occupant, "description"));
+				if (item != null) {
+					moveItem(item, areaName, pos);
+				}
+				break;
+
+			case "class game.Player":
+				this.playerAreas.put(pos, areaName);
+				break;
+
+			default:
+				break;	//part of the area, or cannot be told apart from the others
+			}
+		}
+	}
+
+	/** PLAYERS **/
+
+	/**
+	 * Joins the player to the game and moves them to where they were saved. The old Parser saves the name of their area,
+	 * the old Parsernew only their position, so their area is the one that has a player at that position.
+	 */
+	private void loadPlayer(Element element) {
+		String name = text(element, "name");
+		if (name == null || !this.game.addPlayer(name)) {
+			return;
+		}
+
+		Player player = this.game.getPlayer(name);
+		if (text(element, "description") != null) {
+			player.setDescription(text(element, "description"));
+		}
+
+		Position pos = position(element, "pos");
+		String areaName = text(element, "areaName");
+		if (pos == null) {
+			pos = position(element, "position");
+			areaName = this.playerAreas.get(pos);
+		}
+
+		Area area = areaName == null ? null : this.game.getArea(areaName);
+		if (area != null && pos != null && area.isFloor(pos.getPosX(), pos.getPosY())
+				&& area.getOccupant(pos.getPosX(), pos.getPosY()) == null) {
+			player.getCurrentArea().removeOccupant(player.getPosition().getPosX(), player.getPosition().getPosY());
+			player.setCurrentArea(area);
+			player.setCurrentPosition(pos);
+			area.setOccupant(pos.getPosX(), pos.getPosY(), player);
+		}
+
+		//Only the old Parsernew saves the inventory: a position, name, area name, size and description for each item.
+		for (Element inventory : children(element, "inventory")) {
+			List<Element> fields = children(inventory, null);
+			for (int i = 0; i < fields.size(); i++) {
+				if (!fields.get(i).getTagName().equals("name") || i + 3 >= fields.size()) {
+					continue;
+				}
+				InventoryGO item = findItem(fields.get(i).getTextContent().trim(), fields.get(i + 3).getTextContent().trim());
+				if (item != null) {
+					removeItem(item);
+					player.addToInventory(item);
+				}
+			}
+		}
+	}
+
+	/** GAME OBJECTS **/
+
+	/**
+	 * Finds a door by its id, or if there is none by its first side.
+	 *
+	 * @return the door, or null if the game has no such door
+	 */
+	private DoorGO findDoor(String id, String sideA, Position sideAPos) {
+		for (DoorGO door : this.game.getDoorObjects()) {
+			if (id != null && !id.isEmpty() ? door.getId().equals(id)
+					: door.getSideA().equals(sideA) && door.getSideAPos().equals(sideAPos)) {
+				return door;
+			}
+		}
+		return null;
+	}
+
+	private void applyDoor(Element element, DoorGO door) {
+		if (door != null) {
+			door.setOpen(Boolean.parseBoolean(text(element, "open")));
+			door.setLocked(Boolean.parseBoolean(text(element, "locked")) && door.getKeyID() != null);	//no key, no lock
+		}
+	}
+
+	private void applyContainer(Element element, FixedContainerGO container) {
+		if (container != null) {
+			container.setOpen(Boolean.parseBoolean(text(element, "open")));
+			container.setLocked(Boolean.parseBoolean(text(element, "locked")) && container.getKeyID() != null);
+		}
+	}
+
+	/**
+	 * Finds an item that has not been matched yet by its name and description.
+	 *
+	 * @return the item, or null if there is no such item left
+	 */
+	private InventoryGO findItem(String name, String description) {
+		for (InventoryGO item : this.game.getInventoryObjects().values()) {
+			if (!this.matched.contains(item) && item.getName().equals(name)
+					&& item.getDescription().trim().equals(description)) {
+				this.matched.add(item);
+				return item;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Moves an item to the given tile, from wherever the new game has it. Items whose tile is not free are left alone.
+	 */
+	private void moveItem(InventoryGO item, String areaName, Position pos) {
+		Area area = areaName == null ? null : this.game.getArea(areaName);
+		if (area == null || pos == null || pos.equals(item.getPosition()) && areaName.equals(item.getAreaName())
+				|| !area.isFloor(pos.getPosX(), pos.getPosY()) || area.getOccupant(pos.getPosX(), pos.getPosY()) != null) {
+			return;
+		}
+
+		removeItem(item);
+		item.setAreaName(areaName);
+		item.setCurrentPosition(pos);
+		area.setOccupant(pos.getPosX(), pos.getPosY(), item);
+	}
+
+	/**
+	 * Takes an item off its tile, or out of the container holding it.
+	 */
+	private void removeItem(InventoryGO item) {
+		if (item.getAreaName() != null && item.getPosition() != null) {
+			Area area = this.game.getArea(item.getAreaName());
+			if (area != null && area.getOccupant(item.getPosition().getPosX(), item.getPosition().getPosY()) == item) {
+				area.removeOccupant(item.getPosition().getPosX(), item.getPosition().getPosY());
+			}
+		}
+
+		for (FixedContainerGO container : this.game.getFixedContainerObjects().values()) {
+			container.removeItem(item);
+		}
+		for (InventoryGO other : this.game.getInventoryObjects().values()) {
+			if (other instanceof ContainerGO) {
+				((ContainerGO) other).removeItem(item);
+			}
+		}
+
+		item.setAreaName(null);
+		item.setCurrentPosition(null);
+	}
+
+	/**
+	 * Moves an object within its area to the given tile, if that tile is free.
+	 */
+	private void moveOccupant(Area area, GameObject object, Position pos) {
+		Position from = object.getPosition();
+		if (area == null || pos == null || pos.equals(from) || !area.isFloor(pos.getPosX(), pos.getPosY())
+				|| area.getOccupant(pos.getPosX(), pos.getPosY()) != null) {
+			return;
+		}
+
+		area.removeOccupant(from.getPosX(), from.getPosY());
+		if (object instanceof Player) {
+			((Player) object).setCurrentPosition(pos);
+		} else {
+			((MovableGO) object).setCurrentPosition(pos);
+		}
+		area.setOccupant(pos.getPosX(), pos.getPosY(), object);
+	}
+
+	/** ELEMENTS **/
+
+	/**
+	 * @return the child elements of the given element with the given tag, or all of them if the tag is null
+	 */
+	private static List<Element> children(Element parent, String tag) {
+		List<Element> children = new ArrayList<Element>();
+		for (Node child = parent.getFirstChild(); child != null; child = child.getNextSibling()) {
+			if (child instanceof Element && (tag == null || ((Element) child).getTagName().equals(tag))) {
+				children.add((Element) child);
+			}
+		}
+		return children;
+	}
+
+	/**
+	 * @return the trimmed text of the first child element with the given tag, or null if there is none
+	 */
+	private static String text(Element parent, String tag) {
+		List<Element> children = children(parent, tag);
+		return children.isEmpty() ? null : children.get(0).getTextContent().trim();
+	}
+
+	/**
+	 * @return the position held by the x and y of the first child element with the given tag, or null if there is none
+	 */
+	private static Position position(Element parent, String tag) {
+		List<Element> children = children(parent, tag);
+		if (children.isEmpty() || text(children.get(0), "x") == null) {
+			return null;
+		}
+		return Position.of(Integer.parseInt(text(children.get(0), "x")), Integer.parseInt(text(children.get(0), "y")));
+	}
+}
@@ -1,14 +1,10 @@
 package parser;
 
-import org.w3c.dom.*;
-import org.xml.sax.SAXException;
-
 import game.Area;
 import game.ContainerGO;
 import game.DoorGO;
 import game.FixedContainerGO;
 import game.FixedGO;
-import game.FloorTile;
 import game.GameObject;
 import game.InventoryGO;
 import game.MarkerGO;
@@ -17,45 +13,67 @@ import game.NonHumanPlayer;
 import game.Player;
 import game.Position;
 import game.SpookySchool;
-import game.Tile;
-import game.WallTile;
-
-import javax.swing.plaf.basic.BasicInternalFrameTitlePane.MoveAction;
-import javax.xml.parsers.*;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerConfigurationException;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.dom.DOMResult;
+import javax.xml.transform.stax.StAXSource;
 
-import java.io.*;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * Saves the state of a SpookySchool game to XML and loads it back. Both directions are streamed with StAX: each room is
+ * written out as its tiles are walked, and read back element by element, so the whole document is never held in memory.
+ *
+ * Every game object is written in full the first time it is seen, tagged with a reference number, and as a ref element
+ * after that. Objects that appear more than once (a door in both of its rooms, a player in a room and in the player list)
+ * are therefore shared again when the game is loaded.
+ *
+ * Layout of the document:
+ *   game(version, maxPlayers)
+ *     room(name, width, height)* -- owner(object?) then tile(x, y, type, token)* each holding its occupant
+ *     players, nonHumanPlayers, doors, movables -- lists of objects
+ *     inventoryObjects, fixedContainers -- entry(key)* each holding an object
+ *
+ * Saves written before the document had a version, by the old DOM savers, are migrated when they are loaded (see
+ * LegacySave).
+ */
 public class Parser {
-	
-	//Load related Fields
-	private Document load;
-	private List <MovableGO> movablesToLoad;	//List of MovableGameObjects that need to be loaded
-	private List <DoorGO> doorsToLoad;		//List of DoorGameObjects that need to be loaded
-	private List <InventoryGO> inventsToLoad;		//List of InventoryGameObjects that need to be loaded
-	private List <FixedContainerGO> fixedContsToLoad;	//List of FixedContainerGameObjects to be loaded
-	
+
+	private static final String DEFAULT_FILE = "saveNew.xml";
+	private static final int VERSION = 1;
+
 	//Save related Fields
-	private Document save;		//DOM structure for saving
-	private Element root;	//root Node for the save file
-	private List<DoorGO> doors; 	//list of Door objects that are currently in the Game
-	private Player saver;		//The Player that requested the Save operation
-	private List<MovableGO> movables; //list of MovableGameObjects that are currently in the Game
-	private List<NonHumanPlayer> nonHumans;		//List of NonHumanPlayer Objects currently in the Game
-	private Map<String, InventoryGO> inventObjects;		//Map of all InventoryGameObjects currently in the Game. Map is name of the item to the Item itself
-	private List<InventoryGO> saversInvent;		//List of InventoryItems that the Player that requested the save holds
-	private List<InventoryGO> itemsInContainers;	//List of all the items held in Containers in the game
-	private Map<String, FixedContainerGO> fixedContainers;	//Map of all fixedContainers in the Game. Map is the name of the Container to the Container.
-	
+	private XMLStreamWriter out;	//Writer for the save file
+	private Map<GameObject, Integer> written;	//Reference number of every object written so far
+
+	//Load related Fields
+	private XMLStreamReader in;		//Reader for the save file
+	private List<GameObject> read;	//Objects read so far, by reference number
+	private Map<Player, String> playerAreas;	//Name of the area of every player read, set once all areas exist
+
 	/**
 	 * COnstructor for the XML Parser which will handle the saving and loading of save states for the Game.
 	 * 
@@ -63,848 +81,621 @@ public class Parser {
 	 * 
 	 */
 	public Parser(){
-		
-	}
-	/**
-	 * Creates a DOM document structure in memory for the program. 
-	 * This is for saving the game state to an XML file.
-	 * 
-	 * @return Document -- the DOM Document structure to be Saved
-	 */
-	private Document createDocument(){
-		try{
-			DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();	//create an instance of the DocumentBuilderFactory
-			DocumentBuilder builder = factory.newDocumentBuilder();		//use the factory to make a builder to create a Document
-			Document doc = builder.newDocument();	//create a DOM Document
-			
-			return doc;		//return the newly-made DOM Structure
-			
-		}catch(ParserConfigurationException e){		//Catch the exception thrown by the DocumentBuilderFactory
-			e.printStackTrace();			//Print stack trace
-		}
-		return null;	//should never get here, just to the class compile
+
 	}
-	
+
 	/**
-	 * Main method for saving the game state of the SpookySchool game. From this method, relevant details about the Game are stored and then 
-	 * recorded onto an XML file through extra modular methods.
-	 * 
-	 * Holds a private nature as this is the method called from the SpookySchool class to initiate the saving command.
-	 * 
+	 * Saves the given game to saveNew.xml.
+	 *
 	 * @param game -- The current instance of the running SpookySchool game
-	 * @param playerName -- Name of the player that requested the save command. This players details are what will be saved, along with 
-	 * 						the rest of the Game Objects.
+	 * @param playerName -- Name of the player that requested the save command. Every player is saved, along with the rest of
+	 * 						the Game Objects.
 	 */
 	public void save(SpookySchool game, String playerName){
-		
-		save = createDocument();	//creates a workable DOM Document where the XML Tree is saved
-		root = save.createElement("game");		//create the root node for the XML file
-		
-		Map<String, Area> areas = game.getAreas();	//Get all the different rooms in the Game. Map is from areaName to Area
-		List<Player> players = game.getPlayers();	//Get all the Players currently in the Game
-		this.inventObjects = game.getInventoryObjects();	//Get all the InventoryGO currently in the game
-		this.doors = game.getDoorObjects();		//Get all the DoorGOs currently in the Game
-		this.saver = determinePlayer(playerName, players);	//Find the Player object for the player that saved the Game
-		this.movables = game.getMovableObjects();	//Get all the MovableGOs currently in the Game
-		this.nonHumans = game.getNonHumanPlayers();	//Get all the NonHumanPlayers currently in the Game
-		this.fixedContainers = game.getFixedContainerObjects();		//Get all the FixedContainerObjects currently in the Game
-		
-		saveMap(areas);		//Save the current Game Map, i.e: all the different rooms in the Game
-		
-		createXML();	//Output the DOM structure to be transformed into an XML file
-	}
-	
-	/**
-	 * Main method for loading an instance of a game state into the program to be played with by the user. For this method, a new XML is
-	 * loaded into memory as a workable DOM structure, and parsed with the help of modular methods to create a SpookySchool instance
-	 * that can be played.
-	 * 
-	 */
-	public void load(){
-		load = loadXML();		//Load the Save file as an XML, and extract the workable DOM strcuture from it
-		
-		
-	}
-	
-	/**
-	 * Extracts the Player object that corresponds to the playerName string passed into it.
-	 * 
-	 * @param playerName -- String, name of the player who saved the game, and whose Player object is to be returned
-	 * @param players -- List of all the Player objects held in the current Game.
-	 * @return p -- the Player object whose name matches the given playerName
-	 */
-	private Player determinePlayer(String playerName, List<Player> players){
-		for (Player p : players){		//iterate through each Player in the list of players
-			if (p.getPlayerName().equals(playerName)){	//if the Player's name matches the given playerName
-				return p;		//return this player
-			}
+		try {
+			save(game, Paths.get(DEFAULT_FILE));
+		} catch (IOException e) {
+			e.printStackTrace();
 		}
-		return null; 	//should not get here, just to make it compile
 	}
-	
+
 	/**
-	 * Saves the entire map of the current Game by iterating through each Area and saving the fields of that Area.
-	 * 
-	 * @param areas -- Map of all the rooms in the Game. Map is from areaName to the Area itself
+	 * Saves the given game to the given file. The caller must make sure the game does not change while it is being saved.
+	 *
+	 * @param game -- the game to save
+	 * @param file -- the file to write to
+	 * @throws IOException -- if the file cannot be written
 	 */
-	private void saveMap(Map<String, Area> areas){
-		for (String key : areas.keySet()){		//iterate through each areaName in the Map
-			Area currentArea = areas.get(key);		//the area to work with
-			root.appendChild(saveArea(currentArea));	//get the grid of the Area as a Node with children, and append it to the root.
+	public void save(SpookySchool game, Path file) throws IOException {
+		try (OutputStream stream = new BufferedOutputStream(Files.newOutputStream(file))) {
+			save(game, stream);
 		}
-		root.appendChild(savePlayer());	//after saving the whole game map, save the player details to the root
-		save.appendChild(root);		//append the root to the DOM document structure to be transformed into an XML
 	}
-	
-	/**
-	 * Save each room of the Game, including the height and width of the grid "area", the name of the Area, and all GameObjects that are
-	 * in the room.
-	 * 
-	 * @param currentArea -- the current Area that is to be saved 
-	 * @return -- the Element roomNode with all relevant data for the room saved as its children
-	 */
-	private Element saveArea(Area currentArea){
-		Element roomNode = save.createElement("room");		//create the node "room". Holds all subsequent data in this method as a child
-		Element heightNode = save.createElement("height");		//create node "height"
-		Element widthNode = save.createElement("width");		//create the node "width"
-		
-		heightNode.appendChild(save.createTextNode("" + currentArea.getArea()[0].length));	//record the height of the area
-		widthNode.appendChild(save.createTextNode("" + currentArea.getArea().length)); //record the width of the area
-		
-		Element areaNameNode = save.createElement("areaName");	//create a node to represent the name of the room
-		areaNameNode.appendChild(save.createTextNode(currentArea.getAreaName())); //append the name of the room to the areaName node
-		
-		roomNode.appendChild(heightNode);	//append the height to the room node
-		roomNode.appendChild(widthNode);	//append the width to the room node
-		roomNode.appendChild(areaNameNode);		//append the areaName to the room node
-		
-		Element areaNode  = save.createElement("area");	//create a node to represent the grid 
-		roomNode.appendChild(areaNode);		//append the grids node to the roomNode so its a part of that room
-		
-		saveTiles(currentArea, areaNode);	//save all the tiles in the area grid and append it to the areaNode
-		saveDoors(currentArea, roomNode);	//save all the doors in the room and append it to the roomNode
-		saveMovables(currentArea, roomNode);	//save all the movableGOs in the room and append it to the roomNode
-		saveNonHumans(currentArea, roomNode);	//save all the NonHumanPlayers in the room and append it to the roomNode
-		saveInventoryGameObjects(currentArea, roomNode);	//save all the inventoryGOs in the room and append it to the roomNode
-		saveFixedContainers(currentArea, roomNode);		//save all the fixedContainerGOs in the room and append it o the roomNode
-		
-				
-		return roomNode;	//return the roomNode with all its children to be appended to the root
-	}
-	
+
 	/**
-	 * Saves each Tile in the 2D-array of Tiles in an Area, including WallTiles and FloorTiles as well as null tiles (Tiles that do
-	 * are not a Floor or Wall Tile). Also saves the fixed position occupant of the Tile, i.e: saves the FixedGO and MarkerGO that is 
-	 * on the FloorTile.
-	 * 
-	 * @param currentArea -- The current Area object that is being saved.
-	 * @param currentParent -- The parent Node to be attached.
+	 * Streams the given game as XML to the given stream.
+	 *
+	 * @param game -- the game to save
+	 * @param stream -- the stream to write to. Not closed by this method.
+	 * @throws IOException -- if the game cannot be written
 	 */
-	private void saveTiles(Area currentArea, Element currentParent){
-		
-		for(int i = 0; i < currentArea.getArea().length; i++){		//iterate through the 2D-array, so essentially iterate through every Tile
-			for (int j = 0; j < currentArea.getArea()[i].length; j++){
-				Element tileNode = save.createElement("tile");		//Create a Tile Node
-				Tile currentTile = currentArea.getArea()[i][j];		//Take a record of the current Tile
-				
-				if (currentTile == null){		//if the currentTile is a null Tiles
-					tileNode.setAttribute("tileType", "black");		//record that it is a "black tile"
-					tileNode.appendChild(save.createTextNode("null"));	//say it contains nothing
-					currentParent.appendChild(tileNode);	//append the Tile to the room
-				}else{
-					if(currentTile instanceof WallTile){		//if the Tile is a WallTile
-						tileNode.setAttribute("tileType", "WallTile");	//record that it is a WallTile
-						
-					}else if(currentTile instanceof FloorTile){		//if the Tile is a FloorTile
-						tileNode.setAttribute("tileType", "FloorTile");		//record that it is a a FloorTile
-						GameObject occupant = currentTile.getOccupant();	//get the GameObjec that is on the Tile
-						Element occupantNode = save.createElement("occupant");	//create a node for this Occupant
-						if(occupant != null){		//as long as there IS an occupant
-							occupantNode.setAttribute("objectType", occupant.getClass().toString().substring(11)); //record the objectType of the
-																				//occupant and format the string to remove unwanted tokens
-						}
-						
-						if(occupant instanceof FixedGO){		//if the occupant is a FixedGameObject, save its fields as nodes
-							occupantNode.appendChild(saveID(occupant));		//save the ID and append to the occupantNode
-							occupantNode.appendChild(saveToken(occupant));		//save the token and append to the occupantNode
-							occupantNode.appendChild(savePosition(occupant));		//save the position and append to the occupantNode
-							occupantNode.appendChild(saveDescription(occupant));		//save the description and append to the occupantNode
-							
-							tileNode.appendChild(occupantNode);		//append the occupantNode and its children to the current tileNode
-							
-						}else if(occupant instanceof MarkerGO){
-							occupantNode.appendChild(savePosition(occupant));		//save the position and append to the occupantNode
-							occupantNode.appendChild(saveBaseGameObject(occupant));		//save the BaseGameObject and append to the occupantNode
-							
-							tileNode.appendChild(occupantNode);			//append the occupantNode and its children to the current tileNode			
-						}
-					}
-					tileNode.appendChild(savePosition(currentTile));		//as long as the occupant isn't null, append the currentTile to the tileNode
-																			//NOTE: Tiles without an occupant have already been appended
-					currentParent.appendChild(tileNode);		//append the tileNode to the roomNode (the parent)
-				}
+	public void save(SpookySchool game, OutputStream stream) throws IOException {
+		this.written = new IdentityHashMap<GameObject, Integer>();
+
+		try {
+			this.out = XMLOutputFactory.newInstance().createXMLStreamWriter(stream, "UTF-8");
+			out.writeStartDocument("UTF-8", "1.0");
+			out.writeCharacters("\n");
+			out.writeStartElement("game");
+			out.writeAttribute("version", "" + VERSION);
+			out.writeAttribute("maxPlayers", "" + game.getMaxPlayers());
+			out.writeCharacters("\n");
+
+			for (Area area : game.getAreas().values()) {
+				saveArea(area);		//each room is streamed out as its tiles are walked
 			}
-		}	
+
+			saveList("players", game.getPlayers());
+			saveList("nonHumanPlayers", game.getNonHumanPlayers());
+			saveList("doors", game.getDoorObjects());
+			saveList("movables", game.getMovableObjects());
+			saveMap("inventoryObjects", game.getInventoryObjects());
+			saveMap("fixedContainers", game.getFixedContainerObjects());
+
+			out.writeEndElement();
+			out.writeEndDocument();
+			out.flush();
+			out.close();
+
+		} catch (XMLStreamException e) {
+			throw new IOException(e);
+		} finally {
+			this.out = null;
+			this.written = null;
+		}
 	}
-	
+
 	/**
-	 * Saves the fields held by the Player who saved the Game. These fields are saved as child nodes to a parent "player" node, which is then
-	 * appended to the main game node in the XML
-	 * 
-	 * @return	player -- Element that represents the player, with child nodes representing the fields.
+	 * Loads the game saved in saveNew.xml.
+	 *
+	 * @return the game in the state it was saved in
+	 * @throws IOException -- if the file cannot be read or is not a valid save
 	 */
-	private Element savePlayer(){
-		Element player = save.createElement("player");		//create an element to represent the player who saved the Game
-		player.appendChild(saveName(saver));		//save the name and append it to the playerNode
-		player.appendChild(saveAreaName(saver));		//save the areaName and append it to the playerNode
-		player.appendChild(savePosition(saver));		//save the Position and append it to the playerNode
-		player.appendChild(saveToken(saver));		//save the token and append it to the playerNode
-		player.appendChild(saveDescription(saver));		//save the description and append it to the playerNode
-	
-		return player;		//return the player to be appended to the gameNode
+	public SpookySchool load() throws IOException {
+		return load(Paths.get(DEFAULT_FILE));
 	}
-	
+
 	/**
-	 * Save the fields for each fixedContainerGO in the Game. These fields are saved as child nodes to a parent "fixedContainer" node, which is then
-	 * appended to the room node in the XML.
-	 * 
-	 * @param currentArea -- the current Area that is being saved
-	 * @param roomNode -- the parent Element that represents the room being saved.
+	 * Loads the game saved in the given file.
+	 *
+	 * @param file -- the save file
+	 * @return the game in the state it was saved in
+	 * @throws IOException -- if the file cannot be read or is not a valid save
 	 */
-	private void saveFixedContainers(Area currentArea, Element roomNode){
-		
-		for(String key : fixedContainers.keySet()){		//iterate over the keys for the Map of fixedContainers
-			FixedContainerGO currentFixedContainer = fixedContainers.get(key);		//establish a currentContainter
-			
-			if(currentFixedContainer.getArea().equals(currentArea.getAreaName())){		//if the container is in the currentArea
-				Element fixedContainerNode = save.createElement("fixedContainer");		//create an element to represent it
-				fixedContainerNode.setAttribute("id", currentFixedContainer.getId());	//mark it with an id attribute based on the containerID
-				
-				fixedContainerNode.appendChild(saveName(currentFixedContainer));	//create nodes for each field of the container and append them
-				fixedContainerNode.appendChild(saveAreaName(currentFixedContainer));		//to the fixedContainerNode
-				fixedContainerNode.appendChild(saveID(currentFixedContainer));
-				fixedContainerNode.appendChild(saveToken(currentFixedContainer));
-				fixedContainerNode.appendChild(saveOpen(currentFixedContainer));
-				fixedContainerNode.appendChild(saveLocked(currentFixedContainer));
-				fixedContainerNode.appendChild(saveKeyID(currentFixedContainer));
-				fixedContainerNode.appendChild(savePosition(currentFixedContainer));
-				fixedContainerNode.appendChild(saveSize(currentFixedContainer));
-				fixedContainerNode.appendChild(saveContents(currentFixedContainer));
-				fixedContainerNode.appendChild(saveSizeRemaining(currentFixedContainer));
-				
-				roomNode.appendChild(fixedContainerNode);		//append the containerNode and its children to the roomNode
-			}
+	public SpookySchool load(Path file) throws IOException {
+		try (InputStream stream = new BufferedInputStream(Files.newInputStream(file))) {
+			return load(stream);
 		}
 	}
-	
+
 	/**
-	 * Saves all the InventoryGO in the current Area and all their field values. These values are saved as child nodes appended to a node to represent the
-	 * current item.
-	 * 
-	 * @param currentArea -- the current Area where the items are checked to exist.
-	 * @param roomNode -- the Node to which each item will be appended to.
+	 * Loads a game from XML read from the given stream.
+	 *
+	 * @param stream -- the stream to read from. Not closed by this method.
+	 * @return the game in the state it was saved in
+	 * @throws IOException -- if the stream does not hold a valid save
 	 */
-	private void saveInventoryGameObjects(Area currentArea, Element roomNode){
-		
-		saversInvent = saver.getInventory();		//get the Player who saved the game's inventory
-		itemsInContainers = new ArrayList<>();		//initialize the list to remember which items remain in containers
-		
-		for (String key : inventObjects.keySet()){		//iterate through the keys in the Map of InventoryGOs
-			InventoryGO currentObject = inventObjects.get(key);	//establish a currentObject to work with
-			
-			if(currentObject.getPosition() != null){	//inventory item is on the floor, not being held
-				
-				Element inventoryObject = save.createElement("inventoryObject");	//create a node to represent the current item
-				inventoryObject.setAttribute("id", currentObject.getId());	//mark the item with an id attribute 
-				
-				inventoryObject.appendChild(saveName(currentObject));		//save each of the fields for the currentItem, appending each of them
-				inventoryObject.appendChild(saveID(currentObject));				//to the inventoryObject node
-				inventoryObject.appendChild(saveToken(currentObject));
-				inventoryObject.appendChild(saveAreaName(currentObject));
-				inventoryObject.appendChild(saveSize(currentObject));
-				inventoryObject.appendChild(savePosition(currentObject));
-				inventoryObject.appendChild(saveDescription(currentObject));
-				
-				roomNode.appendChild(inventoryObject);		//append the object Node to the parentRoom
-			}else{			//otherwise, if item is not on the floor,
-				if(!saversInvent.contains(currentObject)){	//and not in the inventory, it must be in a container
-					itemsInContainers.add(currentObject);	//so add it to the list of items in containers
+	public SpookySchool load(InputStream stream) throws IOException {
+		this.read = new ArrayList<GameObject>();
+		this.playerAreas = new IdentityHashMap<Player, String>();
+
+		try {
+			XMLInputFactory factory = XMLInputFactory.newInstance();
+			factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);	//old saves name a save.dtd that does not exist
+			this.in = factory.createXMLStreamReader(stream);
+			while (in.next() != XMLStreamConstants.START_ELEMENT) {
+				//skip the prolog
+			}
+			in.require(XMLStreamConstants.START_ELEMENT, null, "game");
+			if (in.getAttributeValue(null, "version") == null) {
+				return LegacySave.load(loadTree());
+			}
+			if (intAttribute("version") != VERSION) {
+				throw new IOException("Unsupported save version: " + in.getAttributeValue(null, "version"));
+			}
+			int maxPlayers = intAttribute("maxPlayers");
+
+			Map<String, Area> areas = new HashMap<String, Area>();
+			List<Player> players = new ArrayList<Player>();
+			List<NonHumanPlayer> nonHumanPlayers = new ArrayList<NonHumanPlayer>();
+			List<DoorGO> doors = new ArrayList<DoorGO>();
+			List<MovableGO> movables = new ArrayList<MovableGO>();
+			Map<String, InventoryGO> inventoryObjects = new LinkedHashMap<String, InventoryGO>();
+			Map<String, FixedContainerGO> fixedContainers = new LinkedHashMap<String, FixedContainerGO>();
+
+			while (in.nextTag() == XMLStreamConstants.START_ELEMENT) {
+				switch (in.getLocalName()) {
+				case "room":
+					Area area = loadArea();
+					areas.put(area.getAreaName(), area);
+					break;
+				case "players":
+					loadList(players, Player.class);
+					break;
+				case "nonHumanPlayers":
+					loadList(nonHumanPlayers, NonHumanPlayer.class);
+					break;
+				case "doors":
+					loadList(doors, DoorGO.class);
+					break;
+				case "movables":
+					loadList(movables, MovableGO.class);
+					break;
+				case "inventoryObjects":
+					loadMap(inventoryObjects, InventoryGO.class);
+					break;
+				case "fixedContainers":
+					loadMap(fixedContainers, FixedContainerGO.class);
+					break;
+				default:
+					throw new IOException("Unexpected element: " + in.getLocalName());
 				}
 			}
+
+			//Players can be read before their area (e.g. as the owner of a spawn room), so their areas are set last.
+			for (Map.Entry<Player, String> entry : playerAreas.entrySet()) {
+				entry.getKey().setCurrentArea(areas.get(entry.getValue()));
+			}
+
+			return new SpookySchool(maxPlayers, areas, players, nonHumanPlayers, doors, movables, inventoryObjects,
+					fixedContainers);
+
+		} catch (XMLStreamException | RuntimeException e) {
+			throw new IOException("Invalid save file", e);
+		} finally {
+			this.in = null;
+			this.read = null;
+			this.playerAreas = null;
 		}
 	}
-	
+
 	/**
-	 * Saves all the NonHumanPlayers in the game and their field values to their respective Areas in the XML.
-	 * 
-	 * @param currentArea -- the current Area where the NonHumanPlayer is checked to exist in
-	 * @param roomNode -- the Node to which each NonHumnPlayer will be appended to
-	 */
-	private void saveNonHumans(Area currentArea, Element roomNode){
-		for (NonHumanPlayer nhp : nonHumans){		//iterate through the list of NonHumans
-			if (nhp.getCurrentArea().getAreaName().equals(currentArea.getAreaName())){	//if their name matches the name of the Area,
-																						//then it should be saved here
-				Element nonHumanNode = save.createElement("nonHumanPlayer");	//create a node to represent it
-				nonHumanNode.setAttribute("name", nhp.getPlayerName());		//mark it with the attribute name to identify it
-				nonHumanNode.appendChild(saveName(nhp));					//save the nhp's respective fields and append them to the nonHumanNode
-				nonHumanNode.appendChild(saveNonHumanSpawnName(nhp));
-				nonHumanNode.appendChild(saveAreaName(nhp));
-				nonHumanNode.appendChild(savePosition(nhp));
-				
-				roomNode.appendChild(nonHumanNode);		//append the nonHuman node and its children to the parent roomNode
-				
-			}
+	 * Reads the element the reader is on, and everything in it, into a DOM tree.
+	 *
+	 * @return the element that was read
+	 */
+	private Element loadTree() throws IOException {
+		try {
+			DOMResult result = new DOMResult();
+			TransformerFactory.newInstance().newTransformer().transform(new StAXSource(in), result);
+			return ((Document) result.getNode()).getDocumentElement();
+		} catch (TransformerException e) {
+			throw new IOException("Invalid save file", e);
 		}
 	}
-	
+
+	/** ROOMS **/
+
 	/**
-	 * Saves all the Movable Game Objects in the game and their field values to their respective Areas in the XML
-	 * 
-	 * @param currentArea -- the current Area where the NonHumanPlayer is checked to exist in
-	 * @param roomNode -- the Node to which each NonHumnPlayer will be appended to
+	 * Streams out a room: its size and name, its owner, then every tile with the object on it.
+	 *
+	 * @param area -- the Area to save
 	 */
-	private void saveMovables(Area currentArea, Element roomNode){
-		for (MovableGO object : movables){		//iterate through the list of movableObjects
-			if(object.getAreaName().equals(currentArea.getAreaName())){		//if the areaName of the object matches the name of the current Area
-				Element movableNode = save.createElement("movableGO");	//create a node to represent it
-				
-				movableNode.appendChild(saveID(object));		//save the movable's respective fields and append them to the movableNode 
-				movableNode.appendChild(saveToken(object));
-				movableNode.appendChild(saveAreaName(object));
-				movableNode.appendChild(savePosition(object));
-				movableNode.appendChild(saveDescription(object));
-				
-				roomNode.appendChild(movableNode);	//append the movable node and its children to the parent roomNode
+	private void saveArea(Area area) throws XMLStreamException, IOException {
+		out.writeStartElement("room");
+		out.writeAttribute("name", area.getAreaName());
+		out.writeAttribute("width", "" + area.width);
+		out.writeAttribute("height", "" + area.height);
+		out.writeCharacters("\n");
+
+		if (area.hasOwner()) {
+			out.writeStartElement("owner");
+			saveObject(area.getOwner());
+			out.writeEndElement();
+			out.writeCharacters("\n");
+		}
+
+		for (int y = 0; y < area.height; y++) {
+			for (int x = 0; x < area.width; x++) {
+				if (!area.hasTile(x, y)) {
+					continue;	//no tile here, nothing to save
+				}
+
+				GameObject occupant = area.getOccupant(x, y);
+				if (occupant == null) {
+					out.writeEmptyElement("tile");
+				} else {
+					out.writeStartElement("tile");
+				}
+				out.writeAttribute("x", "" + x);
+				out.writeAttribute("y", "" + y);
+				out.writeAttribute("type", area.isFloor(x, y) ? "floor" : "wall");
+				out.writeAttribute("token", area.getToken(x, y));
+
+				if (occupant != null) {
+					saveObject(occupant);
+					out.writeEndElement();
+				}
+				out.writeCharacters("\n");
 			}
 		}
+
+		out.writeEndElement();
+		out.writeCharacters("\n");
 	}
-	
+
 	/**
-	 * Saves all the Door Game Objects in the game and their field values to their respective Areas in the XML.
-	 * 
-	 * @param currentArea -- the current Area where the NonHumanPlayer is checked to exist in
-	 * @param roomNode -- the Node to which each NonHumnPlayer will be appended to
+	 * Reads a room, with the reader on its start element. Leaves the reader on its end element.
+	 *
+	 * @return the Area that was read
 	 */
-	private void saveDoors(Area currentArea, Element roomNode){
-		
-		for(DoorGO door : doors){			//iterate through the list of Doors
-			if (door.getSideA().equals(currentArea.getAreaName())){ 	//if the door is in the currentArea
-				Element doorNode = save.createElement("door");		//create a node to represent it
-				doorNode.setAttribute("id", door.getId());		//mark this doorNode with an id attribute
-				
-				doorNode.appendChild(saveID(door));				//save the door's respective fields and append them to the doorNode  
-				doorNode.appendChild(saveOpen(door));
-				doorNode.appendChild(saveLocked(door));
-				doorNode.appendChild(saveKeyID(door));
-				doorNode.appendChild(saveDescription(door));
-				
-				doorNode.appendChild(saveSideA(door));
-				doorNode.appendChild(saveTokenA(door));
-				doorNode.appendChild(saveSideAPos(door));
-				doorNode.appendChild(saveSideAEntryPos(door));
-				
-				doorNode.appendChild(saveSideB(door));
-				doorNode.appendChild(saveTokenB(door));
-				doorNode.appendChild(saveSideBPos(door));
-				doorNode.appendChild(saveSideBEntryPos(door));
-				
-				roomNode.appendChild(doorNode);			//append the door node and its children to the parent roomNode
+	private Area loadArea() throws XMLStreamException, IOException {
+		Area area = new Area(in.getAttributeValue(null, "name"), intAttribute("width"), intAttribute("height"));
+
+		while (in.nextTag() == XMLStreamConstants.START_ELEMENT) {
+			if (in.getLocalName().equals("owner")) {
+				in.nextTag();
+				area.setOwner((Player) loadObject());
+				in.nextTag();	//end of owner
+				continue;
+			}
+
+			in.require(XMLStreamConstants.START_ELEMENT, null, "tile");
+			int x = intAttribute("x");
+			int y = intAttribute("y");
+			area.setTile(x, y, in.getAttributeValue(null, "type").equals("floor"), in.getAttributeValue(null, "token"));
+
+			if (in.nextTag() == XMLStreamConstants.START_ELEMENT) {
+				area.setOccupant(x, y, loadObject());
+				in.nextTag();	//end of tile
 			}
 		}
+
+		return area;
 	}
-	
-	/**
-	 * Saves the spawn name of a NonHumanPlayer into a node
-	 * 
-	 * @param nhp -- the NonHumanPlayer whose name is required
-	 * @return spawnName -- the Node with the NonHumanPlayers spawnName
-	 */
-	private Element saveNonHumanSpawnName(NonHumanPlayer nhp){
-		Element spawnName = save.createElement("spawnName");	//create a node called spawnName
-		Text value = save.createTextNode("null");	//NonHumans do not have a spawn name, so append the String "null" to avoid NullPointers
-		spawnName.appendChild(value);	//append the two Nodes
-		return spawnName; 	//return the final Node
-	}
-	
-	/**
-	 * Save the "A side" of a given door. DoorGOs have two sides, so the sideA refers to one of these sides.
-	 * 
-	 * @param door -- the DoorGO whose side is required
-	 * @return sideA -- the Node containing the DoorGOs sideA
-	 */
-	private Element saveSideA(DoorGO door){
-		Element sideA = save.createElement("sideA");	//create a node called sideA
-		Text value = save.createTextNode(door.getSideA());		//create a node with the doors sideA value
-		sideA.appendChild(value);	//append the two Nodes
-		return sideA;		//return the final Node
-	}
-	
-	/**
-	 * Save the "B side" of a given door. DoorGOs have two sides, so the sideB refers to one of these sides.
-	 * 
-	 * @param door -- the DoorGO whose side is required
-	 * @return sideB -- the Node containing the DoorGOs sideB
-	 */
-	private Element saveSideB(DoorGO door){
-		Element sideB = save.createElement("sideB");	//create a node called sideB
-		Text value = save.createTextNode(door.getSideB());		//create a node with the doors sideB value
-		sideB.appendChild(value);	//append the two Nodes
-		return sideB;		//return the final Node
-	}
-	
-	/**
-	 * Save the "A side" token of the door.
-	 * 
-     * @param door -- the DoorGO whose token is required
-	 * @return tokenA -- the Node containing the DoorGOs sideAToken
-	 */
-	private Element saveTokenA(DoorGO door){
-		Element tokenA = save.createElement("tokenA");		//create a node
-		Text value = save.createTextNode(door.getTokenA());		//create a node to hold the value
-		tokenA.appendChild(value);		//append the two Nodes
-		return tokenA;		//return the final Node
-	}
-	
-	/**
-	 * Save the "B side" token of the door.
-	 * 
-     * @param door -- the DoorGO whose token is required
-	 * @return tokenB -- the Node containing the DoorGOs sideBToken
-	 */
-	private Element saveTokenB(DoorGO door){
-		Element tokenB = save.createElement("tokenB");	//create a node
-		Text value = save.createTextNode(door.getTokenB());		//create a node to hold the value
-		tokenB.appendChild(value);		//append the final Node
-		return tokenB;		//return the final Node
-	}
-	
-	/**
-	 * Save the "A side" position of the door.
-	 * 
-     * @param door -- the DoorGO whose position is required
-	 * @return sideAPos -- the Node containing the DoorGOs sideAPosition
-	 */
-	private Element saveSideAPos(DoorGO door){
-		Element sideAPos = save.createElement("sideAPos");	//create a node for the Position
-		Element x = save.createElement("x");		//create a node for x
-		Element y = save.createElement("y");		//create a node for y
-		x.appendChild(save.createTextNode("" + door.getSideAPos().getPosX())); //find and append the value for x
-		y.appendChild(save.createTextNode("" + door.getSideAPos().getPosY())); //find and append the value for y
-		sideAPos.appendChild(x);	//append x to Position
-		sideAPos.appendChild(y);	//append y to Position
-		return sideAPos;		//return the final Node
-	}
-	
-	/**
-	 * Save the "B side" position of the door.
-	 * 
-     * @param door -- the DoorGO whose position is required
-	 * @return sideBPos -- the Node containing the DoorGOs sideBPosition
-	 */
-	private Element saveSideBPos(DoorGO door){
-		Element sideBPos = save.createElement("sideBPos");	//create a node for the Position
-		Element x = save.createElement("x");		//create a node for x
-		Element y = save.createElement("y");		//create a node for y
-		x.appendChild(save.createTextNode("" + door.getSideBPos().getPosX())); //find and append the value for x
-		y.appendChild(save.createTextNode("" + door.getSideBPos().getPosY())); //find and append the value for y
-		sideBPos.appendChild(x);	//append x to Position
-		sideBPos.appendChild(y);	//append y to Position
-		return sideBPos;	//return the final Node
+
+	/** LISTS **/
+
+	private void saveList(String name, List<? extends GameObject> objects) throws XMLStreamException, IOException {
+		out.writeStartElement(name);
+		for (GameObject object : objects) {
+			saveObject(object);
+		}
+		out.writeEndElement();
+		out.writeCharacters("\n");
 	}
-	
-	/**
-	 * Save the "A side" entry position of the door.
-	 * 
-     * @param door -- the DoorGO whose position is required
-	 * @return sideAEntryPos -- the Node containing the DoorGOs sideAEntryPosition
-	 */
-	private Element saveSideAEntryPos(DoorGO door){
-		Element sideAEntryPos = save.createElement("sideAEntryPos");	//create a node for the Position
-		Element x = save.createElement("x");	//create a node for x
-		Element y = save.createElement("y");	//create a node for y
-		x.appendChild(save.createTextNode("" + door.getSideAEntryPos().getPosX()));	//find and append value for x
-		y.appendChild(save.createTextNode("" + door.getSideAEntryPos().getPosY()));	//find and append value for y
-		sideAEntryPos.appendChild(x);	//append x to position
-		sideAEntryPos.appendChild(y);	//append y to position
-		return sideAEntryPos;	//return final Node
+
+	private <T extends GameObject> void loadList(List<T> objects, Class<T> type) throws XMLStreamException, IOException {
+		while (in.nextTag() == XMLStreamConstants.START_ELEMENT) {
+			objects.add(type.cast(loadObject()));
+		}
 	}
-	
-	/**
-	 * Save the "B side" entry position of the door.
-	 * 
-     * @param door -- the DoorGO whose position is required
-	 * @return sideBEntryPos -- the Node containing the DoorGOs sideBEntryPosition
-	 */
-	private Element saveSideBEntryPos(DoorGO door){
-		Element sideBEntryPos = save.createElement("sideBEntryPos");	//create a node for the Position
-		Element x = save.createElement("x");	//create a node for x
-		Element y = save.createElement("y");	//create a node for y
-		x.appendChild(save.createTextNode("" + door.getSideBEntryPos().getPosX()));	//find and append value for x
-		y.appendChild(save.createTextNode("" + door.getSideBEntryPos().getPosY()));	//find and append value for y
-		sideBEntryPos.appendChild(x);	//append x to position
-		sideBEntryPos.appendChild(y);	//append y to position
-		return sideBEntryPos;	//return final Node
+
+	private void saveMap(String name, Map<String, ? extends GameObject> objects) throws XMLStreamException, IOException {
+		out.writeStartElement(name);
+		for (Map.Entry<String, ? extends GameObject> entry : objects.entrySet()) {
+			out.writeStartElement("entry");
+			out.writeAttribute("key", entry.getKey());
+			saveObject(entry.getValue());
+			out.writeEndElement();
+		}
+		out.writeEndElement();
+		out.writeCharacters("\n");
 	}
-	
-	/**
-	 * Saves the Base GameObject that the current MarkerGO is surrounding.
-	 * 
-	 * @param occupant -- the MarkerGO whose base is being saved
-	 * @return base -- the Node containing the Base GameObject
-	 */
-	private Element saveBaseGameObject(GameObject occupant){
-		
-		Element base = save.createElement("base");	//create a node
-		GameObject baseObject = ((MarkerGO)occupant).getBaseGO();	//create a node for the value
-		base.setAttribute("objectType", baseObject.getClass().toString().substring(11)); //set an attribute for the type of the BaseGO
-																					//format the string
-		
-		if(baseObject instanceof FixedGO){			//base should always be FixedGO
-			base.appendChild(saveID(baseObject));	//save the fields for the Base and append them to the base Node
-			base.appendChild(saveToken(baseObject));
-			base.appendChild(savePosition(baseObject));
-			base.appendChild(saveDescription(baseObject));
+
+	private <T extends GameObject> void loadMap(Map<String, T> objects, Class<T> type)
+			throws XMLStreamException, IOException {
+		while (in.nextTag() == XMLStreamConstants.START_ELEMENT) {
+			String key = in.getAttributeValue(null, "key");
+			in.nextTag();
+			objects.put(key, type.cast(loadObject()));
+			in.nextTag();	//end of entry
 		}
-		
-		return base; //return the base GameObject
-		
 	}
-	
+
+	/** GAME OBJECTS **/
+
 	/**
-	 * Saves the contents of the FixedContainerGO
-	 * 
-	 * @param occupant -- GameObject that is on the current Tile
-	 * @return contents -- Element that has all inventory items and their fields as its children
+	 * Writes a game object as a single element. Objects that have already been written are written as a ref element.
+	 *
+	 * @param object -- the GameObject to save
 	 */
-	private Element saveContents(GameObject occupant){
-		Element contents = save.createElement("contents");		//create a node for the contents
-		
-		List<InventoryGO> items = ((FixedContainerGO) occupant).getAllItems(); //make a list of all the items in the container
-		for (InventoryGO i : items){	//iterate through
-			Element item = save.createElement("item");	//make a node to represent a item
-			item.setAttribute("objectType", i.getClass().toString()); //mark it wit its class as an attribute
-			if(i instanceof ContainerGO){		//if item is another container
-				contents.appendChild(saveSizeRemaining(i));	//save its extra field
+	private void saveObject(GameObject object) throws XMLStreamException, IOException {
+		Integer ref = written.get(object);
+		if (ref != null) {
+			out.writeEmptyElement("ref");
+			out.writeAttribute("ref", "" + ref);
+			return;
+		}
+
+		if (object instanceof MarkerGO) {
+			//The base object is written first so that it has the lower reference number, same order as when loading.
+			out.writeStartElement("marker");
+			savePosition("pos", object.getPosition());
+			saveObject(((MarkerGO) object).getBaseGO());
+			written.put(object, written.size());
+			out.writeEndElement();
+			return;
+		}
+
+		written.put(object, written.size());
+
+		if (object instanceof Player) {
+			Player player = (Player) object;
+			out.writeStartElement(player instanceof NonHumanPlayer ? "nonHumanPlayer" : "player");
+			saveString("name", player.getPlayerName());
+			saveString("spawnName", player.getSpawnName());
+			saveString("areaName", player.getCurrentArea() == null ? null : player.getCurrentArea().getAreaName());
+			savePosition("pos", player.getCurrentPosition());
+			saveString("direction", player.getDirection());
+			saveString("token", player.getToken());
+			saveString("description", player.getDescription());
+
+			if (player instanceof NonHumanPlayer) {
+				NonHumanPlayer npc = (NonHumanPlayer) player;
+				saveString("directions", String.join(" ", npc.getDirections()));
+				saveString("step", "" + npc.getCurrentStep());
+			}
+
+			saveItems(player.getInventory());
+
+		} else if (object instanceof DoorGO) {
+			DoorGO door = (DoorGO) object;
+			out.writeStartElement("door");
+			saveString("id", door.getId());
+			saveString("open", "" + door.isOpen());
+			saveString("locked", "" + door.isLocked());
+			saveString("keyID", door.getKeyID());
+			saveString("sideA", door.getSideA());
+			saveString("tokenA", door.getTokenA());
+			savePosition("sideAPos", door.getSideAPos());
+			savePosition("sideAEntryPos", door.getSideAEntryPos());
+			saveString("sideB", door.getSideB());
+			saveString("tokenB", door.getTokenB());
+			savePosition("sideBPos", door.getSideBPos());
+			savePosition("sideBEntryPos", door.getSideBEntryPos());
+			saveString("description", door.getDescription());
+
+		} else if (object instanceof FixedGO) {
+			out.writeStartElement("fixed");
+			saveString("id", object.getId());
+			saveString("token", object.getToken());
+			savePosition("pos", object.getPosition());
+			saveString("description", object.getDescription());
+
+		} else if (object instanceof MovableGO) {
+			out.writeStartElement("movable");
+			saveString("id", object.getId());
+			saveString("token", object.getToken());
+			saveString("areaName", ((MovableGO) object).getAreaName());
+			savePosition("pos", object.getPosition());
+			saveString("description", object.getDescription());
+
+		} else if (object instanceof InventoryGO) {
+			InventoryGO item = (InventoryGO) object;
+			out.writeStartElement(item instanceof ContainerGO ? "container" : "item");
+			saveString("name", item.getName());
+			saveString("id", item.getId());
+			saveString("token", item.getToken());
+			saveString("size", "" + item.getSize());
+			saveString("areaName", item.getAreaName());
+			savePosition("pos", item.getPosition());
+			saveString("description", item.getDescription());
+
+			if (item instanceof ContainerGO) {
+				saveItems(((ContainerGO) item).getAllItems());
 			}
-			item.appendChild(saveName(i));	//save fields for the item and append them to the item node
-			item.appendChild(saveID(i));
-			item.appendChild(saveToken(i));
-			item.appendChild(saveSize(i));
-			item.appendChild(saveAreaName(i));
-			item.appendChild(savePosition(i));
-			item.appendChild(saveDescription(i));
-			
-			contents.appendChild(item);			//append the current item to the contents Node
+
+		} else if (object instanceof FixedContainerGO) {
+			FixedContainerGO container = (FixedContainerGO) object;
+			out.writeStartElement("fixedContainer");
+			saveString("name", container.getName());
+			saveString("areaName", container.getArea());
+			saveString("id", container.getId());
+			saveString("token", container.getToken());
+			saveString("open", "" + container.isOpen());
+			saveString("locked", "" + container.isLocked());
+			saveString("keyID", container.getKeyID());
+			saveString("size", "" + container.getSize());
+			savePosition("pos", container.getPosition());
+			saveString("description", container.getDescription());
+			saveItems(container.getAllItems());
+
+		} else {
+			throw new IOException("Cannot save game object of type " + object.getClass().getName());
 		}
-		
-		return contents; //after all the items are saved, return the contents
-		
+
+		out.writeEndElement();
 	}
-	
+
 	/**
-	 * Saves the field "size remaining" for containerGOs and FixedContainerGOs
-	 * 
-	 * @param container -- GameObject whose sizeRemaining is to be found
-	 * @return sizeRemaing -- Node holding the value of sizeRemaining
+	 * Writes the items held by a player or a container as the children of the current element.
 	 */
-	private Element saveSizeRemaining(GameObject container){
-		Text value = save.createTextNode("");	//initialize value node
-		Element sizeRemaining = save.createElement("sizeRemaining"); //create a node to identify the value
-		
-		if(container instanceof ContainerGO){
-			value = save.createTextNode("" + ((ContainerGO)container).getSizeRemaining()); //cast to the appropriate Object, get value
-			sizeRemaining.appendChild(value); //append value
-		}else if(container instanceof FixedContainerGO){ 
-			value = save.createTextNode("" + ((FixedContainerGO)container).getSizeRemaining()); //cast to the appropriate Object, get value
-			sizeRemaining.appendChild(value); //appendValue
+	private void saveItems(List<InventoryGO> items) throws XMLStreamException, IOException {
+		for (InventoryGO item : items) {
+			saveObject(item);
 		}
-		
-		return sizeRemaining;	//return final Node
 	}
-	
+
 	/**
-	 * Saves the field "name" to a Node
-	 * @param occupant -- the GameObject whose name is required
-	 * @return name -- the Node containing the name
+	 * Reads a game object, with the reader on its start element. Leaves the reader on its end element.
+	 *
+	 * @return the GameObject that was read
 	 */
-	private Element saveName(GameObject occupant){
-		Text value = save.createTextNode("");	//initialize
-		Element name = save.createElement("name");	//create a node to identify the Node
-		if(occupant instanceof InventoryGO){
-			value = save.createTextNode(((InventoryGO) occupant).getName());	//cast to the appropriate Object, get value
-		} else if(occupant instanceof NonHumanPlayer){
-			value = save.createTextNode(((NonHumanPlayer) occupant).getPlayerName());//cast to the appropriate Object, get value
-		} else if(occupant instanceof FixedContainerGO){
-			value = save.createTextNode(((FixedContainerGO) occupant).getName());//cast to the appropriate Object, get value
-		} else if(occupant instanceof Player){
-			value = save.createTextNode(((Player) occupant).getPlayerName());//cast to the appropriate Object, get value
+	private GameObject loadObject() throws XMLStreamException, IOException {
+		String tag = in.getLocalName();
+
+		switch (tag) {
+		case "ref": {
+			GameObject object = read.get(intAttribute("ref"));
+			in.nextTag();	//end of ref
+			return object;
 		}
-		
-		name.appendChild(value);	//append value
-		return name;	//return final Node
-	}
-	
-	/**
-	 * Saves the field "id" to a Node
-	 * 
-	 * @param occupant -- the GameObject whose id is required
-	 * @return id -- the Node containing the id
-	 */
-	private Element saveID(GameObject occupant){
-		Text value = save.createTextNode("");	//initialize
-		Element id = save.createElement("id");	//create a node to identify the value
-		if(occupant instanceof InventoryGO){
-			value = save.createTextNode(((InventoryGO) occupant).getId()); //cast to the appropriate Object, get value
-		}else if(occupant instanceof FixedGO){
-			value = save.createTextNode(((FixedGO) occupant).getId());//cast to the appropriate Object, get value
-		}else if(occupant instanceof FixedContainerGO){
-			value = save.createTextNode(((FixedContainerGO) occupant).getId());//cast to the appropriate Object, get value
-		}else if(occupant instanceof MovableGO){
-			value = save.createTextNode(((MovableGO) occupant).getId());//cast to the appropriate Object, get value
+
+		case "marker": {
+			Position pos = loadPosition("pos");
+			in.nextTag();
+			GameObject base = loadObject();
+			MarkerGO marker = new MarkerGO(base, pos);
+			read.add(marker);
+			in.nextTag();	//end of marker
+			return marker;
 		}
-		id.appendChild(value); //append value
-		return id;	//return final Node
-	}
-	
-	/**
-	 * Saves the field "keyID" to a Node
-	 * 
-	 * @param occupant -- the GameObject whose keyId is required
-	 * @return keyID -- the Node containing the keyID
-	 */
-	private Element saveKeyID(GameObject occupant){
-		Text value = save.createTextNode("");	//initialize
-		Element keyID = save.createElement("id");	//create a node to identify the value
-		if(occupant instanceof FixedContainerGO){
-			if(((FixedContainerGO) occupant).getKeyID() == null){
-				value = save.createTextNode("null"); //if a fixedContainer has null key ID, it is unlocked
-			}else{
-				value = save.createTextNode(((FixedContainerGO) occupant).getKeyID()); //cast to the appropriate Object, get value
+
+		case "player":
+		case "nonHumanPlayer": {
+			int index = reserve();
+			String name = in.getAttributeValue(null, "name");
+			Position pos = loadPosition("pos");
+			String token = in.getAttributeValue(null, "token");
+
+			Player player;
+			if (tag.equals("nonHumanPlayer")) {
+				List<String> directions = new ArrayList<String>();
+				for (String direction : in.getAttributeValue(null, "directions").split(" ")) {
+					directions.add(direction);
+				}
+				NonHumanPlayer npc = new NonHumanPlayer(name, token, null, pos, directions);
+				npc.setCurrentStep(intAttribute("step"));
+				player = npc;
+			} else {
+				player = new Player(name, in.getAttributeValue(null, "spawnName"), null, pos);
+				player.setToken(token);
+			}
+			player.setDirection(in.getAttributeValue(null, "direction"));
+			player.setDescription(in.getAttributeValue(null, "description"));
+			playerAreas.put(player, in.getAttributeValue(null, "areaName"));
+			read.set(index, player);
+
+			while (in.nextTag() == XMLStreamConstants.START_ELEMENT) {
+				player.addToInventory((InventoryGO) loadObject());
 			}
-			
+			return player;
 		}
-		keyID.appendChild(value); //append value
-		return keyID; //return final Node
-	}
-	
-	/**
-	 * Saves the field "position" to a Node
-	 * 
-	 * @param currentTile -- the Tile whose position is required
-	 * @return pos -- the Node containing the Position
-	 */
-	private Element savePosition(Tile currentTile){
-		Element pos = save.createElement("pos");	//create a node to identify the position
-		Element x = save.createElement("x");	//create a node for x
-		x.appendChild(save.createTextNode("" + currentTile.getPosition().getPosX())); //find and append x
-		Element y = save.createElement("y");	//create a node for y
-		y.appendChild(save.createTextNode("" + currentTile.getPosition().getPosY())); //find and append y
-		
-		pos.appendChild(x);	//append x
-		pos.appendChild(y);	//append y
-		
-		return pos;	//return final Node
-	}
-	
-	/**
-	 * Saves the field "position" to a Node
-	 * 
-	 * @param occupant -- the GameObject whose position is required
-	 * @return pos -- the Node containing the Position
-	 */
-	private Element savePosition(GameObject occupant){
-		Element pos = save.createElement("pos"); //create a node to identify the position
-		Element x = save.createElement("x");	//create a node for x
-		Element y = save.createElement("y");	//create a node for y
-		Text xVal = save.createTextNode("" + occupant.getPosition().getPosX());	//find x
-		Text yVal = save.createTextNode("" + occupant.getPosition().getPosY());	//find y
-		x.appendChild(xVal); //append xVal
-		y.appendChild(yVal); //append yVal
-		pos.appendChild(x);  //append x
-		pos.appendChild(y);	 //append y
-		return pos;		//return final Node
-	}
-	
-	/**
-	 * Saves the field "token" to a Node
-	 * @param occupant -- The GameObject whose token is required
-	 * @return token -- the Node containing the token
-	 */
-	private Element saveToken(GameObject occupant){
-		Element token = save.createElement("token");	//create a node for token
-		token.appendChild(save.createTextNode(occupant.getToken())); //find and append token
-		return token; //return final Node
-	}
-	
-	/**
-	 * Saves the field "token" to a Node
-	 * 
-	 * @param currentTile -- The Tile whose token is required
-	 * @return token -- the Node containing the token
-	 */
-	private Element saveToken(Tile currentTile){
-		Element token = save.createElement("token"); //create a node for token
-		token.appendChild(save.createTextNode(currentTile.getToken())); //find and append token
-		return token; //return final Node
-	}
-	
-	/**
-	 * Saves the field "open" to a Node
-	 * 
-	 * @param occupant -- the GameObject that is required to know whether it is open or not
-	 * @return open -- Node containing whether the Object is open or not
-	 */
-	private Element saveOpen(GameObject occupant){
-		Text value = save.createTextNode("");	//initialize
-		if(occupant instanceof DoorGO){
-			 value = save.createTextNode("" + ((DoorGO) occupant).isOpen()); //cast to appropriate class and get value
-		}else if(occupant instanceof FixedContainerGO){
-			 value = save.createTextNode("" + ((FixedContainerGO) occupant).isOpen());	//cast to appropriate class and get value
+
+		case "door": {
+			int index = reserve();
+			DoorGO door = new DoorGO(in.getAttributeValue(null, "id"), booleanAttribute("open"),
+					booleanAttribute("locked"), in.getAttributeValue(null, "keyID"), in.getAttributeValue(null, "sideA"),
+					in.getAttributeValue(null, "tokenA"), loadPosition("sideAPos"), loadPosition("sideAEntryPos"),
+					in.getAttributeValue(null, "sideB"), in.getAttributeValue(null, "tokenB"), loadPosition("sideBPos"),
+					loadPosition("sideBEntryPos"));
+			door.setDescription(in.getAttributeValue(null, "description"));
+			read.set(index, door);
+			in.nextTag();	//end of door
+			return door;
 		}
-		Element open = save.createElement("open"); //create node 
-		open.appendChild(value); //append value to node
-		return open; //return final node
-	
-	}
-	
-	/**
-	 * Saves the field "locked" to a Node
-	 * 
-	 * @param occupant -- the GameObject that is required to know whether it is locked or not
-	 * @return locked -- Node containing whether the Object is locked or not
-	 */
-	private Element saveLocked(GameObject occupant){
-		Text value = save.createTextNode("");	//initialize
-		if(occupant instanceof DoorGO){
-			value = save.createTextNode("" + ((DoorGO) occupant).isLocked()); //cast to appropriate class and get value
-		}else if (occupant instanceof FixedContainerGO){
-			value = save.createTextNode("" + ((FixedContainerGO) occupant).isLocked()); //cast to appropriate class and get value
+
+		case "fixed": {
+			int index = reserve();
+			FixedGO fixed = new FixedGO(in.getAttributeValue(null, "id"), in.getAttributeValue(null, "token"),
+					loadPosition("pos"));
+			fixed.setDescription(in.getAttributeValue(null, "description"));
+			read.set(index, fixed);
+			in.nextTag();	//end of fixed
+			return fixed;
 		}
-		Element locked = save.createElement("locked"); //create node
-		locked.appendChild(value); //append value to node
-		return locked; //return final Node
-		
-	}
-	
-	/**
-	 * Save the field "description" to a Node
-	 * 
-	 * @param occupant -- the GameObject whose description is required
-	 * @return description -- Node containing the description
-	 */
-	private Element saveDescription(GameObject occupant){
-		Text value = save.createTextNode("");	//initialize
-		if(occupant instanceof InventoryGO){
-			value = save.createTextNode(((InventoryGO) occupant).getDescription());	//cast to appropriate class and get value
-		}else if (occupant instanceof DoorGO){
-			value = save.createTextNode(((DoorGO) occupant).getDescription()); //cast to appropriate class and get value
-		}else if (occupant instanceof FixedGO){
-			value = save.createTextNode(((FixedGO) occupant).getDescription());	 //cast to appropriate class and get value	
-		}else if (occupant instanceof MarkerGO){
-			value = save.createTextNode(((MarkerGO) occupant).getDescription());	 //cast to appropriate class and get value		
-		}else if (occupant instanceof Player){
-			value = save.createTextNode(((Player) occupant).getDescription());		//cast to appropriate class and get value	
-		}else if (occupant instanceof MovableGO){
-			value = save.createTextNode(((MovableGO) occupant).getDescription());	//cast to appropriate class and get value		
+
+		case "movable": {
+			int index = reserve();
+			MovableGO movable = new MovableGO(in.getAttributeValue(null, "id"), in.getAttributeValue(null, "token"),
+					in.getAttributeValue(null, "areaName"), loadPosition("pos"));
+			movable.setDescription(in.getAttributeValue(null, "description"));
+			read.set(index, movable);
+			in.nextTag();	//end of movable
+			return movable;
 		}
-		
-		Element description = save.createElement("description"); //create node to identify description
-		description.appendChild(value); 	//append value
-		return description;		//return final Node
-	}
-	
-	/**
-	 * Save the field "size" to a Node
-	 * 
-	 * @param occupant -- the GameObject whose size is required
-	 * @return size -- Node containing the field size
-	 */
-	private Element saveSize(GameObject occupant){
-		Text value = save.createTextNode("");	//initialize
-		if(occupant instanceof InventoryGO){
-			value = save.createTextNode("" + ((InventoryGO) occupant).getSize()); //cast to appropriate class and get value
-		}else if (occupant instanceof FixedContainerGO){
-			value = save.createTextNode("" + ((FixedContainerGO) occupant).getSize()); //cast to appropriate class and get value
+
+		case "item":
+		case "container": {
+			int index = reserve();
+			String name = in.getAttributeValue(null, "name");
+			String id = in.getAttributeValue(null, "id");
+			String token = in.getAttributeValue(null, "token");
+			int size = intAttribute("size");
+			String areaName = in.getAttributeValue(null, "areaName");
+			Position pos = loadPosition("pos");
+			String description = in.getAttributeValue(null, "description");
+
+			if (tag.equals("item")) {
+				InventoryGO item = new InventoryGO(name, id, token, size, areaName, pos, description);
+				read.set(index, item);
+				in.nextTag();	//end of item
+				return item;
+			}
+
+			ContainerGO container = new ContainerGO(name, id, token, size, areaName, pos, description);
+			read.set(index, container);
+			while (in.nextTag() == XMLStreamConstants.START_ELEMENT) {
+				container.addToContainer((InventoryGO) loadObject());
+			}
+			return container;
+		}
+
+		case "fixedContainer": {
+			int index = reserve();
+			FixedContainerGO container = new FixedContainerGO(in.getAttributeValue(null, "name"),
+					in.getAttributeValue(null, "areaName"), in.getAttributeValue(null, "id"),
+					in.getAttributeValue(null, "token"), booleanAttribute("open"), booleanAttribute("locked"),
+					in.getAttributeValue(null, "keyID"), intAttribute("size"), loadPosition("pos"));
+			container.setDescription(in.getAttributeValue(null, "description"));
+			read.set(index, container);
+			while (in.nextTag() == XMLStreamConstants.START_ELEMENT) {
+				container.addToContainer((InventoryGO) loadObject());
+			}
+			return container;
+		}
+
+		default:
+			throw new IOException("Unknown game object element: " + tag);
 		}
-			Element size = save.createElement("size");	//create node to identify size
-			size.appendChild(value);	//append value to node
-			return size;		//return final Node
 	}
-	
+
 	/**
-	 * Save the field "areaName" to a Node
-	 * @param occupant -- the GameObject whose areaName is required
-	 * @return areaName -- Node containing the field areaName
+	 * Reserve a reference number for an object that is being read, so that references are numbered in the same order they
+	 * were written.
+	 *
+	 * @return the reserved reference number
 	 */
-	private Element saveAreaName(GameObject occupant){
-		Text value = save.createTextNode("");	//initialize
-		if(occupant instanceof InventoryGO){
-			value = save.createTextNode(((InventoryGO) occupant).getAreaName()); //cast to appropriate class and get value
-		}else if (occupant instanceof MovableGO){
-			value = save.createTextNode(((MovableGO) occupant).getAreaName());	//cast to appropriate class and get value
-		}else if (occupant instanceof NonHumanPlayer){
-			value = save.createTextNode((((NonHumanPlayer) occupant).getCurrentArea().getAreaName()));	//cast to appropriate class and get value
-		}else if (occupant instanceof FixedContainerGO){
-			value = save.createTextNode((((FixedContainerGO) occupant).getArea()));	//cast to appropriate class and get value
-		}else if (occupant instanceof Player){
-			value = save.createTextNode((((Player) occupant).getCurrentArea().getAreaName()));	//cast to appropriate class and get value
-		}
-		Element areaName = save.createElement("areaName"); //create node to identify areaName value
-		areaName.appendChild(value);		//append value
-		return areaName;	//return final Node
-
+	private int reserve() {
+		read.add(null);
+		return read.size() - 1;
 	}
-	
+
+	/** ATTRIBUTES **/
+
 	/**
-	 * Loads a given XML file as a DOM Structure into memory so that it can be parse and have information read
-	 * from it. 
-	 * 
-	 * @return document -- the DOM Structure of the saved XML file
+	 * Writes the given value as an attribute of the current element. Null values are left out.
 	 */
-	private Document loadXML(){
-		try{
-			DocumentBuilderFactory docBuilderFactory = DocumentBuilderFactory.newInstance();	//Create a builder factory instance
-		    DocumentBuilder docBuilder = docBuilderFactory.newDocumentBuilder();	//create a document builder to construct the Document
-		    Document document = docBuilder.parse(new File("saveNew.xml")); 		//create the document by parsing the XML File
-		    return document;
-		}catch(SAXException ex){	//catch exception
-			ex.printStackTrace();
-		}catch(IOException ex){		//catch exception
-			ex.printStackTrace();
-		}catch(ParserConfigurationException ex){	//catch exception
-			ex.printStackTrace();
+	private void saveString(String name, String value) throws XMLStreamException {
+		if (value != null) {
+			out.writeAttribute(name, value);
 		}
-		return null;	//should never reach here, just to keep the compiler happy
 	}
-	
+
 	/**
-	 * Creates a new XML File by transforming the DOM Structure "save" into a new File
+	 * Writes the given position as an "x,y" attribute of the current element. Null positions are left out.
 	 */
-	private void createXML(){
-		try{
-			TransformerFactory transformerFactory = TransformerFactory.newInstance();	//creates a transformer factory instance
-			Transformer transformer = transformerFactory.newTransformer();	//create a new transformer
-			transformer.setOutputProperty(OutputKeys.INDENT, "yes");		//set Output Properties
-			transformer.setOutputProperty(OutputKeys.METHOD, "xml");
-			transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
-			//transformer.setOutputProperty(OutputKeys.DOCTYPE_SYSTEM, "save.dtd");
-			transformer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "4");
-			DOMSource source = new DOMSource(save);		//select the sourse document
-			StreamResult result = new StreamResult(new File("saveNew.xml"));	//select the output File
-			transformer.transform(source, result);	//transform
-			// Output to console for testing
-			StreamResult consoleResult =new StreamResult(System.out);
-			transformer.transform(source, consoleResult);
-			
-			load();
-		}catch(TransformerException e){	//catch Exception
-			e.printStackTrace();
+	private void savePosition(String name, Position pos) throws XMLStreamException {
+		if (pos != null) {
+			out.writeAttribute(name, pos.getPosX() + "," + pos.getPosY());
 		}
 	}
-	
-}
 
+	private Position loadPosition(String name) {
+		String value = in.getAttributeValue(null, name);
+		if (value == null) {
+			return null;
+		}
+		int comma = value.indexOf(',');
+		return Position.of(Integer.parseInt(value.substring(0, comma)), Integer.parseInt(value.substring(comma + 1)));
+	}
 
-	
-
+	private int intAttribute(String name) {
+		return Integer.parseInt(in.getAttributeValue(null, name));
+	}
 
+	private boolean booleanAttribute(String name) {
+		return Boolean.parseBoolean(in.getAttributeValue(null, name));
+	}
+}
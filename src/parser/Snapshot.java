@@ -0,0 +1,698 @@
+package parser;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import game.Area;
+import game.ContainerGO;
+import game.DoorGO;
+import game.FixedContainerGO;
+import game.FixedGO;
+import game.GameObject;
+import game.InventoryGO;
+import game.MarkerGO;
+import game.MovableGO;
+import game.NonHumanPlayer;
+import game.Player;
+import game.Position;
+import game.SpookySchool;
+
+/**
+ * Compact binary snapshot of the whole state of a game: the areas with their occupants, the players, NPCs, doors, movable
+ * objects, inventory objects and fixed containers. Snapshots are written through a small direct buffer to a file channel and
+ * read back from a memory mapped file, so saving and restoring a game takes milliseconds.
+ *
+ * The encoding follows the binary bundle encoding: numbers are varints, strings are interned, and every game object is written
+ * once and referred to by index after that, so objects that are shared (e.g. a door in both of its areas) stay shared.
+ *
+ * Schema (in order):
+ *   magic(int) version(int) maxPlayers(varint)
+ *   areas(count, area...) players(count, obj...) npcs(count, obj...) doors(count, obj...) movables(count, obj...)
+ *   inventoryObjects(count, (key(str) obj)...) fixedContainers(count, (key(str) obj)...)
+ * Area: name(str) width(varint) height(varint) owner(obj) then every tile as kind(byte) [token(str) occupant(obj)]
+ *
+ * A snapshot can also be captured into memory and written to a file later (see capture(..)). Encoding only takes a few
+ * milliseconds, so the game can be captured between two ticks and written to disk on another thread.
+ */
+public class Snapshot {
+
+	private static final int MAGIC = 0x53534e50; //"SSNP"
+	private static final int VERSION = 1;
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	//Object tags.
+	private static final int NULL = 0;
+	private static final int PLAYER = 1;
+	private static final int NPC = 2;
+	private static final int DOOR = 3;
+	private static final int FIXED = 4;
+	private static final int MARKER = 5;
+	private static final int MOVABLE = 6;
+	private static final int INVENTORY = 7;
+	private static final int CONTAINER = 8;
+	private static final int FIXED_CONTAINER = 9;
+	private static final int BACK_REFERENCE = 10; //Object already written earlier in the snapshot.
+
+	//Tile kinds.
+	private static final int NO_TILE = 0;
+	private static final int FLOOR_TILE = 1;
+	private static final int WALL_TILE = 2;
+
+	private FileChannel channel; //Channel being written to, or null when capturing into memory.
+	private ByteBuffer buffer; //Write buffer, the captured snapshot, or the mapped file when reading.
+
+	//Interned strings. Id 0 is reserved for null.
+	private final Map<String, Integer> writtenStrings = new HashMap<String, Integer>();
+	private final List<String> readStrings = new ArrayList<String>();
+
+	//Objects written/read so far.
+	private final Map<GameObject, Integer> writtenObjects = new IdentityHashMap<GameObject, Integer>();
+	private final List<GameObject> readObjects = new ArrayList<GameObject>();
+	private final Map<Player, String> playerAreas = new IdentityHashMap<Player, String>(); //Area of each player read.
+
+	private Snapshot() {
+	}
+
+	/**
+	 * Write a snapshot of the given game to the given file. The snapshot is written to a temporary file first and then moved
+	 * over the given file, so an existing snapshot is never left half written. The caller must make sure the game does not
+	 * change while it is being saved.
+	 * @param game the game to save.
+	 * @param file the file to write the snapshot to.
+	 * @throws IOException if the snapshot cannot be written.
+	 */
+	public static void save(SpookySchool game, Path file) throws IOException {
+		Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+
+		try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			Snapshot snapshot = new Snapshot();
+			snapshot.channel = channel;
+			snapshot.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+			snapshot.writeGame(game);
+			snapshot.flush();
+			channel.force(false);
+		}
+
+		Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Capture the state of the given game into memory. The captured snapshot does not refer to the game, so it can be written
+	 * out on another thread while the game carries on. The caller must make sure the game does not change while it is being
+	 * captured.
+	 * @param game the game to capture.
+	 * @return the captured snapshot.
+	 * @throws IOException if the game cannot be encoded.
+	 */
+	public static Snapshot capture(SpookySchool game) throws IOException {
+		Snapshot snapshot = new Snapshot();
+		snapshot.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+		snapshot.writeGame(game);
+		snapshot.buffer.flip();
+		snapshot.writtenObjects.clear(); //Drop the references to the game.
+		snapshot.writtenStrings.clear();
+		return snapshot;
+	}
+
+	/**
+	 * Write this captured snapshot to the given file, the same way save(..) does. Only one thread may write a snapshot to the
+	 * same file at a time.
+	 * @param file the file to write the snapshot to.
+	 * @throws IOException if the snapshot cannot be written.
+	 */
+	public void write(Path file) throws IOException {
+		Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+
+		try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer bytes = this.buffer.duplicate(); //Leaves this snapshot untouched, so it can be written again.
+			while (bytes.hasRemaining()) {
+				channel.write(bytes);
+			}
+			channel.force(false);
+		}
+
+		Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * @return the size of this captured snapshot in bytes.
+	 */
+	public int size() {
+		return this.buffer.limit();
+	}
+
+	/**
+	 * Load the game saved in the given snapshot file.
+	 * @param file the snapshot file.
+	 * @return the game in the state it was saved in.
+	 * @throws IOException if the file cannot be read or is not a valid snapshot.
+	 */
+	public static SpookySchool load(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+			Snapshot snapshot = new Snapshot();
+			snapshot.buffer = mapped;
+			return snapshot.readGame();
+
+		} catch (RuntimeException e) {
+			//Buffer underflows, bad casts and invalid state all mean the file is not a valid snapshot.
+			throw new IOException("Invalid snapshot: " + file, e);
+		}
+	}
+
+	/** GAME **/
+
+	private void writeGame(SpookySchool game) throws IOException {
+		this.ensure(8);
+		this.buffer.putInt(MAGIC);
+		this.buffer.putInt(VERSION);
+		this.writeVarInt(game.getMaxPlayers());
+
+		//Areas that are not loaded are read from the world pack rather than loaded, so that a snapshot does not load them all.
+		this.writeVarInt(game.getAreaNames().size());
+		for (String areaName : game.getAreaNames()) {
+			this.writeArea(game.getAreaWithoutLoading(areaName));
+		}
+
+		this.writeObjects(game.getPlayers());
+		this.writeObjects(game.getNonHumanPlayers());
+		this.writeObjects(game.getDoorObjects());
+		this.writeObjects(game.getMovableObjects());
+		this.writeObjectMap(game.getInventoryObjects());
+		this.writeObjectMap(game.getFixedContainerObjects());
+	}
+
+	private SpookySchool readGame() throws IOException {
+		if (this.buffer.getInt() != MAGIC) {
+			throw new IOException("Not a snapshot file");
+		}
+		int version = this.buffer.getInt();
+		if (version != VERSION) {
+			throw new IOException("Unsupported snapshot version: " + version);
+		}
+		int maxPlayers = this.readVarInt();
+
+		Map<String, Area> areas = new HashMap<String, Area>();
+		int areaCount = this.readVarInt();
+		for (int i = 0; i < areaCount; i++) {
+			Area area = this.readArea();
+			areas.put(area.getAreaName(), area);
+		}
+
+		List<Player> players = this.readObjects(Player.class);
+		List<NonHumanPlayer> nonHumanPlayers = this.readObjects(NonHumanPlayer.class);
+		List<DoorGO> doors = this.readObjects(DoorGO.class);
+		List<MovableGO> movables = this.readObjects(MovableGO.class);
+		Map<String, InventoryGO> inventoryObjects = this.readObjectMap(InventoryGO.class);
+		Map<String, FixedContainerGO> fixedContainers = this.readObjectMap(FixedContainerGO.class);
+
+		//Players can be read before their area (e.g. as the owner of a spawn room), so their areas are set last.
+		for (Map.Entry<Player, String> entry : this.playerAreas.entrySet()) {
+			entry.getKey().setCurrentArea(areas.get(entry.getValue()));
+		}
+
+		return new SpookySchool(maxPlayers, areas, players, nonHumanPlayers, doors, movables, inventoryObjects,
+				fixedContainers);
+	}
+
+	private void writeObjects(List<? extends GameObject> objects) throws IOException {
+		this.writeVarInt(objects.size());
+		for (GameObject obj : objects) {
+			this.writeObject(obj);
+		}
+	}
+
+	private <T extends GameObject> List<T> readObjects(Class<T> type) throws IOException {
+		int count = this.readVarInt();
+		List<T> objects = new ArrayList<T>(count);
+		for (int i = 0; i < count; i++) {
+			objects.add(type.cast(this.readObject()));
+		}
+		return objects;
+	}
+
+	private void writeObjectMap(Map<String, ? extends GameObject> objects) throws IOException {
+		this.writeVarInt(objects.size());
+		for (Map.Entry<String, ? extends GameObject> entry : objects.entrySet()) {
+			this.writeString(entry.getKey());
+			this.writeObject(entry.getValue());
+		}
+	}
+
+	private <T extends GameObject> Map<String, T> readObjectMap(Class<T> type) throws IOException {
+		int count = this.readVarInt();
+		Map<String, T> objects = new LinkedHashMap<String, T>();
+		for (int i = 0; i < count; i++) {
+			String key = this.readString();
+			objects.put(key, type.cast(this.readObject()));
+		}
+		return objects;
+	}
+
+	/** AREAS **/
+
+	private void writeArea(Area area) throws IOException {
+		this.writeString(area.getAreaName());
+		this.writeVarInt(area.width);
+		this.writeVarInt(area.height);
+		this.writeObject(area.hasOwner() ? area.getOwner() : null);
+
+		for (int y = 0; y < area.height; y++) {
+			for (int x = 0; x < area.width; x++) {
+				this.ensure(1);
+				if (!area.hasTile(x, y)) {
+					this.buffer.put((byte) NO_TILE);
+					continue;
+				}
+
+				this.buffer.put((byte) (area.isFloor(x, y) ? FLOOR_TILE : WALL_TILE));
+				this.writeString(area.getToken(x, y));
+				this.writeObject(area.getOccupant(x, y));
+			}
+		}
+	}
+
+	private Area readArea() throws IOException {
+		Area area = new Area(this.readString(), this.readVarInt(), this.readVarInt());
+
+		Player owner = (Player) this.readObject();
+		if (owner != null) {
+			area.setOwner(owner);
+		}
+
+		for (int y = 0; y < area.height; y++) {
+			for (int x = 0; x < area.width; x++) {
+				int kind = this.buffer.get();
+
+				if (kind == NO_TILE) {
+					continue;
+				}
+
+				area.setTile(x, y, kind == FLOOR_TILE, this.readString());
+
+				GameObject occupant = this.readObject();
+				if (occupant != null) {
+					area.setOccupant(x, y, occupant);
+				}
+			}
+		}
+
+		return area;
+	}
+
+	/** GAME OBJECTS **/
+
+	private void writeObject(GameObject obj) throws IOException {
+		this.ensure(1);
+
+		if (obj == null) {
+			this.buffer.put((byte) NULL);
+			return;
+		}
+
+		//Objects that are referenced more than once are only written once.
+		Integer reference = this.writtenObjects.get(obj);
+		if (reference != null) {
+			this.buffer.put((byte) BACK_REFERENCE);
+			this.writeVarInt(reference);
+			return;
+		}
+
+		//Marker base objects are written before the marker is registered, same order as when reading.
+		if (obj instanceof MarkerGO) {
+			this.buffer.put((byte) MARKER);
+			this.writeObject(((MarkerGO) obj).getBaseGO());
+			this.writePosition(obj.getPosition());
+			this.writtenObjects.put(obj, this.writtenObjects.size());
+			return;
+		}
+
+		this.writtenObjects.put(obj, this.writtenObjects.size());
+
+		if (obj instanceof Player) {
+			Player player = (Player) obj;
+			this.buffer.put((byte) (player instanceof NonHumanPlayer ? NPC : PLAYER));
+			this.writeString(player.getPlayerName());
+			this.writeString(player.getSpawnName());
+			this.writeString(player.getCurrentArea() == null ? null : player.getCurrentArea().getAreaName());
+			this.writePosition(player.getCurrentPosition());
+			this.writeString(player.getDirection());
+			this.writeString(player.getToken());
+			this.writeString(player.getDescription());
+
+			if (player instanceof NonHumanPlayer) {
+				NonHumanPlayer npc = (NonHumanPlayer) player;
+				List<String> directions = npc.getDirections();
+				this.writeVarInt(directions.size());
+				for (String direction : directions) {
+					this.writeString(direction);
+				}
+				this.writeVarInt(npc.getCurrentStep());
+			}
+
+			this.writeItems(player.getInventory());
+
+		} else if (obj instanceof DoorGO) {
+			DoorGO door = (DoorGO) obj;
+			this.ensure(3);
+			this.buffer.put((byte) DOOR);
+			this.writeString(door.getId());
+			this.buffer.put((byte) (door.isOpen() ? 1 : 0));
+			this.buffer.put((byte) (door.isLocked() ? 1 : 0));
+			this.writeString(door.getKeyID());
+			this.writeString(door.getSideA());
+			this.writeString(door.getTokenA());
+			this.writePosition(door.getSideAPos());
+			this.writePosition(door.getSideAEntryPos());
+			this.writeString(door.getSideB());
+			this.writeString(door.getTokenB());
+			this.writePosition(door.getSideBPos());
+			this.writePosition(door.getSideBEntryPos());
+			this.writeString(door.getDescription());
+
+		} else if (obj instanceof FixedGO) {
+			this.buffer.put((byte) FIXED);
+			this.writeString(obj.getId());
+			this.writeString(obj.getToken());
+			this.writePosition(obj.getPosition());
+			this.writeString(obj.getDescription());
+
+		} else if (obj instanceof MovableGO) {
+			this.buffer.put((byte) MOVABLE);
+			this.writeString(obj.getId());
+			this.writeString(obj.getToken());
+			this.writeString(((MovableGO) obj).getAreaName());
+			this.writePosition(obj.getPosition());
+			this.writeString(obj.getDescription());
+
+		} else if (obj instanceof InventoryGO) {
+			InventoryGO item = (InventoryGO) obj;
+			this.buffer.put((byte) (item instanceof ContainerGO ? CONTAINER : INVENTORY));
+			this.writeString(item.getName());
+			this.writeString(item.getId());
+			this.writeString(item.getToken());
+			this.writeVarInt(item.getSize());
+			this.writeString(item.getAreaName());
+			this.writePosition(item.getPosition());
+			this.writeString(item.getDescription());
+
+			if (item instanceof ContainerGO) {
+				this.writeItems(((ContainerGO) item).getAllItems());
+			}
+
+		} else if (obj instanceof FixedContainerGO) {
+			FixedContainerGO container = (FixedContainerGO) obj;
+			this.buffer.put((byte) FIXED_CONTAINER);
+			this.writeString(container.getName());
+			this.writeString(container.getArea());
+			this.writeString(container.getId());
+			this.writeString(container.getToken());
+			this.ensure(2);
+			this.buffer.put((byte) (container.isOpen() ? 1 : 0));
+			this.buffer.put((byte) (container.isLocked() ? 1 : 0));
+			this.writeString(container.getKeyID());
+			this.writeVarInt(container.getSize());
+			this.writePosition(container.getPosition());
+			this.writeString(container.getDescription());
+			this.writeItems(container.getAllItems());
+
+		} else {
+			throw new IOException("Cannot save game object of type " + obj.getClass().getName());
+		}
+	}
+
+	private void writeItems(List<InventoryGO> items) throws IOException {
+		this.writeVarInt(items.size());
+		for (InventoryGO item : items) {
+			this.writeObject(item);
+		}
+	}
+
+	private GameObject readObject() throws IOException {
+		int tag = this.buffer.get();
+
+		switch (tag) {
+		case NULL:
+			return null;
+
+		case BACK_REFERENCE:
+			return this.readObjects.get(this.readVarInt());
+
+		case MARKER: {
+			GameObject base = this.readObject();
+			MarkerGO marker = new MarkerGO(base, this.readPosition());
+			this.readObjects.add(marker);
+			return marker;
+		}
+
+		case PLAYER:
+		case NPC: {
+			int index = this.reserve();
+			String name = this.readString();
+			String spawnName = this.readString();
+			String areaName = this.readString();
+			Position position = this.readPosition();
+			String direction = this.readString();
+			String token = this.readString();
+			String description = this.readString();
+
+			Player player;
+			if (tag == NPC) {
+				int count = this.readVarInt();
+				List<String> directions = new ArrayList<String>(count);
+				for (int i = 0; i < count; i++) {
+					directions.add(this.readString());
+				}
+
+				NonHumanPlayer npc = new NonHumanPlayer(name, token, null, position, directions);
+				npc.setCurrentStep(this.readVarInt());
+				player = npc;
+			} else {
+				player = new Player(name, spawnName, null, position);
+				player.setToken(token);
+			}
+			player.setDirection(direction);
+			player.setDescription(description);
+			this.playerAreas.put(player, areaName);
+			this.readObjects.set(index, player);
+
+			int items = this.readVarInt();
+			for (int i = 0; i < items; i++) {
+				player.addToInventory((InventoryGO) this.readObject());
+			}
+			return player;
+		}
+
+		case DOOR: {
+			int index = this.reserve();
+			DoorGO door = new DoorGO(this.readString(), this.buffer.get() != 0, this.buffer.get() != 0, this.readString(),
+					this.readString(), this.readString(), this.readPosition(), this.readPosition(), this.readString(),
+					this.readString(), this.readPosition(), this.readPosition());
+			door.setDescription(this.readString());
+			this.readObjects.set(index, door);
+			return door;
+		}
+
+		case FIXED: {
+			int index = this.reserve();
+			FixedGO fixed = new FixedGO(this.readString(), this.readString(), this.readPosition());
+			fixed.setDescription(this.readString());
+			this.readObjects.set(index, fixed);
+			return fixed;
+		}
+
+		case MOVABLE: {
+			int index = this.reserve();
+			MovableGO movable = new MovableGO(this.readString(), this.readString(), this.readString(), this.readPosition());
+			movable.setDescription(this.readString());
+			this.readObjects.set(index, movable);
+			return movable;
+		}
+
+		case INVENTORY:
+		case CONTAINER: {
+			int index = this.reserve();
+			String name = this.readString();
+			String id = this.readString();
+			String token = this.readString();
+			int size = this.readVarInt();
+			String areaName = this.readString();
+			Position position = this.readPosition();
+			String description = this.readString();
+
+			if (tag == INVENTORY) {
+				InventoryGO item = new InventoryGO(name, id, token, size, areaName, position, description);
+				this.readObjects.set(index, item);
+				return item;
+			}
+
+			ContainerGO container = new ContainerGO(name, id, token, size, areaName, position, description);
+			this.readObjects.set(index, container);
+			int items = this.readVarInt();
+			for (int i = 0; i < items; i++) {
+				container.addToContainer((InventoryGO) this.readObject());
+			}
+			return container;
+		}
+
+		case FIXED_CONTAINER: {
+			int index = this.reserve();
+			FixedContainerGO container = new FixedContainerGO(this.readString(), this.readString(), this.readString(),
+					this.readString(), this.buffer.get() != 0, this.buffer.get() != 0, this.readString(), this.readVarInt(),
+					this.readPosition());
+			container.setDescription(this.readString());
+			this.readObjects.set(index, container);
+			int items = this.readVarInt();
+			for (int i = 0; i < items; i++) {
+				container.addToContainer((InventoryGO) this.readObject());
+			}
+			return container;
+		}
+
+		default:
+			throw new IOException("Unknown game object tag: " + tag);
+		}
+	}
+
+	/**
+	 * Reserve a slot for an object that is being read so that back references are numbered in the same order they were written.
+	 * @return index of the reserved slot.
+	 */
+	private int reserve() {
+		this.readObjects.add(null);
+		return this.readObjects.size() - 1;
+	}
+
+	/** STRINGS **/
+
+	/**
+	 * Write an interned string. Written as 0 for null, as the id of the string if it has been written before, or as the next
+	 * id followed by the length and UTF-8 bytes of the string.
+	 */
+	private void writeString(String string) throws IOException {
+		if (string == null) {
+			this.writeVarInt(0);
+			return;
+		}
+
+		Integer id = this.writtenStrings.get(string);
+		if (id != null) {
+			this.writeVarInt(id);
+			return;
+		}
+
+		id = this.writtenStrings.size() + 1;
+		this.writtenStrings.put(string, id);
+		this.writeVarInt(id);
+
+		byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+		this.writeVarInt(bytes.length);
+		for (int offset = 0; offset < bytes.length;) {
+			this.ensure(1);
+			int length = Math.min(this.buffer.remaining(), bytes.length - offset);
+			this.buffer.put(bytes, offset, length);
+			offset += length;
+		}
+	}
+
+	private String readString() throws IOException {
+		int id = this.readVarInt();
+
+		if (id == 0) {
+			return null;
+		} else if (id <= this.readStrings.size()) {
+			return this.readStrings.get(id - 1);
+		} else if (id == this.readStrings.size() + 1) {
+			byte[] bytes = new byte[this.readVarInt()];
+			this.buffer.get(bytes);
+			String string = new String(bytes, StandardCharsets.UTF_8);
+			this.readStrings.add(string);
+			return string;
+		}
+
+		throw new IOException("String table out of sync: " + id);
+	}
+
+	/** NUMBERS **/
+
+	private void writePosition(Position position) throws IOException {
+		if (position == null) {
+			this.writeVarInt(0);
+			return;
+		}
+		this.writeVarInt(position.getPosX() + 1);
+		this.writeVarInt(position.getPosY());
+	}
+
+	private Position readPosition() throws IOException {
+		int x = this.readVarInt();
+		if (x == 0) {
+			return null;
+		}
+		return Position.of(x - 1, this.readVarInt());
+	}
+
+	private void writeVarInt(int value) throws IOException {
+		this.ensure(5);
+		while ((value & ~0x7F) != 0) {
+			this.buffer.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		this.buffer.put((byte) value);
+	}
+
+	private int readVarInt() throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			int b = this.buffer.get() & 0xFF;
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IOException("Malformed varint");
+	}
+
+	/** BUFFER **/
+
+	/**
+	 * Make sure the write buffer has room for the given number of bytes, writing it out to the channel if it does not. When
+	 * capturing into memory the buffer is grown instead.
+	 */
+	private void ensure(int bytes) throws IOException {
+		if (this.buffer.remaining() < bytes) {
+			if (this.channel != null) {
+				this.flush();
+			} else {
+				ByteBuffer larger = ByteBuffer.allocate(Math.max(this.buffer.capacity() * 2, this.buffer.position() + bytes));
+				this.buffer.flip();
+				larger.put(this.buffer);
+				this.buffer = larger;
+			}
+		}
+	}
+
+	private void flush() throws IOException {
+		this.buffer.flip();
+		while (this.buffer.hasRemaining()) {
+			this.channel.write(this.buffer);
+		}
+		this.buffer.clear();
+	}
+}
@@ -0,0 +1,700 @@
+package parser;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import game.Area;
+import game.ContainerGO;
+import game.DoorGO;
+import game.FixedContainerGO;
+import game.FixedGO;
+import game.GameObject;
+import game.InventoryGO;
+import game.MarkerGO;
+import game.MovableGO;
+import game.NonHumanPlayer;
+import game.Position;
+import game.SpookySchool;
+
+/**
+ * Precompiled binary form of the world described by the text files in src/areas: the tiles of every area, the fixed objects
+ * in them, and the doors, movable objects, NPCs, inventory objects and fixed containers placed in the areas. The pack is built
+ * offline by running this class, and is memory mapped when a game is created, which is much quicker than scanning the text
+ * files one token at a time. The objects are read when the pack is opened; each area is read when it is first loaded.
+ *
+ * The pack starts with a string table and an index of the areas, so the tiles of a single area can be read without reading
+ * the areas before it. Strings are written once in the table and referred to by id everywhere else. Numbers are varints.
+ *
+ * Layout (in order):
+ *   magic(int) version(int) strings(count, (length utf-8 bytes)...) objectsOffset(int)
+ *   index(count, (name width height offset)...) then the data: one block per area, then the objects.
+ * Area block: every tile as kind(byte) [token] then fixed objects(count, (id token x y description markers(count, (x y)...))...)
+ * Objects: doors, movables, NPCs, inventory objects, fixed containers (each with its markers), then the container fills
+ * as item(str) fixed(byte) container(str).
+ * Offsets are from the start of the data. String id 0 is null.
+ */
+public class WorldPack {
+
+	private static final int MAGIC = 0x5353574b; //"SSWK"
+	private static final int VERSION = 1;
+
+	//Tile kinds.
+	private static final int NO_TILE = 0;
+	private static final int FLOOR_TILE = 1;
+	private static final int WALL_TILE = 2;
+
+	private ByteBuffer buffer; //Data being written, or the mapped pack when reading.
+
+	//Strings written/read. Id 0 is reserved for null.
+	private final Map<String, Integer> writtenStrings = new LinkedHashMap<String, Integer>();
+	private String[] readStrings;
+
+	//The index of the areas: name to (width, height, offset of the area block).
+	private final Map<String, int[]> index = new LinkedHashMap<String, int[]>();
+	private int dataStart; //Position of the data in the mapped pack.
+
+	//The objects of the world read from the pack.
+	private final List<DoorGO> doorObjects = new ArrayList<DoorGO>();
+	private final List<MovableGO> movableObjects = new ArrayList<MovableGO>();
+	private final List<NonHumanPlayer> nonHumanPlayers = new ArrayList<NonHumanPlayer>();
+	private final Map<String, InventoryGO> inventoryObjects = new LinkedHashMap<String, InventoryGO>();
+	private final Map<String, FixedContainerGO> fixedContainerObjects = new LinkedHashMap<String, FixedContainerGO>();
+	private final Map<FixedContainerGO, List<Position>> containerMarkers = new IdentityHashMap<FixedContainerGO, List<Position>>();
+	private final Map<NonHumanPlayer, String> npcAreas = new IdentityHashMap<NonHumanPlayer, String>(); //Area each NPC starts in.
+
+	private WorldPack() {
+	}
+
+	/**
+	 * Compiles the world in the text files of src/areas into src/areas/world.pack. Run from the project directory.
+	 */
+	public static void main(String[] args) throws IOException {
+		Path pack = args.length > 0 ? Paths.get(args[0]) : SpookySchool.WORLD_PACK_FILE;
+
+		long start = System.nanoTime();
+		SpookySchool world = new SpookySchool(0, false);
+		compile(world, pack);
+
+		System.out.println("Compiled " + world.getAreas().size() + " areas into " + pack + " (" + Files.size(pack)
+				+ " bytes) in " + (System.nanoTime() - start) / 1000000 + "ms.");
+	}
+
+	/**
+	 * Write the world of the given game to a pack. The game must be freshly loaded from the text files, with no players in it.
+	 * @param world the game holding the world.
+	 * @param file the pack file to write.
+	 * @throws IOException if the pack cannot be written.
+	 */
+	public static void compile(SpookySchool world, Path file) throws IOException {
+		if (!world.getPlayers().isEmpty()) {
+			throw new Error("Only a world without players can be compiled.");
+		}
+
+		WorldPack pack = new WorldPack();
+		pack.buffer = ByteBuffer.allocate(64 * 1024);
+
+		//Write the data first, so the index and the string table are known.
+		List<Area> areas = new ArrayList<Area>(world.getAreas().values());
+		int[] offsets = new int[areas.size()];
+		for (int i = 0; i < areas.size(); i++) {
+			offsets[i] = pack.buffer.position();
+			pack.writeArea(areas.get(i));
+		}
+		int objectsOffset = pack.buffer.position();
+		pack.writeObjects(world);
+
+		ByteBuffer data = pack.buffer;
+		data.flip();
+
+		//Then the head of the pack: the string table and the index.
+		pack.buffer = ByteBuffer.allocate(16 * 1024);
+		pack.ensure(8);
+		pack.buffer.putInt(MAGIC);
+		pack.buffer.putInt(VERSION);
+		List<String> strings = new ArrayList<String>(pack.writtenStrings.keySet());
+		for (Area area : areas) {
+			if (!pack.writtenStrings.containsKey(area.getAreaName())) {
+				strings.add(area.getAreaName()); //Only named in the index.
+				pack.writtenStrings.put(area.getAreaName(), strings.size());
+			}
+		}
+		pack.writeVarInt(strings.size());
+		for (String string : strings) {
+			byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+			pack.writeVarInt(bytes.length);
+			pack.ensure(bytes.length);
+			pack.buffer.put(bytes);
+		}
+		pack.ensure(4);
+		pack.buffer.putInt(objectsOffset);
+		pack.writeVarInt(areas.size());
+		for (int i = 0; i < areas.size(); i++) {
+			pack.writeString(areas.get(i).getAreaName());
+			pack.writeVarInt(areas.get(i).width);
+			pack.writeVarInt(areas.get(i).height);
+			pack.writeVarInt(offsets[i]);
+		}
+		pack.buffer.flip();
+
+		//Written to a temporary file first so that a game is never created from a half written pack.
+		Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+		try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			while (pack.buffer.hasRemaining()) {
+				channel.write(pack.buffer);
+			}
+			while (data.hasRemaining()) {
+				channel.write(data);
+			}
+		}
+		Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Open the given pack. The objects of the world are read straight away, but the areas are only read when they are loaded
+	 * with loadArea(..).
+	 * @param file the pack file.
+	 * @return the opened pack.
+	 * @throws IOException if the file cannot be read or is not a valid pack.
+	 */
+	public static WorldPack open(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			//The mapping stays valid after the channel is closed.
+			MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+			WorldPack pack = new WorldPack();
+			pack.buffer = mapped;
+			pack.readHead();
+			return pack;
+
+		} catch (RuntimeException e) {
+			//Buffer underflows, bad casts and invalid state all mean the file is not a valid pack.
+			throw new IOException("Invalid world pack: " + file, e);
+		}
+	}
+
+	/**
+	 * Load the area with the given name: its tiles and fixed objects from the pack, and the objects of the world that are
+	 * currently in it. The area may be loaded again after it has been dropped, which gives a new area in the same state.
+	 * Areas can be loaded from any thread.
+	 * @param name the name of the area.
+	 * @return the loaded area, or null if there is no area with the given name.
+	 * @throws IOException if the area cannot be read.
+	 */
+	public synchronized Area loadArea(String name) throws IOException {
+		int[] entry = this.index.get(name);
+		if (entry == null) {
+			return null;
+		}
+
+		try {
+			this.buffer.position(this.dataStart + entry[2]);
+			Area area = this.readArea(name, entry[0], entry[1]);
+			this.placeObjects(area);
+			return area;
+
+		} catch (RuntimeException e) {
+			throw new IOException("Invalid world pack area: " + name, e);
+		}
+	}
+
+	/**
+	 * @param pack the pack file.
+	 * @param sources the directories holding the text files the pack is compiled from.
+	 * @return true if the pack exists and is newer than every text file it is compiled from.
+	 * @throws IOException if the files cannot be read.
+	 */
+	public static boolean isUpToDate(Path pack, Path... sources) throws IOException {
+		if (!Files.isRegularFile(pack)) {
+			return false;
+		}
+
+		FileTime compiled = Files.getLastModifiedTime(pack);
+		for (Path dir : sources) {
+			try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*.txt")) {
+				for (Path file : files) {
+					if (Files.getLastModifiedTime(file).compareTo(compiled) > 0) {
+						return false;
+					}
+				}
+			}
+		}
+		return true;
+	}
+
+	/** WRITING **/
+
+	/**
+	 * Write the tiles of the given area and the fixed objects standing on them.
+	 */
+	private void writeArea(Area area) throws IOException {
+		List<FixedGO> fixedObjects = new ArrayList<FixedGO>();
+		Map<GameObject, List<Position>> markers = new IdentityHashMap<GameObject, List<Position>>();
+
+		for (int y = 0; y < area.height; y++) {
+			for (int x = 0; x < area.width; x++) {
+				this.ensure(1);
+				if (!area.hasTile(x, y)) {
+					this.buffer.put((byte) NO_TILE);
+					continue;
+				}
+				this.buffer.put((byte) (area.isFloor(x, y) ? FLOOR_TILE : WALL_TILE));
+				this.writeString(area.getToken(x, y));
+
+				GameObject occupant = area.getOccupant(x, y);
+				if (occupant instanceof FixedGO) {
+					fixedObjects.add((FixedGO) occupant);
+				} else if (occupant instanceof MarkerGO) {
+					GameObject base = ((MarkerGO) occupant).getBaseGO();
+					if (!markers.containsKey(base)) {
+						markers.put(base, new ArrayList<Position>());
+					}
+					markers.get(base).add(occupant.getPosition());
+				}
+			}
+		}
+
+		this.writeVarInt(fixedObjects.size());
+		for (FixedGO fixed : fixedObjects) {
+			this.writeString(fixed.getId());
+			this.writeString(fixed.getToken());
+			this.writePosition(fixed.getPosition());
+			this.writeString(fixed.getDescription());
+			this.writePositions(markers.get(fixed));
+		}
+	}
+
+	/**
+	 * Write the objects that are placed into the areas, in the order they are loaded from the text files.
+	 */
+	private void writeObjects(SpookySchool world) throws IOException {
+		this.writeVarInt(world.getDoorObjects().size());
+		for (DoorGO door : world.getDoorObjects()) {
+			this.writeString(door.getId());
+			this.writeBoolean(door.isOpen());
+			this.writeBoolean(door.isLocked());
+			this.writeString(door.getKeyID());
+			this.writeString(door.getSideA());
+			this.writeString(door.getTokenA());
+			this.writePosition(door.getSideAPos());
+			this.writePosition(door.getSideAEntryPos());
+			this.writeString(door.getSideB());
+			this.writeString(door.getTokenB());
+			this.writePosition(door.getSideBPos());
+			this.writePosition(door.getSideBEntryPos());
+		}
+
+		this.writeVarInt(world.getMovableObjects().size());
+		for (MovableGO movable : world.getMovableObjects()) {
+			this.writeString(movable.getId());
+			this.writeString(movable.getToken());
+			this.writeString(movable.getAreaName());
+			this.writePosition(movable.getPosition());
+		}
+
+		this.writeVarInt(world.getNonHumanPlayers().size());
+		for (NonHumanPlayer npc : world.getNonHumanPlayers()) {
+			this.writeString(npc.getPlayerName());
+			this.writeString(npc.getToken());
+			this.writeString(npc.getCurrentArea().getAreaName());
+			this.writePosition(npc.getCurrentPosition());
+			List<String> directions = npc.getDirections();
+			this.writeVarInt(directions.size());
+			for (String direction : directions) {
+				this.writeString(direction);
+			}
+		}
+
+		//Items in containers are written as fills, after every item has been written.
+		List<InventoryGO> filled = new ArrayList<InventoryGO>();
+		List<GameObject> fillContainers = new ArrayList<GameObject>();
+
+		this.writeVarInt(world.getInventoryObjects().size());
+		for (InventoryGO item : world.getInventoryObjects().values()) {
+			this.writeBoolean(item instanceof ContainerGO);
+			this.writeString(item.getName());
+			this.writeString(item.getId());
+			this.writeString(item.getToken());
+			this.writeVarInt(item.getSize());
+			this.writeString(item.getAreaName());
+			this.writeBoolean(item.getPosition() != null);
+			if (item.getPosition() != null) {
+				this.writePosition(item.getPosition());
+			}
+			this.writeString(item.getDescription());
+
+			if (item instanceof ContainerGO) {
+				for (InventoryGO inside : ((ContainerGO) item).getAllItems()) {
+					filled.add(inside);
+					fillContainers.add(item);
+				}
+			}
+		}
+
+		this.writeVarInt(world.getFixedContainerObjects().size());
+		for (FixedContainerGO container : world.getFixedContainerObjects().values()) {
+			this.writeString(container.getName());
+			this.writeString(container.getArea());
+			this.writeString(container.getId());
+			this.writeString(container.getToken());
+			this.writeBoolean(container.isOpen());
+			this.writeBoolean(container.isLocked());
+			this.writeString(container.getKeyID());
+			this.writeVarInt(container.getSize());
+			this.writePosition(container.getPosition());
+
+			//The marker tiles that make up the rest of the container.
+			List<Position> markers = new ArrayList<Position>();
+			Area area = world.getAreas().get(container.getArea());
+			for (int y = 0; y < area.height; y++) {
+				for (int x = 0; x < area.width; x++) {
+					GameObject occupant = area.getOccupant(x, y);
+					if (occupant instanceof MarkerGO && ((MarkerGO) occupant).getBaseGO() == container) {
+						markers.add(occupant.getPosition());
+					}
+				}
+			}
+			this.writePositions(markers);
+
+			for (InventoryGO inside : container.getAllItems()) {
+				filled.add(inside);
+				fillContainers.add(container);
+			}
+		}
+
+		this.writeVarInt(filled.size());
+		for (int i = 0; i < filled.size(); i++) {
+			this.writeString(filled.get(i).getId());
+			this.writeBoolean(fillContainers.get(i) instanceof FixedContainerGO);
+			this.writeString(fillContainers.get(i).getId());
+		}
+	}
+
+	private void writePositions(List<Position> positions) throws IOException {
+		if (positions == null) {
+			this.writeVarInt(0);
+			return;
+		}
+		this.writeVarInt(positions.size());
+		for (Position position : positions) {
+			this.writePosition(position);
+		}
+	}
+
+	private void writePosition(Position position) throws IOException {
+		this.writeVarInt(position.getPosX());
+		this.writeVarInt(position.getPosY());
+	}
+
+	private void writeBoolean(boolean value) throws IOException {
+		this.ensure(1);
+		this.buffer.put((byte) (value ? 1 : 0));
+	}
+
+	private void writeString(String string) throws IOException {
+		if (string == null) {
+			this.writeVarInt(0);
+			return;
+		}
+
+		Integer id = this.writtenStrings.get(string);
+		if (id == null) {
+			id = this.writtenStrings.size() + 1;
+			this.writtenStrings.put(string, id);
+		}
+		this.writeVarInt(id);
+	}
+
+	private void writeVarInt(int value) throws IOException {
+		this.ensure(5);
+		while ((value & ~0x7F) != 0) {
+			this.buffer.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		this.buffer.put((byte) value);
+	}
+
+	/**
+	 * Make sure the write buffer has room for the given number of bytes, growing it if it does not.
+	 */
+	private void ensure(int bytes) {
+		if (this.buffer.remaining() < bytes) {
+			ByteBuffer larger = ByteBuffer.allocate(Math.max(this.buffer.capacity() * 2, this.buffer.position() + bytes));
+			this.buffer.flip();
+			larger.put(this.buffer);
+			this.buffer = larger;
+		}
+	}
+
+	/** READING **/
+
+	private void readHead() throws IOException {
+		if (this.buffer.getInt() != MAGIC) {
+			throw new IOException("Not a world pack");
+		}
+		int version = this.buffer.getInt();
+		if (version != VERSION) {
+			throw new IOException("Unsupported world pack version: " + version);
+		}
+
+		this.readStrings = new String[this.readVarInt() + 1];
+		for (int i = 1; i < this.readStrings.length; i++) {
+			byte[] bytes = new byte[this.readVarInt()];
+			this.buffer.get(bytes);
+			this.readStrings[i] = new String(bytes, StandardCharsets.UTF_8);
+		}
+
+		int objectsOffset = this.buffer.getInt();
+		for (int count = this.readVarInt(); count > 0; count--) {
+			String name = this.readString();
+			this.index.put(name, new int[] { this.readVarInt(), this.readVarInt(), this.readVarInt() });
+		}
+		this.dataStart = this.buffer.position();
+
+		this.buffer.position(this.dataStart + objectsOffset);
+		this.readObjects();
+	}
+
+	private Area readArea(String name, int width, int height) throws IOException {
+		Area area = new Area(name, width, height);
+
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				int kind = this.buffer.get();
+				if (kind != NO_TILE) {
+					area.setTile(x, y, kind == FLOOR_TILE, this.readString());
+				}
+			}
+		}
+
+		int fixedCount = this.readVarInt();
+		for (int i = 0; i < fixedCount; i++) {
+			FixedGO fixed = new FixedGO(this.readString(), this.readString(), this.readPosition());
+			fixed.setDescription(this.readString());
+			this.place(area, fixed, fixed.getPosition());
+			for (Position position : this.readPositions()) {
+				this.place(area, new MarkerGO(fixed, position), position);
+			}
+		}
+
+		return area;
+	}
+
+	/**
+	 * Place the objects that are currently in the given area into it. The objects are placed in the order they are loaded
+	 * from the text files, and from where they are now rather than where they started, so that an area that was unloaded
+	 * comes back as it was left.
+	 */
+	private void placeObjects(Area area) {
+		String name = area.getAreaName();
+
+		for (DoorGO door : this.doorObjects) {
+			if (name.equals(door.getSideA())) {
+				this.place(area, door, door.getSideAPos());
+			}
+			if (name.equals(door.getSideB())) {
+				this.place(area, door, door.getSideBPos());
+			}
+		}
+
+		for (MovableGO movable : this.movableObjects) {
+			if (name.equals(movable.getAreaName())) {
+				this.place(area, movable, movable.getPosition());
+			}
+		}
+
+		for (NonHumanPlayer npc : this.nonHumanPlayers) {
+			Area current = npc.getCurrentArea();
+			if (name.equals(current == null ? this.npcAreas.get(npc) : current.getAreaName())) {
+				npc.setCurrentArea(area);
+				this.place(area, npc, npc.getCurrentPosition());
+			}
+		}
+
+		for (InventoryGO item : this.inventoryObjects.values()) {
+			if (item.getPosition() != null && name.equals(item.getAreaName())) {
+				this.place(area, item, item.getPosition());
+			}
+		}
+
+		for (FixedContainerGO container : this.fixedContainerObjects.values()) {
+			if (name.equals(container.getArea())) {
+				this.place(area, container, container.getPosition());
+				for (Position position : this.containerMarkers.get(container)) {
+					this.place(area, new MarkerGO(container, position), position);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Read the objects of the world. They are placed into their areas as the areas are loaded.
+	 */
+	private void readObjects() throws IOException {
+		int count = this.readVarInt();
+		for (int i = 0; i < count; i++) {
+			this.doorObjects.add(new DoorGO(this.readString(), this.readBoolean(), this.readBoolean(), this.readString(),
+					this.readString(), this.readString(), this.readPosition(), this.readPosition(), this.readString(),
+					this.readString(), this.readPosition(), this.readPosition()));
+		}
+
+		count = this.readVarInt();
+		for (int i = 0; i < count; i++) {
+			this.movableObjects.add(new MovableGO(this.readString(), this.readString(), this.readString(), this.readPosition()));
+		}
+
+		count = this.readVarInt();
+		for (int i = 0; i < count; i++) {
+			String id = this.readString();
+			String token = this.readString();
+			String areaName = this.readString();
+			Position position = this.readPosition();
+			List<String> directions = new ArrayList<String>();
+			for (int d = this.readVarInt(); d > 0; d--) {
+				directions.add(this.readString());
+			}
+
+			NonHumanPlayer npc = new NonHumanPlayer(id, token, null, position, directions); //Area set when it is loaded.
+			this.npcAreas.put(npc, areaName);
+			this.nonHumanPlayers.add(npc);
+		}
+
+		count = this.readVarInt();
+		for (int i = 0; i < count; i++) {
+			boolean container = this.readBoolean();
+			String name = this.readString();
+			String id = this.readString();
+			String token = this.readString();
+			int size = this.readVarInt();
+			String areaName = this.readString();
+			Position position = this.readBoolean() ? this.readPosition() : null;
+			String description = this.readString();
+
+			if (container) {
+				this.inventoryObjects.put(id, new ContainerGO(name, id, token, size, areaName, position, description));
+			} else {
+				this.inventoryObjects.put(id, new InventoryGO(name, id, token, size, areaName, position, description));
+			}
+		}
+
+		count = this.readVarInt();
+		for (int i = 0; i < count; i++) {
+			FixedContainerGO container = new FixedContainerGO(this.readString(), this.readString(), this.readString(),
+					this.readString(), this.readBoolean(), this.readBoolean(), this.readString(), this.readVarInt(),
+					this.readPosition());
+			this.containerMarkers.put(container, this.readPositions());
+			this.fixedContainerObjects.put(container.getId(), container);
+		}
+
+		count = this.readVarInt();
+		for (int i = 0; i < count; i++) {
+			InventoryGO item = this.inventoryObjects.get(this.readString());
+			boolean fixed = this.readBoolean();
+			String containerID = this.readString();
+
+			boolean added;
+			if (fixed) {
+				added = this.fixedContainerObjects.get(containerID).addToContainer(item);
+			} else {
+				added = ((ContainerGO) this.inventoryObjects.get(containerID)).addToContainer(item);
+			}
+			if (!added) {
+				throw new IOException("Item " + item.getId() + " does not fit into " + containerID);
+			}
+		}
+	}
+
+	private List<Position> readPositions() throws IOException {
+		int count = this.readVarInt();
+		List<Position> positions = new ArrayList<Position>(count);
+		for (int i = 0; i < count; i++) {
+			positions.add(this.readPosition());
+		}
+		return positions;
+	}
+
+	private void place(Area area, GameObject object, Position position) {
+		area.setOccupant(position.getPosX(), position.getPosY(), object);
+	}
+
+	private Position readPosition() throws IOException {
+		return new Position(this.readVarInt(), this.readVarInt());
+	}
+
+	private boolean readBoolean() {
+		return this.buffer.get() != 0;
+	}
+
+	private String readString() throws IOException {
+		return this.readStrings[this.readVarInt()];
+	}
+
+	private int readVarInt() throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < 32; shift += 7) {
+			byte b = this.buffer.get();
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IOException("Malformed varint");
+	}
+
+	/** GETTERS **/
+
+	/**
+	 * @return the names of the areas in the pack, in the order they were compiled.
+	 */
+	public List<String> getAreaNames() {
+		return new ArrayList<String>(this.index.keySet());
+	}
+
+	/**
+	 * @return the names of the areas the NPCs start in.
+	 */
+	public List<String> getNpcAreaNames() {
+		List<String> names = new ArrayList<String>();
+		for (NonHumanPlayer npc : this.nonHumanPlayers) {
+			if (!names.contains(this.npcAreas.get(npc))) {
+				names.add(this.npcAreas.get(npc));
+			}
+		}
+		return names;
+	}
+
+	public List<DoorGO> getDoorObjects() {
+		return this.doorObjects;
+	}
+
+	public List<MovableGO> getMovableObjects() {
+		return this.movableObjects;
+	}
+
+	public List<NonHumanPlayer> getNonHumanPlayers() {
+		return this.nonHumanPlayers;
+	}
+
+	public Map<String, InventoryGO> getInventoryObjects() {
+		return this.inventoryObjects;
+	}
+
+	public Map<String, FixedContainerGO> getFixedContainerObjects() {
+		return this.fixedContainerObjects;
+	}
+}
@@ -0,0 +1,73 @@
+package testing;
+
+import java.io.IOException;
+import java.util.Random;
+
+import game.Bundle;
+import game.SpookySchool;
+import network.BinaryBundleCodec;
+import network.BundleCodec;
+import network.SerializedBundleCodec;
+import network.StreamBundleCodec;
+
+/**
+ * Compares the bundle codecs on the same game state. For each codec a new game is created and three players play at random
+ * for 3000 ticks, moving and acting with the same random choices for every codec. Each tick every player's bundle is encoded
+ * and decoded again. Prints the bytes and time per bundle, i.e. per player per tick.
+ */
+public class CodecBenchmark {
+
+	private static final String[] PLAYERS = { "aaa", "bbb", "ccc" };
+	private static final String[] DIRECTIONS = { "NORTH", "EAST", "SOUTH", "WEST" };
+	private static final int TICKS = 3000;
+	private static final long SEED = 1; //Same random play for every codec.
+
+	public static void main(String[] args) throws IOException {
+		benchmark(SerializedBundleCodec.NAME);
+		benchmark(StreamBundleCodec.NAME);
+		benchmark(BinaryBundleCodec.NAME);
+		System.exit(0);
+	}
+
+	private static void benchmark(String codecName) throws IOException {
+		SpookySchool game = new SpookySchool();
+		BundleCodec[] encoders = new BundleCodec[PLAYERS.length];
+		BundleCodec[] decoders = new BundleCodec[PLAYERS.length];
+
+		for (int i = 0; i < PLAYERS.length; i++) {
+			game.addPlayer(PLAYERS[i]);
+			encoders[i] = BundleCodec.forName(codecName);
+			decoders[i] = BundleCodec.forName(codecName);
+		}
+
+		Random random = new Random(SEED);
+		long bytes = 0;
+		long bundles = 0;
+		long start = System.nanoTime();
+
+		for (int tick = 0; tick < TICKS; tick++) {
+			for (int i = 0; i < PLAYERS.length; i++) {
+
+				//Each player moves or acts about every fourth tick, the other ticks change nothing.
+				int choice = random.nextInt(16);
+				if (choice < DIRECTIONS.length) {
+					game.movePlayer(game.getPlayer(PLAYERS[i]), DIRECTIONS[choice]);
+				} else if (choice == DIRECTIONS.length) {
+					game.processAction(PLAYERS[i]);
+				}
+
+				Bundle bundle = game.getBundle(PLAYERS[i], true);
+				byte[] payload = encoders[i].encode(bundle);
+				decoders[i].decode(payload);
+				bundle.clearBundle();
+
+				bytes += payload.length;
+				bundles++;
+			}
+		}
+
+		long elapsed = System.nanoTime() - start;
+		System.out.println(codecName + ": " + (bytes / bundles) + " bytes/bundle, " + (elapsed / bundles / 1000.0)
+				+ " us/bundle (encode + decode)");
+	}
+}
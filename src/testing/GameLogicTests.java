@@ -3,14 +3,26 @@ package testing;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
 import org.junit.Test;
 
 import game.Area;
 import game.ContainerGO;
+import game.DoorGO;
+import game.GameObject;
 import game.InventoryGO;
 import game.Player;
 import game.Position;
 import game.SpookySchool;
+import parser.Journal;
+import parser.Parser;
+import parser.Parsernew;
+import parser.WorldPack;
+import parser.Snapshot;
 
 /**
  * JUnit tests for the game logic package.
@@ -35,6 +47,7 @@ public class GameLogicTests {
 		//Test that player is on the correct tile in the area.
 		Area a = p.getCurrentArea();
 		assertTrue(a.getTile(p.getCurrentPosition()).getOccupant().equals(p));
+		assertTrue(a.getPlayers().contains(p));
 
 		//Test that the player is currently the owner of the spawn area.
 		assertTrue(a.getOwner().getPlayerName().equals("player"));
@@ -66,6 +79,7 @@ public class GameLogicTests {
 
 		//Test player has has been removed from their tile.
 		assertTrue(a.getTile(pos).getOccupant() == null);
+		assertFalse(a.getPlayers().contains(p));
 
 		//Test player no longer has a bundle.
 		assertTrue(game.getBundle("player", false) == null);
@@ -185,6 +199,10 @@ public class GameLogicTests {
 		assertFalse(game.getInventoryObjects().isEmpty());
 		// No player exists until join
 		assertTrue(game.getPlayers().isEmpty());
+		// Game objects can be found by id
+		DoorGO door = game.getDoorObjects().get(0);
+		assertTrue(game.getGameObject(door.getId()) == door);
+		assertTrue(game.getGameObject("WRONG ID") == null);
 	}
 
 	// Room search
@@ -324,4 +342,192 @@ public class GameLogicTests {
 
 	}
 
+	// Save and restore a snapshot of the game
+	@Test
+	public void snapshotTest() throws IOException {
+		SpookySchool game = new SpookySchool();
+		game.addPlayer("aaa");
+		Player aaa = game.getPlayer("aaa");
+		game.movePlayer(aaa, "NORTH");
+
+		Path file = Files.createTempFile("spooky", ".snapshot");
+		try {
+			Snapshot.save(game, file);
+			SpookySchool loaded = Snapshot.load(file);
+
+			// player is back in the same place
+			Player loadedAaa = loaded.getPlayer("aaa");
+			assertTrue(loadedAaa != null);
+			assertTrue(loadedAaa.getPosition().equals(aaa.getPosition()));
+			Area area = loadedAaa.getCurrentArea();
+			assertTrue(area.getAreaName().equals(aaa.getCurrentArea().getAreaName()));
+			assertTrue(area.getTile(loadedAaa.getPosition()).getOccupant() == loadedAaa);
+			assertTrue(area.getOwner() == loadedAaa);
+
+			// every game object is restored
+			assertTrue(loaded.getDoorObjects().size() == game.getDoorObjects().size());
+			assertTrue(loaded.getMovableObjects().size() == game.getMovableObjects().size());
+			assertTrue(loaded.getNonHumanPlayers().size() == game.getNonHumanPlayers().size());
+			assertTrue(loaded.getInventoryObjects().keySet().equals(game.getInventoryObjects().keySet()));
+			assertTrue(loaded.getFixedContainerObjects().keySet().equals(game.getFixedContainerObjects().keySet()));
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	// Load saveNew.xml, which Parser reads and writes, as committed in the layout of the old DOM Parser
+	@Test
+	public void parserSaveNewXmlTest() throws IOException {
+		SpookySchool parserGame = new Parser().load();
+		Player marcus = parserGame.getPlayer("Marcus");
+		assertTrue(marcus != null);
+		assertTrue(marcus.getCurrentArea().getAreaName().equals("Spawn_6"));
+		assertTrue(marcus.getPosition().equals(Position.of(5, 8)));
+		assertTrue(marcus.getCurrentArea().getOwner() == marcus);
+		assertTrue(marcus.getCurrentArea().getOccupant(5, 8) == marcus);
+
+		// saved again in the current layout, it loads the same
+		Path file = Files.createTempFile("spooky", ".xml");
+		try {
+			new Parser().save(parserGame, file);
+			SpookySchool loaded = new Parser().load(file);
+			assertTrue(loaded.getPlayer("Marcus").getPosition().equals(marcus.getPosition()));
+			assertTrue(loaded.getAreas().size() == parserGame.getAreas().size());
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	// Load Save.xml, which Parsernew reads and writes, as committed in the layout of the old DOM Parsernew
+	@Test
+	public void parsernewSaveXmlTest() throws IOException {
+		SpookySchool parsernewGame = new Parsernew().load();
+		Player tony = parsernewGame.getPlayer("Tony");
+		assertTrue(tony != null);
+		assertTrue(tony.getCurrentArea().getAreaName().equals("Spawn_6"));
+		assertTrue(tony.getPosition().equals(Position.of(6, 4)));
+		assertTrue(tony.getCurrentArea().getOccupant(6, 4) == tony);
+		assertTrue(parsernewGame.getAreas().size() == new SpookySchool(4, false).getAreas().size());
+	}
+
+	// Unload an area once it is left and load it back from the world pack as it was left
+	@Test
+	public void worldPackUnloadTest() throws IOException {
+		Path pack = Files.createTempFile("spooky", ".pack");
+		try {
+			WorldPack.compile(new SpookySchool(4, false), pack);
+			SpookySchool game = new SpookySchool(4, pack);
+			game.setResidentTileBudget(0); // keep only the areas in use loaded
+			game.addPlayer("aaa");
+			Player aaa = game.getPlayer("aaa");
+			assertTrue(aaa.getCurrentArea().getAreaName().equals("Spawn_6"));
+			assertFalse(game.isAreaLoaded("Hallway"));
+
+			// pick up the key, then unlock and open the door to the hallway
+			for (int i = 0; i < 6; i++) {
+				game.movePlayer(aaa, "NORTH");
+			}
+			game.processAction("aaa");
+			game.movePlayer(aaa, "NORTH");
+			game.movePlayer(aaa, "EAST");
+			game.movePlayer(aaa, "EAST");
+			game.movePlayer(aaa, "NORTH");
+			game.processAction("aaa");
+			game.processAction("aaa");
+
+			// go into the hallway and drop the key there, so it is no longer where the world pack has it
+			game.movePlayer(aaa, "NORTH");
+			assertTrue(aaa.getCurrentArea().getAreaName().equals("Hallway"));
+			game.movePlayer(aaa, "EAST");
+			game.processDrop("aaa", "key_sh6");
+			assertTrue(aaa.getInventory().isEmpty());
+
+			// go back to the spawn room, the hallway is unloaded once it has gone unused for a tick
+			game.movePlayer(aaa, "SOUTH");
+			game.movePlayer(aaa, "SOUTH");
+			assertTrue(aaa.getCurrentArea().getAreaName().equals("Spawn_6"));
+			Area hallway = game.getArea("Hallway");
+			GameObject[][] left = new GameObject[hallway.width][hallway.height];
+			for (int x = 0; x < hallway.width; x++) {
+				for (int y = 0; y < hallway.height; y++) {
+					left[x][y] = hallway.hasTile(x, y) ? hallway.getOccupant(x, y) : null;
+				}
+			}
+			game.tick(0);
+			game.tick(0);
+			assertFalse(game.isAreaLoaded("Hallway"));
+
+			// a snapshot reads the hallway from the world pack without loading it, with the key where it was dropped
+			Path file = Files.createTempFile("spooky", ".snapshot");
+			try {
+				Snapshot.capture(game).write(file);
+				assertFalse(game.isAreaLoaded("Hallway"));
+				SpookySchool restored = Snapshot.load(file);
+				assertTrue(restored.getArea("Hallway").getOccupant(11, 3) == restored.getInventoryObjects().get("key_sh6"));
+			} finally {
+				Files.delete(file);
+			}
+
+			// go back into the hallway, it is loaded again with every object where it was left
+			game.movePlayer(aaa, "NORTH");
+			game.movePlayer(aaa, "NORTH");
+			assertTrue(game.isAreaLoaded("Hallway"));
+			Area reloaded = aaa.getCurrentArea();
+			assertTrue(reloaded.getAreaName().equals("Hallway"));
+			assertTrue(reloaded != hallway);
+			assertTrue(reloaded.getOccupant(11, 3) == game.getInventoryObjects().get("key_sh6"));
+			assertTrue(((DoorGO) reloaded.getOccupant(10, 4)).isOpen());
+			for (int x = 0; x < hallway.width; x++) {
+				for (int y = 0; y < hallway.height; y++) {
+					GameObject occupant = reloaded.hasTile(x, y) ? reloaded.getOccupant(x, y) : null;
+					if (occupant == aaa) {
+						continue;
+					}
+					// fixed objects are part of the area and are created again, the rest are the same objects
+					assertTrue(occupant == null ? left[x][y] == null
+							: left[x][y] != null && occupant.getClass() == left[x][y].getClass());
+					if (occupant instanceof DoorGO || occupant instanceof InventoryGO) {
+						assertTrue(occupant == left[x][y]);
+					}
+				}
+			}
+		} finally {
+			Files.delete(pack);
+		}
+	}
+
+	// Recover a journaled game from its checkpoint and journal
+	@Test
+	public void journalTest() throws IOException {
+		SpookySchool game = new SpookySchool();
+		Path dir = Files.createTempDirectory("spooky");
+		try {
+			Journal journal = Journal.open(dir, game);
+			game.addPlayer("aaa");
+			game.addPlayer("bbb");
+			Player aaa = game.getPlayer("aaa");
+			game.movePlayer(aaa, "NORTH");
+			game.movePlayer(aaa, "NORTH");
+			game.removePlayer("bbb");
+			journal.close();
+
+			SpookySchool recovered = Journal.recover(dir);
+
+			// joins, moves and leaves are replayed
+			Player recoveredAaa = recovered.getPlayer("aaa");
+			assertTrue(recoveredAaa != null);
+			assertTrue(recoveredAaa.getPosition().equals(aaa.getPosition()));
+			assertTrue(recoveredAaa.getDirection().equals(aaa.getDirection()));
+			assertTrue(recovered.getPlayer("bbb") == null);
+			assertTrue(recovered.getPlayers().size() == 1);
+		} finally {
+			try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+				for (Path file : files) {
+					Files.delete(file);
+				}
+			}
+			Files.delete(dir);
+		}
+	}
+
 }
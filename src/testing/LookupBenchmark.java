@@ -0,0 +1,74 @@
+package testing;
+
+import java.lang.management.ManagementFactory;
+
+import game.Area;
+import game.Direction;
+import game.Player;
+import game.SpookySchool;
+import game.Tile;
+
+/**
+ * Measures the bytes allocated by the tile lookups made on hot paths: the tile in front of a player (movement, actions and
+ * NPC path checks) and a whole area scan like the one done for every bundle. Prints the bytes allocated per lookup, which
+ * should be close to zero once the tile views of the area have been created.
+ */
+public class LookupBenchmark {
+
+	private static final int ROUNDS = 100000;
+
+	private static final Direction[] DIRECTIONS = Direction.values(); //values() returns a new array on every call.
+	private static long found; //Keeps the results of the lookups alive.
+
+	public static void main(String[] args) {
+		SpookySchool game = new SpookySchool();
+		game.addPlayer("aaa");
+		Player player = game.getPlayer("aaa");
+		Area area = player.getCurrentArea();
+
+		//Warm up so that the tile views exist and the code is compiled.
+		potentialTiles(game, player, area);
+		scanArea(area);
+
+		long before = allocatedBytes();
+		long lookups = potentialTiles(game, player, area);
+		System.out.println("getPotentialTile: " + (allocatedBytes() - before) / (double) lookups + " bytes per lookup");
+
+		before = allocatedBytes();
+		lookups = scanArea(area);
+		System.out.println("area scan: " + (allocatedBytes() - before) / (double) lookups + " bytes per tile");
+	}
+
+	private static long potentialTiles(SpookySchool game, Player player, Area area) {
+		for (int i = 0; i < ROUNDS; i++) {
+			for (Direction direction : DIRECTIONS) {
+				Tile tile = game.getPotentialTile(area, player, direction, 1 + i % 3);
+				if (tile != null) {
+					found++;
+				}
+			}
+		}
+		return ROUNDS * (long) DIRECTIONS.length;
+	}
+
+	private static long scanArea(Area area) {
+		for (int i = 0; i < ROUNDS / 100; i++) {
+			for (int y = 0; y < area.height; y++) {
+				for (int x = 0; x < area.width; x++) {
+					if (area.hasTile(x, y) && area.getVersion(x, y) >= 0 && area.getOccupant(x, y) != null) {
+						found++;
+					}
+				}
+			}
+		}
+		return (ROUNDS / 100) * (long) area.width * area.height;
+	}
+
+	/**
+	 * @return the number of bytes allocated by this thread so far.
+	 */
+	private static long allocatedBytes() {
+		return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+				.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+}
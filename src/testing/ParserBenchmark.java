@@ -0,0 +1,109 @@
+package testing;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+import org.w3c.dom.Document;
+
+import game.SpookySchool;
+import parser.Parser;
+
+/**
+ * Compares the StAX Parser with the DOM path the old savers used, on the committed saves. For each save the game it holds
+ * is loaded once, then:
+ *   StAX -- the game is streamed out with Parser.save and read back with Parser.load, which builds a new game
+ *   DOM -- a document is parsed into a DOM document and written out again with an indenting Transformer, as the old
+ *          savers wrote theirs. This leaves out walking the game to build the document, and the old load methods never
+ *          built a game, so it is the least the DOM path costs. It is run on the committed file, in the layout the old
+ *          savers wrote, and on the document the StAX Parser wrote, so that both paths are also compared on the same XML.
+ * Prints the bytes and time per save and per load.
+ */
+public class ParserBenchmark {
+
+	private static final String[] FILES = { "Save.xml", "saveNew.xml" };
+	private static final int WARMUP = 20;
+	private static final int ROUNDS = 100;
+
+	public static void main(String[] args) throws Exception {
+		for (String file : FILES) {
+			byte[] stax = benchmarkStax(Paths.get(file));
+			benchmarkDom(file + " DOM", Files.readAllBytes(Paths.get(file)));
+			benchmarkDom(file + " DOM (StAX document)", stax);
+		}
+		System.exit(0);
+	}
+
+	/**
+	 * @return the document the Parser saved
+	 */
+	private static byte[] benchmarkStax(Path file) throws IOException {
+		SpookySchool game = new Parser().load(file);
+		byte[] saved = null;
+		long saveTime = 0;
+		long loadTime = 0;
+
+		for (int round = 0; round < WARMUP + ROUNDS; round++) {
+			long start = System.nanoTime();
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			new Parser().save(game, out);
+			saved = out.toByteArray();
+			long saveEnd = System.nanoTime();
+			new Parser().load(new ByteArrayInputStream(saved));
+			long loadEnd = System.nanoTime();
+
+			if (round >= WARMUP) {
+				saveTime += saveEnd - start;
+				loadTime += loadEnd - saveEnd;
+			}
+		}
+
+		print(file + " StAX", saved.length, saveTime, loadTime);
+		return saved;
+	}
+
+	private static void benchmarkDom(String name, byte[] xml) throws Exception {
+		DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+		factory.setValidating(false);
+		factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false); //save.dtd is missing
+		byte[] saved = null;
+		long saveTime = 0;
+		long loadTime = 0;
+
+		for (int round = 0; round < WARMUP + ROUNDS; round++) {
+			long start = System.nanoTime();
+			Document document = factory.newDocumentBuilder().parse(new ByteArrayInputStream(xml));
+			long loadEnd = System.nanoTime();
+
+			Transformer transformer = TransformerFactory.newInstance().newTransformer();
+			transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+			transformer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "4");
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			transformer.transform(new DOMSource(document), new StreamResult(out));
+			saved = out.toByteArray();
+			long saveEnd = System.nanoTime();
+
+			if (round >= WARMUP) {
+				loadTime += loadEnd - start;
+				saveTime += saveEnd - loadEnd;
+			}
+		}
+
+		print(name, saved.length, saveTime, loadTime);
+	}
+
+	private static void print(String name, int bytes, long saveTime, long loadTime) {
+		System.out.println(name + ": " + bytes + " bytes, " + (saveTime / ROUNDS / 1000.0) + " us/save, "
+				+ (loadTime / ROUNDS / 1000.0) + " us/load");
+	}
+}
@@ -16,6 +16,7 @@ public class AnimationObject {
 	private boolean mainPlayer;
 	private boolean rightFoot;
 	private int current = 0;
+	private boolean started = false; //Set by the first step, which shows the first frame of the animation.
 
 	public AnimationObject(AreaDisplayPanel adp, GameObject gameObj, boolean mainPlayer, String direction, int startX,
 			int startY, int aimX, int aimY) {
@@ -58,6 +59,17 @@ public class AnimationObject {
 		current++;
 	}
 
+	/**
+	 * Moves the animation on by one frame. The first step starts the animation, so that its first frame is shown.
+	 */
+	public void step() {
+		if (this.started) {
+			this.incrementCurrent();
+		} else {
+			this.started = true;
+		}
+	}
+
 	public void changeBuffs() {
 
 		//If main player, change the main player buff
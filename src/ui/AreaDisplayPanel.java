@@ -3,13 +3,24 @@ package ui;
 import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Graphics;
-import java.awt.Image;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Rectangle;
+import java.awt.Toolkit;
+import java.awt.Transparency;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.swing.JPanel;
 
@@ -17,13 +28,11 @@ import game.Area;
 import game.Bundle;
 import game.DoorGO;
 import game.FixedContainerGO;
-import game.FloorTile;
 import game.GameObject;
 import game.MarkerGO;
 import game.Player;
 import game.Position;
-import game.Tile;
-import game.WallTile;
+import game.TileChange;
 import network.Client;
 
 /**
@@ -67,6 +76,26 @@ public class AreaDisplayPanel extends JPanel implements KeyListener, MouseListen
 	private Area currentArea;
 	private Player mainPlayer;
 
+	// Back buffer the frames are rendered into. Kept between frames, and recreated if it no longer suits the screen.
+	private VolatileImage backBuffer;
+
+	// Part of the panel that has changed since it was last repainted, or null if nothing has. Repainted on the next tick.
+	private Rectangle dirtyRegion;
+
+	// Part of the area covered by the occupant of each tile when it was last marked, without the render offset.
+	private final Map<Position, Rectangle> occupantBounds = new HashMap<Position, Rectangle>();
+
+	// Pre-rendered floors and walls of the areas most recently shown, for each view, by area layout content hash.
+	private static final int MAX_CACHED_LAYOUTS = 6;
+	private final Map<Long, StaticLayers[]> staticLayers = new LinkedHashMap<Long, StaticLayers[]>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Long, StaticLayers[]> eldest) {
+			return this.size() > MAX_CACHED_LAYOUTS;
+		}
+	};
+
 	//For animation.
 	private boolean animating = false;
 	private boolean rightFoot = true;
@@ -74,6 +103,9 @@ public class AreaDisplayPanel extends JPanel implements KeyListener, MouseListen
 	private List<GameObject> previousAreaObjects = new ArrayList<GameObject>();
 	private List<AnimationObject> toAnimate = new ArrayList<AnimationObject>();
 
+	// Rotated token of each token, for each view. Saves building the rotated token strings for every tile of every frame.
+	private final Map<String, String[]> rotatedTokens = new HashMap<String, String[]>();
+
 	// Current Rotational view 0-3
 	private int view;
 	/*			2
@@ -89,12 +121,11 @@ public class AreaDisplayPanel extends JPanel implements KeyListener, MouseListen
 
 		// setup panel
 		this.setBackground(Color.darkGray);
+		this.setDoubleBuffered(false); //Frames are rendered into our own back buffer, Swing's would only copy them again.
 		this.setFocusable(true);
 		this.requestFocus();
 		this.addKeyListener(this);
 		this.addMouseListener(this);
-		this.spriteMap = new SpriteMap();
-		this.overlayPanel = new OverlayPanel(this, spriteMap);
 
 		this.spriteMap = spriteMap;
 		this.setLayout(new BorderLayout());
@@ -133,6 +164,7 @@ public class AreaDisplayPanel extends JPanel implements KeyListener, MouseListen
 			this.currentAreaObjects = bundle.getAreaObjects();
 			this.displayRoomName();
 			this.centerPlayer();
+			this.rememberOccupantBounds();
 			return;
 
 		} else {
@@ -153,16 +185,157 @@ public class AreaDisplayPanel extends JPanel implements KeyListener, MouseListen
 
 				this.displayRoomName();
 				this.centerPlayer();
+				this.rememberOccupantBounds();
 				return;
 			}
 
+			Area previousArea = this.currentArea;
 			this.currentAreaObjects = bundle.getAreaObjects();
 			this.currentArea = this.mainPlayer.getCurrentArea();
+
+			if (this.currentArea != previousArea) {
+				//The whole area was sent again, so any tile may have changed.
+				this.markAllDirty();
+				this.rememberOccupantBounds();
+			} else {
+				this.markChangedTiles(bundle.getTileChanges());
+			}
 		}
 
 		this.addChanges();
 	}
 
+	/**
+	 * Marks the tiles changed by the bundle as dirty, e.g. doors and containers that have been opened, objects that have
+	 * been picked up and players that have moved. The changes have already been applied to the area by the client, so
+	 * the part covered by the old occupant of each tile is taken from the bounds remembered when it was last marked.
+	 * @param changes tiles that have changed since the last bundle
+	 */
+	private void markChangedTiles(List<TileChange> changes) {
+		for (TileChange change : changes) {
+			Position position = change.getPosition();
+
+			Rectangle previous = this.occupantBounds.remove(position);
+			if (previous != null) {
+				previous.translate(this.renderOffSetX, this.renderOffSetY);
+				this.markDirty(previous);
+			}
+
+			Rectangle current = this.getOccupantBounds(this.currentArea, position.getPosX(), position.getPosY());
+			if (current != null) {
+				this.markDirty(current);
+				this.occupantBounds.put(position, this.withoutRenderOffSet(current));
+			}
+		}
+	}
+
+	/**
+	 * Remembers the part of the panel covered by each occupant of the current area, so that it can be marked dirty once
+	 * the occupant has changed.
+	 */
+	private void rememberOccupantBounds() {
+		this.occupantBounds.clear();
+
+		for (Position position : this.currentArea.getOccupantPositions()) {
+			Rectangle bounds = this.getOccupantBounds(this.currentArea, position.getPosX(), position.getPosY());
+			if (bounds != null) {
+				this.occupantBounds.put(position, this.withoutRenderOffSet(bounds));
+			}
+		}
+	}
+
+	/**
+	 * @return a copy of the given bounds relative to the area rather than the panel, so that it stays valid when the view
+	 *         moves.
+	 */
+	private Rectangle withoutRenderOffSet(Rectangle bounds) {
+		Rectangle copy = new Rectangle(bounds);
+		copy.translate(-this.renderOffSetX, -this.renderOffSetY);
+		return copy;
+	}
+
+	/**
+	 * Returns the part of the panel the occupant of the given tile is drawn over, when it is not being animated.
+	 * @return the bounds, or null if nothing is drawn for the tile (e.g. it is empty or holds a marker).
+	 */
+	private Rectangle getOccupantBounds(Area area, int x, int y) {
+		GameObject occupant = area.getOccupant(x, y);
+		Sprite sprite = null;
+
+		if (occupant instanceof DoorGO) {
+			DoorGO door = (DoorGO) occupant;
+			if (door.getPosition(area.getAreaName()).equals(Position.of(x, y))) {
+				sprite = spriteMap.getSprite(getAnimatedDoorToken(door.getToken(area.getAreaName()), door.isOpen()));
+			}
+		} else if (occupant instanceof FixedContainerGO) {
+			FixedContainerGO container = (FixedContainerGO) occupant;
+			if (container.getPosition().equals(Position.of(x, y))) {
+				sprite = spriteMap.getSprite(getAnimatedDoorToken(container.getToken(), container.isOpen()));
+			}
+		} else if (occupant != null && !(occupant instanceof MarkerGO) && occupant.getPosition().equals(Position.of(x, y))) {
+			if (occupant instanceof Player) {
+				sprite = spriteMap.getSprite(getRotatedAnimatedToken(occupant.getToken(), ((Player) occupant).getDirection()));
+			} else {
+				sprite = spriteMap.getSprite(getRotatedToken(occupant.getToken()));
+			}
+		}
+
+		if (sprite == null) {
+			return null;
+		}
+
+		int tileX = this.renderOffSetX + getRotatedViewX(x, y, area.height) * getTileWidth();
+		int tileY = this.renderOffSetY + getRotatedViewY(x, y, area.height) * getTileHeight();
+		if (occupant instanceof Player) {
+			//Players stand on the bottom right of their tile, other objects are centered on its top left corner.
+			tileX -= sprite.getWidth() - getTileWidth();
+			tileY -= sprite.getHeight() - getTileHeight();
+		} else {
+			tileX -= sprite.getWidth() / 2;
+			tileY -= sprite.getHeight() / 2;
+		}
+		return new Rectangle(tileX - 1, tileY - 1, sprite.getWidth() + 2, sprite.getHeight() + 2);
+	}
+
+	/**
+	 * Marks part of the panel as changed, so that it is repainted on the next tick.
+	 * @param region part of the panel that has changed. Ignored if null.
+	 */
+	public synchronized void markDirty(Rectangle region) {
+		if (region == null) {
+			return;
+		}
+
+		if (this.dirtyRegion == null) {
+			this.dirtyRegion = new Rectangle(region);
+		} else {
+			this.dirtyRegion.add(region);
+		}
+	}
+
+	/**
+	 * Marks the whole game view as changed, e.g. when the view has moved or rotated.
+	 */
+	public void markAllDirty() {
+		this.markDirty(new Rectangle(this.windowOffSetX, this.windowOffSetY, this.windowWidth, this.windowHeight));
+	}
+
+	/**
+	 * Repaints the part of the panel that has changed since it was last repainted. Does nothing if nothing has changed, so
+	 * an idle game costs (almost) nothing to display.
+	 */
+	public void repaintDirtyRegion() {
+		Rectangle region;
+		synchronized (this) {
+			region = this.dirtyRegion;
+			this.dirtyRegion = null;
+		}
+
+		if (region != null) {
+			this.repaint(region);
+		}
+	}
+
 	/**
 	 * Find the changes that have occurred in the area since the last copy of the area was received, and add them to the toAnimate map.
 	 */
@@ -265,6 +438,65 @@ public class AreaDisplayPanel extends JPanel implements KeyListener, MouseListen
 		}
 	}
 
+	/**
+	 * Moves the animations on by one frame. Called by the FrameScheduler before the changed parts of the panel are
+	 * repainted.
+	 */
+	public void tick() {
+		for (int index = 0; index < this.toAnimate.size(); index++) {
+			AnimationObject ao = this.toAnimate.get(index);
+
+			//Other players move on every frame, so where they were and where they now are must be drawn again. (The main
+			//player moves the whole view, which is marked when it is centered.)
+			if (!ao.isMainPlayer()) {
+				this.markDirty(this.getAnimationBounds(ao));
+			}
+
+			ao.step();
+
+			if (!ao.isMainPlayer()) {
+				this.markDirty(this.getAnimationBounds(ao));
+			}
+
+			//If the animation is complete, reset the buffer back to zero.
+			if (ao.animationComplete()) {
+				if (ao.isMainPlayer()) {
+					this.animating = false;
+					this.setMainPlayerXBuff(0);
+					this.setMainPlayerYBuff(0);
+				} else {
+					//The player is drawn standing still on its tile from now on.
+					Position position = ao.getGameObj().getPosition();
+					this.markDirty(this.getOccupantBounds(this.currentArea, position.getPosX(), position.getPosY()));
+				}
+
+				this.toAnimate.remove(index--); //Remove the animation object now that animation is complete
+				continue;
+			}
+
+			//Set animating to true, and center the player.
+			if (ao.isMainPlayer()) {
+				this.animating = true;
+				ao.changeBuffs();
+				this.centerPlayerAnimation(ao.getStartX(), ao.getStartY());
+			}
+		}
+	}
+
+	/**
+	 * Returns the part of the panel an animated player is drawn over on the current frame of its animation.
+	 */
+	private Rectangle getAnimationBounds(AnimationObject ao) {
+		Player player = (Player) ao.getGameObj();
+		Sprite sprite = spriteMap.getSprite(getRotatedAnimatedToken(ao.getNextImgToken(), player.getDirection()));
+		Position position = ao.getPosition();
+
+		//Players stand on the bottom right of their tile.
+		int x = position.getPosX() - (sprite.getWidth() - getTileWidth());
+		int y = position.getPosY() - (sprite.getHeight() - getTileHeight());
+		return new Rectangle(x - 2, y - 2, sprite.getWidth() + 4, sprite.getHeight() + 4);
+	}
+
 	/**
 	 * Display the current room name in the header of the overlay panel.
 	 */
@@ -301,6 +533,7 @@ public class AreaDisplayPanel extends JPanel implements KeyListener, MouseListen
 
 		this.renderOffSetX = (windowCenterX - playerX) - getMainPlayerXBuff();
 		this.renderOffSetY = (windowCenterY - playerY) - getMainPlayerYBuff();
+		this.markAllDirty(); //The whole view has moved.
 	}
 
 	/**
@@ -320,44 +553,205 @@ public class AreaDisplayPanel extends JPanel implements KeyListener, MouseListen
 
 		this.renderOffSetX = (windowCenterX - playerX) - getMainPlayerXBuff();
 		this.renderOffSetY = (windowCenterY - playerY) - getMainPlayerYBuff();
+		this.markAllDirty(); //The whole view has moved.
 	}
 
 	@Override
 	public void paintComponent(Graphics g) {
-		super.paintComponent(g);
+		//The whole panel is painted here, so the background is not painted first.
+		GraphicsConfiguration config = this.getGraphicsConfiguration();
+		if (config == null) {
+			g.setColor(this.getBackground());
+			g.fillRect(0, 0, this.getWidth(), this.getHeight());
+			return; //Not on screen yet.
+		}
+
+		//Render into the retained back buffer, then copy it to the screen in one go. The buffer lives in video memory and its
+		//contents can be lost at any time (e.g. when the display mode changes), in which case the frame is rendered again.
+		do {
+			int status = this.backBuffer == null ? VolatileImage.IMAGE_INCOMPATIBLE : this.backBuffer.validate(config);
+			if (status == VolatileImage.IMAGE_INCOMPATIBLE) {
+				this.backBuffer = config.createCompatibleVolatileImage(this.windowWidth, this.windowHeight);
+			}
+
+			Graphics2D offgc = this.backBuffer.createGraphics();
+			try {
+				//Only the part of the panel being repainted has changed, so only that part of the frame is rendered again.
+				//The rest of the buffer still holds the last frame, unless the buffer is new or has lost its contents.
+				if (status == VolatileImage.IMAGE_OK) {
+					offgc.clip(g.getClipBounds());
+				}
+				this.renderFrame(offgc);
+			} finally {
+				offgc.dispose();
+			}
 
-		//Double buffering to reduce flickering.
-		Image offScreen = createImage(600, 500);
-		Graphics offgc = offScreen.getGraphics();
+			g.drawImage(this.backBuffer, 0, 0, this);
+		} while (this.backBuffer.contentsLost());
+
+		//Fill any part of the panel the frame does not cover.
+		g.setColor(this.getBackground());
+		g.fillRect(this.windowWidth, 0, this.getWidth() - this.windowWidth, this.getHeight());
+		g.fillRect(0, this.windowHeight, this.windowWidth, this.getHeight() - this.windowHeight);
+
+		Toolkit.getDefaultToolkit().sync(); //Show the frame now rather than when the window system next flushes.
+	}
+
+	/**
+	 * Render a whole frame of the game.
+	 * @param offgc graphics of the back buffer.
+	 */
+	private void renderFrame(Graphics2D offgc) {
+		Area area = this.currentArea; //The same area for the whole frame.
 
 		// add underlay
 		offgc.setColor(Color.black);
 		offgc.fillRect(this.windowOffSetX, this.windowOffSetY, this.windowWidth, this.windowHeight);
 
-		if (currentArea != null)
-			if (currentArea.getAreaName().equals("Outside")) {
-				Image image = spriteMap.getImage(getRotatedToken("G0"));
-				offgc.drawImage(image, this.renderOffSetX - ((image.getWidth(null) - this.windowWidth) / 2),
-						this.renderOffSetY - ((image.getHeight(null) - this.windowHeight) / 2), null);
+		if (area != null)
+			if (area.getAreaName().equals("Outside")) {
+				Sprite sprite = spriteMap.getSprite(getRotatedToken("G0"));
+				sprite.draw(offgc, this.renderOffSetX - ((sprite.getWidth() - this.windowWidth) / 2),
+						this.renderOffSetY - ((sprite.getHeight() - this.windowHeight) / 2));
 			}
 
-		renderArray(offgc, 0); // render floor tiles
-		renderArray(offgc, 1); // render far walls
-		renderArray(offgc, 2); // render gameObjects
-		renderArray(offgc, 3); // render close and side walls
+		if (area != null) {
+			// Floors and far walls, then gameObjects, then close and side walls. The walls and floors are pre-rendered.
+			StaticLayers layers = this.getStaticLayers(area);
+			offgc.drawImage(layers.under, this.renderOffSetX + layers.x, this.renderOffSetY + layers.y, null);
+			renderObjects(offgc, layers, area);
+			offgc.drawImage(layers.over, this.renderOffSetX + layers.x, this.renderOffSetY + layers.y, null);
+		}
 
-		if (currentArea != null && currentArea.getAreaName().equals("Outside")) {
+		if (area != null && area.getAreaName().equals("Outside")) {
 			if (Math.random() < 0.98) {
-				Image image = spriteMap.getImage(getRotatedToken("N0"));
-				offgc.drawImage(image, this.renderOffSetX - ((image.getWidth(null) - this.windowWidth) / 2),
-						this.renderOffSetY - ((image.getHeight(null) - this.windowHeight) / 2), null);
+				Sprite sprite = spriteMap.getSprite(getRotatedToken("N0"));
+				sprite.draw(offgc, this.renderOffSetX - ((sprite.getWidth() - this.windowWidth) / 2),
+						this.renderOffSetY - ((sprite.getHeight() - this.windowHeight) / 2));
 
-				offgc.drawImage(spriteMap.getImage("Rain" + this.nextRain()), 0, 0, 600, 600, null);
+				spriteMap.getSprite("Rain" + this.nextRain()).draw(offgc, 0, 0, 600, 600);
 			}
+			this.markAllDirty(); //It is always raining.
 		}
+	}
+
+	/**
+	 * Returns the pre-rendered floors and walls of the current area in the current view, rendering them if they have not been
+	 * rendered yet. Layers are cached by the content of the area's layout, so areas laid out the same share their layers.
+	 * @param area the current area.
+	 * @return the static layers of the current area and view.
+	 */
+	private StaticLayers getStaticLayers(Area area) {
+		long hash = area.getLayout().getContentHash();
 
-		g.drawImage(offScreen, 0, 0, this);
+		StaticLayers[] views = this.staticLayers.get(hash);
+		if (views == null) {
+			views = new StaticLayers[4];
+			this.staticLayers.put(hash, views);
+		}
 
+		if (views[this.view] == null) {
+			views[this.view] = this.renderStaticLayers();
+		}
+		return views[this.view];
+	}
+
+	/**
+	 * Renders the floors and far walls of the current area in the current view into one image, and the close and side
+	 * walls into another. These only change when the area or the view changes.
+	 * @return the rendered layers.
+	 */
+	private StaticLayers renderStaticLayers() {
+		//Find the part of the view the tiles cover. Walls are larger than their tiles and stick out above and to the left.
+		int minX = 0;
+		int minY = 0;
+		int maxX = 1;
+		int maxY = 1;
+		for (int y = 0; y < currentArea.height; y++) {
+			for (int x = 0; x < currentArea.width; x++) {
+				Sprite sprite = currentArea.hasTile(x, y) ? spriteMap.getSprite(getRotatedToken(currentArea.getToken(x, y))) : null;
+				if (sprite == null) {
+					continue;
+				}
+
+				int left = getRotatedViewX(x, y, currentArea.height) * getTileWidth();
+				int top = getRotatedViewY(x, y, currentArea.height) * getTileHeight();
+				if (currentArea.isWall(x, y)) {
+					left -= sprite.getWidth() - getTileWidth() + 1;
+					top -= sprite.getHeight() - getTileHeight() + 1;
+				}
+				minX = Math.min(minX, left);
+				minY = Math.min(minY, top);
+				maxX = Math.max(maxX, left + sprite.getWidth() + 2);
+				maxY = Math.max(maxY, top + sprite.getHeight() + 2);
+			}
+		}
+
+		StaticLayers layers = new StaticLayers();
+		layers.x = minX;
+		layers.y = minY;
+		layers.under = this.createLayerImage(maxX - minX, maxY - minY);
+		layers.over = this.createLayerImage(maxX - minX, maxY - minY);
+		layers.fixedPositions = this.currentArea.getLayout().getFixedObjectPositions();
+
+		Graphics2D g = layers.under.createGraphics();
+		renderArray(g, 0, -minX, -minY); // render floor tiles
+		renderArray(g, 1, -minX, -minY); // render far walls
+		g.dispose();
+
+		g = layers.over.createGraphics();
+		renderArray(g, 3, -minX, -minY); // render close and side walls
+		g.dispose();
+
+		return layers;
+	}
+
+	/**
+	 * Creates a transparent image to pre-render a layer into, suited to the screen the panel is on.
+	 */
+	private BufferedImage createLayerImage(int width, int height) {
+		GraphicsConfiguration config = this.getGraphicsConfiguration();
+		if (config == null) {
+			return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB); //Not on screen.
+		}
+		return config.createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+	}
+
+	/**
+	 * Renders the gameObjects (including players) of the current area. Only the tiles that have an occupant are visited,
+	 * in the same order the whole area would be walked in for the current view, so objects overlap as they always have.
+	 * @param g graphics
+	 * @param layers static layers of the area, which hold the positions of the fixed objects.
+	 * @param area the area being rendered.
+	 */
+	private void renderObjects(Graphics g, StaticLayers layers, Area area) {
+		List<Position> positions = new ArrayList<Position>(layers.fixedPositions);
+		positions.addAll(area.getOccupantPositions());
+		Collections.sort(positions, this.getViewOrder(area.height));
+
+		for (Position position : positions) {
+			renderTile(g, 2, position.getPosX(), position.getPosY());
+		}
+	}
+
+	/**
+	 * @param height height of the area.
+	 * @return the order the tiles of an area with the given height are drawn in for the current view: back to front, then
+	 * left to right.
+	 */
+	private Comparator<Position> getViewOrder(final int height) {
+		return new Comparator<Position>() {
+			@Override
+			public int compare(Position a, Position b) {
+				int order = Integer.compare(getRotatedViewY(a.getPosX(), a.getPosY(), height),
+						getRotatedViewY(b.getPosX(), b.getPosY(), height));
+				if (order != 0) {
+					return order;
+				}
+				return Integer.compare(getRotatedViewX(a.getPosX(), a.getPosY(), height),
+						getRotatedViewX(b.getPosX(), b.getPosY(), height));
+			}
+		};
 	}
 
 	/**
@@ -368,28 +762,35 @@ public class AreaDisplayPanel extends JPanel implements KeyListener, MouseListen
 	 * @param layer - layer to render
 	 */
 	public void renderArray(Graphics g, int layer) {
+		renderArray(g, layer, this.renderOffSetX, this.renderOffSetY);
+	}
+
+	/**
+	 * Renders the suggested layer with the top left of the (rotated) area at the given position.
+	 */
+	private void renderArray(Graphics g, int layer, int originX, int originY) {
 		if (currentArea == null)
 			return;
 
 		if (view == 0) {
 			for (int y = 0; y < currentArea.height; y++)
 				for (int x = 0; x < currentArea.width; x++)
-					renderTile(g, layer, x, y);
+					renderTile(g, layer, x, y, originX, originY);
 
 		} else if (view == 1) {
 			for (int x = 0; x < currentArea.width; x++)
 				for (int y = currentArea.height - 1; y >= 0; y--)
-					renderTile(g, layer, x, y);
+					renderTile(g, layer, x, y, originX, originY);
 
 		} else if (view == 2) {
 			for (int y = currentArea.height - 1; y >= 0; y--)
 				for (int x = currentArea.width - 1; x >= 0; x--)
-					renderTile(g, layer, x, y);
+					renderTile(g, layer, x, y, originX, originY);
 
 		} else if (view == 3) {
 			for (int x = currentArea.width - 1; x >= 0; x--)
 				for (int y = 0; y < currentArea.height; y++)
-					renderTile(g, layer, x, y);
+					renderTile(g, layer, x, y, originX, originY);
 
 		}
 	}
@@ -402,34 +803,41 @@ public class AreaDisplayPanel extends JPanel implements KeyListener, MouseListen
 	 * @param y position on the area 2d array
 	 */
 	public void renderTile(Graphics g, int layer, int x, int y) {
+		renderTile(g, layer, x, y, this.renderOffSetX, this.renderOffSetY);
+	}
 
-		Tile tile = currentArea.getTile(new Position(x, y));
+	/**
+	 * Render the tile and its occupant with the top left of the (rotated) area at the given position.
+	 */
+	private void renderTile(Graphics g, int layer, int x, int y, int originX, int originY) {
 
-		int[] view = getRotatedView(x, y, currentArea.width, currentArea.height);
-		int viewX = view[0];
-		int viewY = view[1];
+		int viewX = getRotatedViewX(x, y, currentArea.height);
+		int viewY = getRotatedViewY(x, y, currentArea.height);
 
-		int finalX = this.renderOffSetX + viewX * getTileWidth();
-		int finalY = this.renderOffSetY + viewY * getTileHeight();
+		int finalX = originX + viewX * getTileWidth();
+		int finalY = originY + viewY * getTileHeight();
 
-		if (tile == null)
+		if (!currentArea.hasTile(x, y))
 			return;
 
-		String token = getRotatedToken(tile.getToken()); // Determine the rotated token
+		String token = getRotatedToken(currentArea.getToken(x, y)); // Determine the rotated token
 
 		// Draw floor tile
 		if (layer == 0) {
-			if (tile instanceof FloorTile)
-				g.drawImage(spriteMap.getImage(token), finalX, finalY, null);
+			if (currentArea.isFloor(x, y)) {
+				Sprite tileSprite = spriteMap.getSprite(token);
+				if (tileSprite != null)
+					tileSprite.draw(g, finalX, finalY);
+			}
 		}
 
 		// Draw GameObjects(including player)
 		else if (layer == 2) {
 			int adjustX = 0;
 			int adjustY = 0;
-			Image tileImage = null;
+			Sprite tileSprite = null;
 
-			GameObject roomObj = this.currentArea.getTile(new Position(x, y)).getOccupant();
+			GameObject roomObj = this.currentArea.getOccupant(x, y);
 
 			if (roomObj == null) {
 				return;
@@ -440,10 +848,10 @@ public class AreaDisplayPanel extends JPanel implements KeyListener, MouseListen
 				DoorGO door = (DoorGO) roomObj;
 				Position doorPos = door.getPosition(this.mainPlayer.getCurrentArea().getAreaName());
 				if (doorPos.getPosX() == x && doorPos.getPosY() == y) {
-					tileImage = spriteMap.getImage(getAnimatedDoorToken(
+					tileSprite = spriteMap.getSprite(getAnimatedDoorToken(
 							door.getToken(this.mainPlayer.getCurrentArea().getAreaName()), door.isOpen()));
-					adjustX = (tileImage.getWidth(null) / 2);
-					adjustY = (tileImage.getHeight(null) / 2);
+					adjustX = (tileSprite.getWidth() / 2);
+					adjustY = (tileSprite.getHeight() / 2);
 				}
 
 				// if object is a container(chest)
@@ -451,9 +859,9 @@ public class AreaDisplayPanel extends JPanel implements KeyListener, MouseListen
 				FixedContainerGO container = (FixedContainerGO) roomObj;
 				Position containerPos = container.getPosition();
 				if (containerPos.getPosX() == x && containerPos.getPosY() == y) {
-					tileImage = spriteMap.getImage(getAnimatedDoorToken(container.getToken(), container.isOpen()));
-					adjustX = (tileImage.getWidth(null) / 2);
-					adjustY = (tileImage.getHeight(null) / 2);
+					tileSprite = spriteMap.getSprite(getAnimatedDoorToken(container.getToken(), container.isOpen()));
+					adjustX = (tileSprite.getWidth() / 2);
+					adjustY = (tileSprite.getHeight() / 2);
 				}
 
 				// maker is a game
@@ -463,10 +871,10 @@ public class AreaDisplayPanel extends JPanel implements KeyListener, MouseListen
 				if (roomObj instanceof Player) {
 					Player p = (Player) roomObj;
 
-					tileImage = spriteMap.getImage(getRotatedAnimatedToken(roomObj.getToken(), p.getDirection()));
+					tileSprite = spriteMap.getSprite(getRotatedAnimatedToken(roomObj.getToken(), p.getDirection()));
 
-					adjustX = (tileImage.getWidth(null) - getTileWidth());
-					adjustY = (tileImage.getHeight(null) - getTileHeight());
+					adjustX = (tileSprite.getWidth() - getTileWidth());
+					adjustY = (tileSprite.getHeight() - getTileHeight());
 
 					AnimationObject ao = null;
 					int index;
@@ -478,66 +886,48 @@ public class AreaDisplayPanel extends JPanel implements KeyListener, MouseListen
 						}
 					}
 
-					//If this player needs to be animated, change final x and final y for animation.
+					//If this player is being animated, change final x and final y for animation.
 					if (ao != null) {
 
-						tileImage = spriteMap.getImage(getRotatedAnimatedToken(ao.getNextImgToken(), p.getDirection()));
-
-						//Set animating to true, and center the player.
-						if (ao.isMainPlayer()) {
-							this.animating = true;
-							ao.changeBuffs();
-							this.centerPlayerAnimation(ao.getStartX(), ao.getStartY());
-						}
+						tileSprite = spriteMap.getSprite(getRotatedAnimatedToken(ao.getNextImgToken(), p.getDirection()));
 
 						Position posToDraw = ao.getPosition(); //Dont need to worry since its main player.
-						ao.incrementCurrent();
 
 						finalX = posToDraw.getPosX();
 						finalY = posToDraw.getPosY();
-
-						//If the animation is complete, reset the buffer back to zero.
-						if (ao.animationComplete()) {
-							if (ao.isMainPlayer()) {
-								this.animating = false;
-								this.setMainPlayerXBuff(0);
-								this.setMainPlayerYBuff(0);
-								//this.repaint();
-							}
-
-							this.toAnimate.remove(index); //Remove the animation object now that animation is complete
-						}
 					}
 
 				} else {
-					tileImage = spriteMap.getImage(getRotatedToken(roomObj.getToken()));
-					adjustX = (tileImage.getWidth(null) / 2);
-					adjustY = (tileImage.getHeight(null) / 2);
+					tileSprite = spriteMap.getSprite(getRotatedToken(roomObj.getToken()));
+					adjustX = (tileSprite.getWidth() / 2);
+					adjustY = (tileSprite.getHeight() / 2);
 				}
 			}
 
-			g.drawImage(tileImage, finalX - adjustX, finalY - adjustY, null);
+			if (tileSprite != null) {
+				tileSprite.draw(g, finalX - adjustX, finalY - adjustY);
+			}
 		}
 
 		// Draw Walls(Back and side walls with layer 1, front with layer 3)
-		if (tile instanceof WallTile) {
-			Image tileImage = spriteMap.getImage(token);
-			int adjustX = tileImage.getWidth(null) - getTileWidth();
-			int adjustY = tileImage.getHeight(null) - getTileHeight();
+		if (currentArea.isWall(x, y)) {
+			Sprite tileSprite = spriteMap.getSprite(token);
+			int adjustX = tileSprite.getWidth() - getTileWidth();
+			int adjustY = tileSprite.getHeight() - getTileHeight();
 
 			if (token.equals("w0") || token.equals("L2") || token.equals("W1") || token.equals("W2")
 					|| token.equals("F2") || token.equals("F1") || token.equals("f2") || token.equals("B0")
 					|| token.equals("u0") || token.equals("L1") || token.equals("Q1") || token.equals("Q2")) {
 
 				if (layer == 1) {
-					g.drawImage(tileImage, finalX - adjustX - 1, finalY - adjustY - 1, tileImage.getWidth(null) + 2,
-							tileImage.getHeight(null) + 2, null);
+					tileSprite.draw(g, finalX - adjustX - 1, finalY - adjustY - 1, tileSprite.getWidth() + 2,
+							tileSprite.getHeight() + 2);
 
 				}
 			} else {
 				if (layer == 3) {
-					g.drawImage(tileImage, finalX - adjustX - 1, finalY - adjustY - 1, tileImage.getWidth(null) + 2,
-							tileImage.getHeight(null) + 2, null);
+					tileSprite.draw(g, finalX - adjustX - 1, finalY - adjustY - 1, tileSprite.getWidth() + 2,
+							tileSprite.getHeight() + 2);
 				}
 			}
 		}
@@ -558,20 +948,47 @@ public class AreaDisplayPanel extends JPanel implements KeyListener, MouseListen
 	 */
 	public int[] getRotatedView(int x, int y, int width, int height) {
 		int[] r = new int[2];
-		int newX = 0, newY = 0;
-		int oldX = x, oldY = y;
+		r[0] = getRotatedViewX(x, y, height);
+		r[1] = getRotatedViewY(x, y, height);
 
-		for (int i = 0; i < view; i++) {
-			newY = oldX;
-			newX = oldY;
-			newX = height - oldY - 1;
-			oldX = newX;
-			oldY = newY;
+		return r;
+	}
+
+	/**
+	 * Determines the x position a tile is drawn at from its logical position and the current view. Each rotation
+	 * maps (x, y) to (height - y - 1, x).
+	 *
+	 * @return x position of the tile in the current view
+	 */
+	public int getRotatedViewX(int x, int y, int height) {
+		switch (view) {
+		case 1:
+			return height - y - 1;
+		case 2:
+			return height - x - 1;
+		case 3:
+			return y;
+		default:
+			return x;
 		}
-		r[0] = oldX;
-		r[1] = oldY;
+	}
 
-		return r;
+	/**
+	 * Determines the y position a tile is drawn at from its logical position and the current view.
+	 *
+	 * @return y position of the tile in the current view
+	 */
+	public int getRotatedViewY(int x, int y, int height) {
+		switch (view) {
+		case 1:
+			return x;
+		case 2:
+			return height - y - 1;
+		case 3:
+			return height - x - 1;
+		default:
+			return y;
+		}
 	}
 
 	/**
@@ -589,6 +1006,10 @@ public class AreaDisplayPanel extends JPanel implements KeyListener, MouseListen
 			view = 3;
 		else if (view == 4)
 			view = 0;
+		this.markAllDirty();
+		if (this.currentArea != null) {
+			this.rememberOccupantBounds(); //Every occupant is now drawn somewhere else.
+		}
 	}
 
 	/**
@@ -636,6 +1057,26 @@ public class AreaDisplayPanel extends JPanel implements KeyListener, MouseListen
 		if (token == null)
 			return null;
 
+		String[] rotated = this.rotatedTokens.get(token);
+		if (rotated == null) {
+			rotated = new String[4];
+			this.rotatedTokens.put(token, rotated);
+		}
+
+		if (rotated[view] == null) {
+			rotated[view] = rotateToken(token);
+		}
+
+		return rotated[view];
+	}
+
+	/**
+	 * Builds the rotated token for the current view.
+	 *
+	 * @param token
+	 * @return
+	 */
+	private String rotateToken(String token) {
 		for (int b = 0; b < view; b++) {
 
 			String j = "" + token.charAt(token.length() - 1);
@@ -896,4 +1337,16 @@ public class AreaDisplayPanel extends JPanel implements KeyListener, MouseListen
 	@Override
 	public void mouseReleased(MouseEvent e) {
 	}
+
+	/**
+	 * Floors and walls of an area pre-rendered for one view. The images are drawn with their top left at (x, y) from the
+	 * top left of the area.
+	 */
+	private static class StaticLayers {
+		private int x;
+		private int y;
+		private BufferedImage under; //Floors and far walls, drawn before the gameObjects.
+		private BufferedImage over; //Close and side walls, drawn after the gameObjects.
+		private List<Position> fixedPositions; //Positions of the fixed objects, which are drawn with the gameObjects.
+	}
 }
@@ -30,6 +30,9 @@ public class CreateServerPanel extends JPanel {
 	private JPanel contentPane;
 
 	private Integer port = 4444;
+	private Integer maxPlayers = 4; //Maximum number of players that can connect to the server.
+	private final int ioThreads = 2; //Number of threads used to run the connections.
+	private final int tickRate = 50; //Number of times per second the game is updated.
 	private Server server;
 
 	private BufferedImage uiBackground;
@@ -98,10 +101,24 @@ public class CreateServerPanel extends JPanel {
 		portField.setFont(customFont.deriveFont(Font.TRUETYPE_FONT, 11f));
 		this.add(portField);
 
+		//max players label
+		JLabel maxPlayersLabel = new JLabel("Max Players:");
+		maxPlayersLabel.setForeground(Color.WHITE);
+		maxPlayersLabel.setBounds(100, 455, 200, 30);
+		maxPlayersLabel.setFont(customFont.deriveFont(Font.TRUETYPE_FONT, 12f));
+		this.add(maxPlayersLabel);
+
+		//Add Max Players Field
+		JTextField maxPlayersField = new JTextField(this.maxPlayers.toString(), 15);
+		maxPlayersField.setHorizontalAlignment(SwingConstants.CENTER);
+		maxPlayersField.setBounds(225, 455, 175, 30);
+		maxPlayersField.setFont(customFont.deriveFont(Font.TRUETYPE_FONT, 11f));
+		this.add(maxPlayersField);
+
 		//Add Create Server Button.
 		JButton createServerBtn = new JButton("Create Server");
 		createServerBtn.setToolTipText("Click here to create a new server");
-		createServerBtn.setBounds(100, 460, 300, 70);
+		createServerBtn.setBounds(100, 495, 300, 60);
 		createServerBtn.setFont(customFont.deriveFont(Font.TRUETYPE_FONT, 12f));
 		this.add(createServerBtn);
 
@@ -109,12 +126,24 @@ public class CreateServerPanel extends JPanel {
 			@Override
 			public void actionPerformed(ActionEvent event) {
 
-				port = Integer.parseInt(portField.getText());
+				try {
+					port = Integer.parseInt(portField.getText().trim());
+					maxPlayers = Integer.parseInt(maxPlayersField.getText().trim());
+				} catch (NumberFormatException e) {
+					printToTextPrintArea("Port and max players must be numbers.");
+					return;
+				}
+
+				if (maxPlayers < 1) {
+					printToTextPrintArea("Max players must be at least 1.");
+					return;
+				}
 
-				server = new Server(port, CreateServerPanel.this);
+				server = new Server(port, CreateServerPanel.this, maxPlayers, ioThreads, tickRate);
 				server.start(); //Start the server.
 
 				portField.setEditable(false); //Disable the ability to hange the port field.
+				maxPlayersField.setEditable(false);
 				createServerBtn.setEnabled(false); //Disable create server button
 			}
 		});
@@ -0,0 +1,71 @@
+package ui;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+
+import javax.swing.Timer;
+
+/**
+ * Drives the game view: on every frame the overlay and the animations are moved on by one step, and then the parts of the
+ * game view that have changed are repainted. Frames run on the event dispatch thread at a fixed rate, and a frame that is
+ * late is dropped rather than queued, so a slow client falls behind smoothly instead of piling up work. Between frames the
+ * client sleeps, and a frame where nothing has changed repaints nothing.
+ *
+ * Animations move a fixed number of pixels each frame, so the frame rate also sets how fast players walk.
+ */
+public class FrameScheduler {
+
+	public static final int DEFAULT_FRAMES_PER_SECOND = 125; //A frame every 8ms, the speed the animations were made for.
+
+	private final AreaDisplayPanel panel;
+	private final OverlayPanel overlayPanel;
+	private final Timer timer;
+
+	public FrameScheduler(AreaDisplayPanel panel, OverlayPanel overlayPanel, int framesPerSecond) {
+		this.panel = panel;
+		this.overlayPanel = overlayPanel;
+
+		this.timer = new Timer(getDelay(framesPerSecond), new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				frame();
+			}
+		});
+		this.timer.setCoalesce(true); //Drop frames that are late.
+	}
+
+	public FrameScheduler(AreaDisplayPanel panel, OverlayPanel overlayPanel) {
+		this(panel, overlayPanel, DEFAULT_FRAMES_PER_SECOND);
+	}
+
+	/**
+	 * Move everything on by one frame, and repaint what has changed.
+	 */
+	private void frame() {
+		this.overlayPanel.tick();
+		this.panel.tick();
+		this.panel.repaintDirtyRegion();
+	}
+
+	public void start() {
+		this.timer.start();
+	}
+
+	public void stop() {
+		this.timer.stop();
+	}
+
+	/**
+	 * Sets the highest number of frames to run each second.
+	 */
+	public void setFramesPerSecond(int framesPerSecond) {
+		this.timer.setDelay(getDelay(framesPerSecond));
+	}
+
+	private static int getDelay(int framesPerSecond) {
+		if (framesPerSecond <= 0) {
+			throw new IllegalArgumentException("Frames per second must be positive: " + framesPerSecond);
+		}
+		return Math.max(1, 1000 / framesPerSecond);
+	}
+}
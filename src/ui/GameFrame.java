@@ -47,6 +47,8 @@ public class GameFrame extends JFrame implements WindowListener {
 	private String name;
 	//Overlay Panel
 	private OverlayPanel overlayPanel;
+	//Moves the game view on and repaints it, every frame
+	private FrameScheduler frameScheduler;
 
 	private boolean interact;
 
@@ -68,6 +70,7 @@ public class GameFrame extends JFrame implements WindowListener {
 		this.areaDisplayPanel = new AreaDisplayPanel(this.client, this, spriteMap); //Renderer panel
 		this.overlayPanel = new OverlayPanel(areaDisplayPanel, spriteMap); //overlay panel
 		this.areaDisplayPanel.setOverLay(this.overlayPanel); //assigns overlay to renderer
+		this.frameScheduler = new FrameScheduler(this.areaDisplayPanel, this.overlayPanel); //runs the frames
 		this.infoPanel = new InfoPanel(getContentPane(), this, imageMap); //InfoPanel
 		this.buttons = new ButtonPanel(this, this.client, imageMap); //button panel
 		this.invPanel = new InventoryPanel(this, this.imageMap, this.client, this.overlayPanel); //inventory panel
@@ -95,6 +98,7 @@ public class GameFrame extends JFrame implements WindowListener {
 
 		//Display the window
 		this.setVisible(true);
+		this.frameScheduler.start();
 
 	}
 
@@ -131,7 +135,8 @@ public class GameFrame extends JFrame implements WindowListener {
 	}
 
 	/**
-	 * Process the bundle by passing its contents to relevant panels.
+	 * Process the bundle by passing its contents to relevant panels. Must be called on the event dispatch thread, where the
+	 * frames are rendered.
 	 */
 	public void processBundle(Bundle bundle) {
 		//passes chat panel any log updates
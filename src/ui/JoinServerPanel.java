@@ -158,7 +158,7 @@ public class JoinServerPanel extends JPanel {
 						client.start();
 					} else {
 						client.setPlayerName(playerName);
-						client.sendCommand("newPlayer " + playerName); //Send the new player name
+						client.joinGame(playerName); //Send the new player name
 					}
 
 				} catch (IOException e) {
@@ -4,6 +4,7 @@ import java.awt.Font;
 import java.awt.FontMetrics;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
 
 import javax.swing.JPanel;
 
@@ -11,9 +12,7 @@ public class OverlayPanel extends JPanel {
 
 	private AreaDisplayPanel panel;
 	private SpriteMap spriteMap;
-	private Thread thread;
 
-	private final int delay = 8;
 	private long now; //holds time
 
 	//Header box
@@ -34,27 +33,10 @@ public class OverlayPanel extends JPanel {
 	private boolean footerReceived = false; //To stop the null pointer at the start of the game.
 	private Font font;
 
-	long mainThen;
-
 	public OverlayPanel(AreaDisplayPanel panel, SpriteMap spriteMap) {
 
 		this.panel = panel;
 		this.spriteMap = spriteMap;
-		this.mainThen = System.currentTimeMillis() + delay;
-
-		this.thread = new Thread() {
-			@Override
-			public void run() {
-				while (true) {
-					if (System.currentTimeMillis() > mainThen) {
-						tick();
-						repaint();
-						mainThen = System.currentTimeMillis() + delay;
-					}
-
-				}
-			}
-		};
 
 		try {
 			this.font = Font.createFont(Font.TRUETYPE_FONT, getClass().getResourceAsStream("slkscr.ttf"));
@@ -63,11 +45,10 @@ public class OverlayPanel extends JPanel {
 
 		} catch (Exception e) {
 		}
-
-		thread.start();
 	}
 
 	public void setHeaderMessage(String name) {
+		this.repaint(this.getHeaderBounds()); //Clear the old header from where it is now, tick() only sees the new position.
 		this.headerMessage = name;
 		this.headerX = -155;
 		headerIncrement = 2;
@@ -75,6 +56,7 @@ public class OverlayPanel extends JPanel {
 	}
 
 	public void setFooterMessage(String message) {
+		this.repaint(this.getFooterBounds()); //Clear the old footer from where it is now, tick() only sees the new position.
 		this.footerMessage = message;
 		this.footerY = 580;
 		this.footerIncrement = -4;
@@ -93,7 +75,7 @@ public class OverlayPanel extends JPanel {
 		//Draw the header
 		if (this.headerMessage != null) {
 
-			g2d.drawImage(spriteMap.getImage("H0"), headerX, headerY, null);
+			spriteMap.getSprite("H0").draw(g2d, headerX, headerY);
 
 			//Draw the header message in the center.
 			int stringLen = (int) g2d.getFontMetrics().getStringBounds(headerMessage, g2d).getWidth();
@@ -103,14 +85,19 @@ public class OverlayPanel extends JPanel {
 
 		//Draw the footer
 		if (this.footerMessage != null) {
-			g.drawImage(spriteMap.getImage("P0"), footerX, footerY, null);
+			spriteMap.getSprite("P0").draw(g, footerX, footerY);
 			this.drawStringMultiLine(g, this.footerMessage, 480, footerX + 10, footerY + 25);
 		}
 	}
 
+	/**
+	 * Moves the header and footer boxes on by one frame. Called by the FrameScheduler.
+	 */
 	public void tick() {
 
 		now = System.currentTimeMillis();
+		Rectangle headerBefore = this.getHeaderBounds();
+		Rectangle footerBefore = this.getFooterBounds();
 
 		//Display the header message. The boolean is there so that we don't try to print
 		//a message when we have never had one before yet as this can cause null pointer.
@@ -144,10 +131,35 @@ public class OverlayPanel extends JPanel {
 					this.footerY = 421;
 					this.footerIncrement = 4;
 				}
-			} else if (footerX > 620) {
+			} else if (footerY > 620) {
 				this.footerReceived = false; //Used
 			}
 		}
+
+		//Only repaint the boxes that have moved, and the game view beneath where they were.
+		if (!headerBefore.equals(this.getHeaderBounds())) {
+			this.repaint(headerBefore.union(this.getHeaderBounds()));
+		}
+		if (!footerBefore.equals(this.getFooterBounds())) {
+			this.repaint(footerBefore.union(this.getFooterBounds()));
+		}
+	}
+
+	/**
+	 * @return the part of the panel the header box is drawn over.
+	 */
+	private Rectangle getHeaderBounds() {
+		Sprite sprite = spriteMap.getSprite("H0");
+		return new Rectangle(headerX, headerY, sprite.getWidth(), sprite.getHeight());
+	}
+
+	/**
+	 * @return the part of the panel the footer box (and its message) is drawn over. Long messages can run past the bottom of
+	 *         the box, so this goes down to the bottom of the panel.
+	 */
+	private Rectangle getFooterBounds() {
+		Sprite sprite = spriteMap.getSprite("P0");
+		return new Rectangle(footerX, footerY, sprite.getWidth(), Math.max(sprite.getHeight(), this.getHeight() - footerY));
 	}
 
 	/**
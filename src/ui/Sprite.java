@@ -0,0 +1,65 @@
+package ui;
+
+import java.awt.Graphics;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+
+/**
+ * A sprite held by a SpriteMap: a region of one of its images (usually the sprite atlas), drawn as if it were an image of
+ * its own.
+ */
+public class Sprite {
+
+	private final BufferedImage image; //Image the sprite is a region of.
+	private final int x;
+	private final int y;
+	private final int width;
+	private final int height;
+	private Image subImage; //Created by getImage(), when first asked for.
+
+	Sprite(BufferedImage image, int x, int y, int width, int height) {
+		this.image = image;
+		this.x = x;
+		this.y = y;
+		this.width = width;
+		this.height = height;
+	}
+
+	/**
+	 * Draws the sprite with its top left corner at the given position.
+	 */
+	public void draw(Graphics g, int x, int y) {
+		g.drawImage(this.image, x, y, x + this.width, y + this.height, this.x, this.y, this.x + this.width,
+				this.y + this.height, null);
+	}
+
+	/**
+	 * Draws the sprite scaled to fit the given rectangle.
+	 */
+	public void draw(Graphics g, int x, int y, int width, int height) {
+		g.drawImage(this.image, x, y, x + width, y + height, this.x, this.y, this.x + this.width, this.y + this.height,
+				null);
+	}
+
+	/**
+	 * Returns the sprite as an image of its own. This shares its pixels with the atlas, but is drawn as a separate image,
+	 * so draw(..) should be used to draw the sprite.
+	 * @return the sprite's image
+	 */
+	public Image getImage() {
+		if (this.subImage == null) {
+			this.subImage = this.image.getSubimage(this.x, this.y, this.width, this.height);
+		}
+		return this.subImage;
+	}
+
+	/** GETTERS **/
+
+	public int getWidth() {
+		return this.width;
+	}
+
+	public int getHeight() {
+		return this.height;
+	}
+}
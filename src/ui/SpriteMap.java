@@ -1,13 +1,26 @@
 package ui;
 
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.GraphicsEnvironment;
 import java.awt.Image;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 
 import javax.imageio.ImageIO;
 
 /**
- * Holds a map that maps all of the image objects to there representing String 'type' e.g."w0"
+ * Holds a map that maps all of the sprites to there representing String 'type' e.g."w0"
+ *
+ * Once loaded, the small sprites (tiles, objects and players) are packed into a single atlas image, and each token maps to
+ * its region of the atlas. Drawing the game then draws from one image that Java2D can keep in video memory, rather than
+ * from hundreds. Large images (backgrounds and overlays) are kept as images of their own.
 
  * @author Cameron McLachlan
  *
@@ -15,7 +28,13 @@ import javax.imageio.ImageIO;
 public class SpriteMap {
 
 	private static final String IMAGE_PATH = "images/";
-	private HashMap<String, Image> spriteMap;
+	private static final int ATLAS_WIDTH = 1024;
+	private static final int MAX_ATLAS_SPRITE_AREA = 256 * 256; //Images larger than this are not packed into the atlas.
+	private HashMap<String, Sprite> sprites;
+
+	static {
+		ImageIO.setUseCache(false); //Images are small and read from the class path. Caching them in temporary files only slows loading.
+	}
 
 	public SpriteMap() {
 		loadMap();
@@ -28,16 +47,27 @@ public class SpriteMap {
 	 * @return - Image
 	 */
 	public Image getImage(String token) {
-		Image image = spriteMap.get(token);
-		if (image == null) {
+		Sprite sprite = this.getSprite(token);
+		return sprite == null ? null : sprite.getImage();
+	}
+
+	/**
+	 * Returns corresponding sprite from given token string
+	 *
+	 * @param - token
+	 * @return - Sprite, or null if there is no sprite for the token
+	 */
+	public Sprite getSprite(String token) {
+		Sprite sprite = sprites.get(token);
+		if (sprite == null) {
 			System.out.println("null image on input " + token);
 		}
-		return image;
+		return sprite;
 	}
 
 	public void loadMap() {
 
-		spriteMap = new HashMap<String, Image>();
+		HashMap<String, Image> spriteMap = new HashMap<String, Image>();
 
 		//walls
 		spriteMap.put("w0", loadImage("wall0.png"));
@@ -438,6 +468,84 @@ public class SpriteMap {
 		spriteMap.put("N2", loadImage("night2.png"));
 		spriteMap.put("N3", loadImage("night3.png"));
 
+		this.sprites = packSprites(spriteMap);
+	}
+
+	/**
+	 * Packs the small images into the atlas, in rows from the tallest image to the shortest, and copies the large images
+	 * into images of their own. All of these are compatible with the screen, so they can be drawn without converting them.
+	 * @param images images by token
+	 * @return sprites by token
+	 */
+	private static HashMap<String, Sprite> packSprites(HashMap<String, Image> images) {
+		List<String> tokens = new ArrayList<String>(images.keySet());
+		Collections.sort(tokens, new Comparator<String>() {
+			@Override
+			public int compare(String a, String b) {
+				int order = Integer.compare(images.get(b).getHeight(null), images.get(a).getHeight(null));
+				return order != 0 ? order : a.compareTo(b);
+			}
+		});
+
+		//Find where each small image goes. Images are kept a pixel apart, so that scaled sprites do not pick up their neighbours.
+		HashMap<String, int[]> positions = new HashMap<String, int[]>();
+		int x = 0;
+		int y = 0;
+		int rowHeight = 0;
+		for (String token : tokens) {
+			int width = images.get(token).getWidth(null);
+			int height = images.get(token).getHeight(null);
+			if (width * height > MAX_ATLAS_SPRITE_AREA || width > ATLAS_WIDTH) {
+				continue;
+			}
+
+			if (x + width > ATLAS_WIDTH) {
+				x = 0;
+				y += rowHeight + 1;
+				rowHeight = 0;
+			}
+			positions.put(token, new int[] { x, y });
+			x += width + 1;
+			rowHeight = Math.max(rowHeight, height);
+		}
+
+		BufferedImage atlas = createCompatibleImage(ATLAS_WIDTH, Math.max(1, y + rowHeight));
+		Graphics2D g = atlas.createGraphics();
+		g.setComposite(AlphaComposite.Src);
+
+		HashMap<String, Sprite> sprites = new HashMap<String, Sprite>();
+		for (String token : tokens) {
+			Image image = images.get(token);
+			int width = image.getWidth(null);
+			int height = image.getHeight(null);
+
+			int[] position = positions.get(token);
+			if (position != null) {
+				g.drawImage(image, position[0], position[1], null);
+				sprites.put(token, new Sprite(atlas, position[0], position[1], width, height));
+			} else {
+				BufferedImage copy = createCompatibleImage(width, height);
+				Graphics2D copyG = copy.createGraphics();
+				copyG.setComposite(AlphaComposite.Src);
+				copyG.drawImage(image, 0, 0, null);
+				copyG.dispose();
+				sprites.put(token, new Sprite(copy, 0, 0, width, height));
+			}
+		}
+		g.dispose();
+
+		return sprites;
+	}
+
+	/**
+	 * Creates a transparent image in the format of the screen, so that drawing it needs no conversion.
+	 */
+	private static BufferedImage createCompatibleImage(int width, int height) {
+		if (GraphicsEnvironment.isHeadless()) {
+			return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB); //No screen.
+		}
+		return GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration()
+				.createCompatibleImage(width, height, Transparency.TRANSLUCENT);
 	}
 
 	/**